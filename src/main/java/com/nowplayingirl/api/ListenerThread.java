@@ -0,0 +1,16 @@
+package com.nowplayingirl.api;
+
+/**
+ * Where a {@link NowPlayingListener} is called.
+ */
+public enum ListenerThread {
+    /**
+     * On the client (render) thread, at the end of the next client tick.
+     * Safe for touching game state and rendering resources; keep the work short.
+     */
+    CLIENT,
+    /**
+     * On a background worker. A slow listener only delays its own events.
+     */
+    WORKER
+}
\ No newline at end of file
@@ -0,0 +1,47 @@
+package com.nowplayingirl.api;
+
+import com.nowplayingirl.client.NowPlayingEventBus;
+
+/**
+ * Entry point for other mods: subscribe to the tracks detected by Now Playing IRL
+ * instead of running another media poller.
+ * <pre>{@code
+ * NowPlayingEvents.register(new NowPlayingListener() {
+ *     public void onTrackChanged(NowPlayingTrack track) { ... }
+ * }, ListenerThread.WORKER);
+ * }</pre>
+ * Registration can happen at any time, including before this mod is initialized.
+ */
+public final class NowPlayingEvents {
+
+    private NowPlayingEvents() {}
+
+    /**
+     * Registers a listener. If a track is already playing, the listener first
+     * receives {@link NowPlayingListener#onTrackChanged} for it.
+     *
+     * @return a handle whose {@link Registration#close()} unregisters the listener
+     */
+    public static Registration register(NowPlayingListener listener, ListenerThread thread) {
+        if (listener == null || thread == null) throw new NullPointerException("listener and thread are required");
+        return NowPlayingEventBus.INSTANCE.register(listener, thread);
+    }
+
+    /**
+     * @return the track playing right now, or null
+     */
+    public static NowPlayingTrack currentTrack() {
+        return NowPlayingEventBus.INSTANCE.currentTrack();
+    }
+
+    /**
+     * Handle of a registered listener.
+     */
+    public interface Registration extends AutoCloseable {
+        /**
+         * Unregisters the listener. Events already queued for it are dropped.
+         */
+        @Override
+        void close();
+    }
+}
\ No newline at end of file
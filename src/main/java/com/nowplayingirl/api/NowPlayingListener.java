@@ -0,0 +1,49 @@
+package com.nowplayingirl.api;
+
+import net.minecraft.util.Identifier;
+
+/**
+ * Receives now-playing events. Every method has a no-op default, so implement
+ * only what you need.
+ * <p>
+ * Events reach each listener in the order they were published. They are delivered
+ * on the thread chosen at registration (see {@link ListenerThread}), never on the
+ * detector's own thread.
+ */
+public interface NowPlayingListener {
+
+    /**
+     * A different track started, or playback stopped.
+     *
+     * @param track the new track, or null when nothing is playing anymore
+     */
+    default void onTrackChanged(NowPlayingTrack track) {}
+
+    /**
+     * The player reported more details for the current track after it started
+     * (album, duration, source...). Not sent for a different track.
+     *
+     * @param track the current track with the new details
+     */
+    default void onTrackUpdated(NowPlayingTrack track) {}
+
+    /**
+     * The album art of a track is uploaded and can be drawn.
+     * The texture stays valid while the track is current; do not keep it afterwards.
+     */
+    default void onArtReady(NowPlayingTrack track, Identifier texture) {}
+
+    /**
+     * The current track was paused or resumed.
+     */
+    default void onPlaybackStateChanged(NowPlayingTrack track, boolean playing) {}
+
+    /**
+     * A new position sample for the current track: track start, seek, pause or resume.
+     * Samples are sparse; between them, position advances in real time while playing.
+     * Only sent by players that report a position.
+     *
+     * @param positionMs position in milliseconds at the time of the event
+     */
+    default void onPositionChanged(NowPlayingTrack track, long positionMs) {}
+}
\ No newline at end of file
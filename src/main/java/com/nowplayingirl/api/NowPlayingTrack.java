@@ -0,0 +1,14 @@
+package com.nowplayingirl.api;
+
+/**
+ * A track as detected by Now Playing IRL. Immutable; fields the player did not
+ * report are null (or 0 for the duration).
+ *
+ * @param title      track title
+ * @param artist     track artist
+ * @param album      album name, if known
+ * @param source     player name ("Spotify", "vlc"...)
+ * @param durationMs track length in milliseconds, 0 if unknown
+ */
+public record NowPlayingTrack(String title, String artist, String album, String source, long durationMs) {
+}
\ No newline at end of file
@@ -0,0 +1,148 @@
+package com.nowplayingirl.client;
+
+import com.nowplayingirl.NowPlayingIRLMod;
+
+import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Planifie la détection média à intervalle adaptatif:
+ * - intervalle de base = pollingIntervalMs de la config
+ * - backoff exponentiel tant que rien ne joue, ou que le jeu est en pause / sans focus
+ * - polling resserré autour de la fin attendue du morceau quand sa durée et sa position sont connues
+ * Chaque passage replanifie le suivant, ce qui permet de changer l'intervalle à chaud.
+ */
+public class MediaPollScheduler {
+    
+    private static final long MIN_DELAY_MS = 250;
+    private static final int MAX_BACKOFF_FACTOR = 16;
+    private static final long MAX_IDLE_DELAY_MS = 15_000;
+    // Fenêtre autour de la fin attendue d'un morceau pendant laquelle on poll au plus vite
+    private static final long BOUNDARY_WINDOW_MS = 2_000;
+    // Au-delà, le morceau ne change pas quand prévu (boucle, flux): retour au rythme normal
+    private static final int MAX_BOUNDARY_POLLS = (int) (2 * BOUNDARY_WINDOW_MS / MIN_DELAY_MS);
+    
+    private final ScheduledExecutorService executor;
+    private final Runnable poll;
+    private final Supplier<NowPlayingState> currentState;
+    private final IntSupplier baseInterval;
+    private final BooleanSupplier idle;
+    
+    private ScheduledFuture<?> pending;
+    // Incrémentée à chaque planification: un passage d'une chaîne remplacée ne replanifie pas
+    private long generation;
+    private boolean running;
+    private int backoffFactor = 1;
+    private int boundaryPolls;
+    private boolean stopped;
+    
+    public MediaPollScheduler(ScheduledExecutorService executor, Runnable poll, Supplier<NowPlayingState> currentState,
+                              IntSupplier baseInterval, BooleanSupplier idle) {
+        this.executor = executor;
+        this.poll = poll;
+        this.currentState = currentState;
+        this.baseInterval = baseInterval;
+        this.idle = idle;
+    }
+    
+    public synchronized void start() {
+        schedule(0);
+    }
+    
+    /**
+     * Annule le prochain passage et repart de l'intervalle de base (config modifiée).
+     * Pendant un passage, c'est lui qui planifie le suivant, une seule fois.
+     */
+    public synchronized void reschedule() {
+        if (stopped) return;
+        backoffFactor = 1;
+        if (running) return;
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        schedule(baseDelay());
+    }
+    
+    public synchronized void stop() {
+        stopped = true;
+        if (pending != null) {
+            pending.cancel(false);
+        }
+    }
+    
+    private void run(long scheduledGeneration) {
+        synchronized (this) {
+            // Annulé trop tard: la chaîne a déjà été remplacée
+            if (stopped || scheduledGeneration != generation) return;
+            running = true;
+        }
+        NowPlayingState before = currentState.get();
+        try {
+            poll.run();
+        } catch (Exception e) {
+            NowPlayingIRLMod.LOGGER.debug("Error polling media: {}", e.getMessage());
+        }
+        NowPlayingState after = currentState.get();
+        
+        synchronized (this) {
+            running = false;
+            if (stopped) return;
+            // Même morceau complété (MediaInfo fusionnée): ce n'est pas un changement
+            schedule(nextDelay(after, !Objects.equals(before.media(), after.media()), System.nanoTime()));
+        }
+    }
+    
+    private void schedule(long delayMs) {
+        long scheduledGeneration = ++generation;
+        try {
+            pending = executor.schedule(() -> run(scheduledGeneration), delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Executor arrêté: plus rien à planifier
+            stopped = true;
+        }
+    }
+    
+    private long baseDelay() {
+        return Math.max(MIN_DELAY_MS, baseInterval.getAsInt());
+    }
+    
+    private long nextDelay(NowPlayingState state, boolean changed, long now) {
+        long base = baseDelay();
+        if (changed) {
+            backoffFactor = 1;
+            boundaryPolls = 0;
+        }
+        
+        long delay;
+        boolean playing = state.hasMedia() && state.playing();
+        if (!playing || idle.getAsBoolean()) {
+            delay = Math.min(base * backoffFactor, Math.max(base, MAX_IDLE_DELAY_MS));
+            backoffFactor = Math.min(backoffFactor * 2, MAX_BACKOFF_FACTOR);
+        } else {
+            delay = base;
+            backoffFactor = 1;
+        }
+        
+        // Changement de morceau attendu: se réveiller juste avant, puis poller vite.
+        // Le reste se calcule depuis la position du lecteur, pas depuis l'heure de détection
+        // (le morceau a pu être détecté en cours de route)
+        long duration = playing ? state.media().getDurationMs() : 0;
+        if (duration > 0 && state.hasPosition()) {
+            long remaining = duration - state.positionAt(now);
+            if (remaining > BOUNDARY_WINDOW_MS) {
+                delay = Math.min(delay, remaining - BOUNDARY_WINDOW_MS);
+                boundaryPolls = 0;
+            } else if (boundaryPolls < MAX_BOUNDARY_POLLS) {
+                delay = Math.min(delay, MIN_DELAY_MS);
+                boundaryPolls++;
+            }
+        }
+        return Math.max(MIN_DELAY_MS, delay);
+    }
+}
\ No newline at end of file
@@ -1,15 +1,19 @@
 package com.nowplayingirl.client;
 
 import com.nowplayingirl.NowPlayingIRLMod;
+import com.nowplayingirl.api.NowPlayingTrack;
 import com.nowplayingirl.client.config.ConfigScreen;
 import com.nowplayingirl.client.config.ModConfig;
 import com.nowplayingirl.client.hud.NowPlayingHud;
 import com.nowplayingirl.client.media.AlbumArtFetcher;
+import com.nowplayingirl.client.media.AlbumPalette;
+import com.nowplayingirl.client.media.LyricsLoader;
 import com.nowplayingirl.client.media.MediaDetector;
 import com.nowplayingirl.client.media.MediaInfo;
 import net.fabricmc.api.ClientModInitializer;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientLifecycleEvents;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
 import net.fabricmc.fabric.api.client.keybinding.v1.KeyBindingHelper;
 import net.fabricmc.fabric.api.client.rendering.v1.HudRenderCallback;
@@ -19,9 +23,11 @@ import net.minecraft.client.util.InputUtil;
 import net.minecraft.util.Identifier;
 import org.lwjgl.glfw.GLFW;
 
+import java.util.Objects;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Environment(EnvType.CLIENT)
 public class NowPlayingClient implements ClientModInitializer {
@@ -31,8 +37,17 @@ public class NowPlayingClient implements ClientModInitializer {
     private NowPlayingHud hud;
     private MediaDetector mediaDetector;
     private AlbumArtFetcher albumArtFetcher;
+    private LyricsLoader lyricsLoader;
     private ScheduledExecutorService executor;
-    private volatile MediaInfo currentMedia;
+    private MediaPollScheduler pollScheduler;
+    // Valeur de showLyrics au dernier changement de config
+    private boolean lyricsEnabled;
+    // Seul point de publication de l'état entre le poller, les threads de pochettes et le rendu
+    private final AtomicReference<NowPlayingState> state = new AtomicReference<>(NowPlayingState.EMPTY);
+    // Épinglage et publication d'une pochette: la texture épinglée est toujours celle de l'état publié
+    private final ReentrantLock artLock = new ReentrantLock();
+    // Événements publiés aux autres mods (com.nowplayingirl.api)
+    private final NowPlayingEventBus events = NowPlayingEventBus.INSTANCE;
     
     // Keybindings
     private KeyBinding.Category keybindCategory;
@@ -52,12 +67,16 @@ public class NowPlayingClient implements ClientModInitializer {
         
         // Charger la config
         config = ModConfig.load();
+        lyricsEnabled = config.isShowLyrics();
         
         // Initialiser le détecteur média
-        mediaDetector = MediaDetector.create();
+        mediaDetector = MediaDetector.create(config);
         
         // Initialiser le fetcher de pochettes
-        albumArtFetcher = new AlbumArtFetcher();
+        albumArtFetcher = new AlbumArtFetcher(config);
+        
+        // Paroles synchronisées (.lrc), analysées hors du thread de rendu
+        lyricsLoader = new LyricsLoader(config);
         
         // Initialiser le HUD
         hud = new NowPlayingHud(this);
@@ -67,6 +86,9 @@ public class NowPlayingClient implements ClientModInitializer {
         
         // Enregistrer le callback de rendu HUD
         HudRenderCallback.EVENT.register((drawContext, renderTickCounter) -> {
+            // Uploads de pochettes en attente, avec un budget par frame
+            albumArtFetcher.drainUploads();
+            
             if (config.isEnabled()) {
                 float tickDelta = renderTickCounter.getTickProgress(true);
                 hud.render(drawContext, tickDelta);
@@ -79,6 +101,9 @@ public class NowPlayingClient implements ClientModInitializer {
         // Démarrer le polling média en arrière-plan
         startMediaPolling();
         
+        // Arrêter proprement (le détecteur Linux garde un processus playerctl vivant)
+        ClientLifecycleEvents.CLIENT_STOPPING.register(client -> shutdown());
+        
         NowPlayingIRLMod.LOGGER.info("Now Playing IRL initialized!");
     }
     
@@ -111,6 +136,12 @@ public class NowPlayingClient implements ClientModInitializer {
     }
     
     private void onClientTick(MinecraftClient client) {
+        // Le HUD n'est pas rendu partout (menu principal...): vider aussi la file à chaque tick
+        albumArtFetcher.drainUploads();
+        
+        // Écouteurs des autres mods qui ont demandé le thread client
+        events.drainClientThread();
+        
         // Toggle HUD
         while (toggleKey.wasPressed()) {
             config.setEnabled(!config.isEnabled());
@@ -149,42 +180,210 @@ public class NowPlayingClient implements ClientModInitializer {
     }
     
     private void startMediaPolling() {
+        // Détecteur push (MPRIS sur Linux): pas besoin de boucle de polling
+        if (mediaDetector.start(this::onMediaDetected)) {
+            NowPlayingIRLMod.LOGGER.info("Media detector is event-driven, polling disabled");
+            return;
+        }
+        
         executor = Executors.newSingleThreadScheduledExecutor(r -> {
             Thread t = new Thread(r, "NowPlayingIRL-MediaPoller");
             t.setDaemon(true);
             return t;
         });
         
-        executor.scheduleAtFixedRate(() -> {
-            try {
-                MediaInfo newMedia = mediaDetector.detect();
-                
-                if (newMedia != null && !newMedia.equals(currentMedia)) {
-                    if (newMedia.hasValidInfo()) {
-                        albumArtFetcher.fetchAsync(newMedia, texture -> {
-                            newMedia.setAlbumArtTexture(texture);
-                        });
-                    }
-                    currentMedia = newMedia;
-                    hud.onMediaChanged(newMedia);
-                } else if (newMedia == null && currentMedia != null) {
-                    currentMedia = null;
-                    hud.onMediaChanged(null);
+        pollScheduler = new MediaPollScheduler(
+            executor,
+            () -> onMediaDetected(mediaDetector.detect()),
+            state::get,
+            config::getPollingIntervalMs,
+            this::isGameIdle
+        );
+        pollScheduler.start();
+    }
+    
+    private boolean isGameIdle() {
+        // Pas besoin de détecter vite si personne ne regarde le HUD
+        MinecraftClient client = MinecraftClient.getInstance();
+        return client == null || !client.isWindowFocused() || client.isPaused();
+    }
+    
+    public void onConfigChanged() {
+        albumArtFetcher.setCacheBudget(config.getArtCacheBudgetBytes());
+        if (pollScheduler != null) {
+            pollScheduler.reschedule();
+        }
+        // Paroles activées en cours de morceau: elles n'avaient pas été cherchées
+        boolean wasEnabled = lyricsEnabled;
+        lyricsEnabled = config.isShowLyrics();
+        NowPlayingState current = state.get();
+        if (lyricsEnabled && !wasEnabled && current.lyrics() == null
+            && current.media() != null && current.media().hasValidInfo()) {
+            loadLyrics(current.media());
+        }
+    }
+    
+    private void onMediaDetected(MediaInfo newMedia) {
+        try {
+            NowPlayingState current;
+            NowPlayingState next;
+            do {
+                current = state.get();
+                next = current.withMedia(newMedia);
+                if (next == current) return;
+            } while (!state.compareAndSet(current, next));
+            
+            if (next.media() != null && next.media().equals(current.media())) {
+                NowPlayingTrack track = NowPlayingEventBus.toTrack(next.media());
+                if (next.media() != current.media()) {
+                    onMediaCompleted(current.media(), next.media(), track);
+                }
+                if (next.playing() != current.playing()) {
+                    events.playbackStateChanged(track, next.playing());
                 }
-                
-            } catch (Exception e) {
-                NowPlayingIRLMod.LOGGER.debug("Error polling media: {}", e.getMessage());
+                if (next.positionSampledAt() != current.positionSampledAt()) {
+                    events.positionChanged(track, next.positionMs());
+                }
+                return;
             }
-        }, 0, 1000, TimeUnit.MILLISECONDS);
+            
+            NowPlayingTrack track = NowPlayingEventBus.toTrack(newMedia);
+            events.trackChanged(track);
+            unpinClearedArt();
+            if (next.hasPosition()) {
+                events.positionChanged(track, next.positionMs());
+            }
+            if (newMedia != null && newMedia.hasValidInfo()) {
+                albumArtFetcher.fetchAsync(newMedia, texture -> onAlbumArtLoaded(newMedia, texture));
+                loadLyrics(newMedia);
+            }
+            
+        } catch (Exception e) {
+            NowPlayingIRLMod.LOGGER.debug("Error polling media: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Le morceau courant a été complété par une lecture plus récente (pochette publiée
+     * ou emplacement du fichier arrivés après le titre): la pochette et les paroles
+     * sont recherchées à nouveau si ce qui sert à les trouver a changé.
+     */
+    private void onMediaCompleted(MediaInfo previous, MediaInfo media, NowPlayingTrack track) {
+        if (!track.equals(NowPlayingEventBus.toTrack(previous))) {
+            events.trackUpdated(track);
+        }
+        if (!media.hasValidInfo()) return;
+        
+        boolean trackUrlChanged = !Objects.equals(previous.getTrackUrl(), media.getTrackUrl());
+        if (trackUrlChanged || !Objects.equals(previous.getArtUrl(), media.getArtUrl())
+            || !Objects.equals(previous.getAlbum(), media.getAlbum())) {
+            albumArtFetcher.refreshAsync(media, texture -> onAlbumArtLoaded(media, texture));
+        }
+        if (trackUrlChanged) {
+            loadLyrics(media);
+        }
+    }
+    
+    /**
+     * La pochette est dessinée plus grande (échelle de l'interface ou du HUD): celle du morceau
+     * courant est redécodée à la nouvelle taille.
+     */
+    public void onAlbumArtSizeIncreased() {
+        MediaInfo media = state.get().media();
+        if (media != null && media.hasValidInfo()) {
+            albumArtFetcher.fetchAsync(media, texture -> onAlbumArtLoaded(media, texture));
+        }
+    }
+    
+    private void loadLyrics(MediaInfo media) {
+        if (!config.isShowLyrics()) return;
+        lyricsLoader.load(media).thenAccept(lyrics -> {
+            if (lyrics != null) state.updateAndGet(s -> s.withLyrics(media, lyrics));
+        });
+    }
+    
+    private void onAlbumArtLoaded(MediaInfo media, Identifier texture) {
+        onAlbumArtLoaded(media, texture, true);
+    }
+    
+    /**
+     * @param retryIfEvicted redemander la pochette si elle a été évincée avant d'être épinglée
+     */
+    private void onAlbumArtLoaded(MediaInfo media, Identifier texture, boolean retryIfEvicted) {
+        if (texture == null) {
+            // Les couleurs du morceau précédent, gardées en attendant, laissent la place au thème
+            state.updateAndGet(s -> s.withoutAlbumArt(media));
+            unpinClearedArt();
+            return;
+        }
+        // Calculée avec la pochette sur le thread du fetcher: ici une simple lecture du cache
+        AlbumPalette palette = albumArtFetcher.getPalette(texture);
+        artLock.lock();
+        try {
+            // Épingler avant de publier: sinon le thread de rendu peut évincer (et détruire)
+            // la texture entre la publication et l'épinglage, juste avant que le HUD la dessine
+            if (!albumArtFetcher.setDisplayedTexture(texture)) {
+                onArtEvicted(media, retryIfEvicted);
+                return;
+            }
+            NowPlayingState updated = state.updateAndGet(s -> s.withAlbumArt(media, texture, palette));
+            if (updated.albumArt() != texture) {
+                // Arrivée trop tard: c'est la pochette publiée qui doit rester épinglée
+                albumArtFetcher.setDisplayedTexture(updated.albumArt());
+                return;
+            }
+        } finally {
+            artLock.unlock();
+        }
+        events.artReady(NowPlayingEventBus.toTrack(media), texture);
+    }
+    
+    /**
+     * Évincée entre l'upload et l'épinglage (cache plein de préchargements): redemandée une fois,
+     * le plus souvent depuis le cache disque.
+     */
+    private void onArtEvicted(MediaInfo media, boolean retry) {
+        if (!media.equals(state.get().media())) return;
+        if (retry) {
+            NowPlayingIRLMod.LOGGER.debug("Album art for {} was evicted before it was shown, fetching it again", media.getTitle());
+            albumArtFetcher.fetchAsync(media, texture -> onAlbumArtLoaded(media, texture, false));
+        } else {
+            NowPlayingIRLMod.LOGGER.warn("Album art for {} was evicted before it was shown, the art cache budget may be too small",
+                media.getTitle());
+        }
+    }
+    
+    /**
+     * Plus aucune pochette publiée (nouveau morceau, arrêt, pas de pochette): l'ancienne texture
+     * n'est plus dessinée, elle perd son épinglage et repasse sous le budget du cache.
+     */
+    private void unpinClearedArt() {
+        artLock.lock();
+        try {
+            if (state.get().albumArt() == null) {
+                albumArtFetcher.setDisplayedTexture(null);
+            }
+        } finally {
+            artLock.unlock();
+        }
     }
     
     public void shutdown() {
+        if (mediaDetector != null) {
+            mediaDetector.shutdown();
+        }
+        if (pollScheduler != null) {
+            pollScheduler.stop();
+        }
         if (executor != null) {
             executor.shutdownNow();
         }
         if (albumArtFetcher != null) {
             albumArtFetcher.shutdown();
         }
+        if (lyricsLoader != null) {
+            lyricsLoader.shutdown();
+        }
     }
     
     public ModConfig getConfig() {
@@ -192,7 +391,18 @@ public class NowPlayingClient implements ClientModInitializer {
     }
     
     public MediaInfo getCurrentMedia() {
-        return currentMedia;
+        return state.get().media();
+    }
+    
+    /**
+     * Instantané cohérent de l'état courant, lisible depuis n'importe quel thread.
+     */
+    public NowPlayingState getState() {
+        return state.get();
+    }
+    
+    public AlbumArtFetcher getAlbumArtFetcher() {
+        return albumArtFetcher;
     }
     
     public NowPlayingHud getHud() {
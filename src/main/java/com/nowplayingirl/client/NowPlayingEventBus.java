@@ -0,0 +1,182 @@
+package com.nowplayingirl.client;
+
+import com.nowplayingirl.NowPlayingIRLMod;
+import com.nowplayingirl.api.ListenerThread;
+import com.nowplayingirl.api.NowPlayingEvents;
+import com.nowplayingirl.api.NowPlayingListener;
+import com.nowplayingirl.api.NowPlayingTrack;
+import com.nowplayingirl.client.media.MediaInfo;
+import net.minecraft.util.Identifier;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Implémentation de {@link NowPlayingEvents} (usage interne, passer par l'API).
+ * Chaque écouteur a sa propre boîte aux lettres sans verrou: publier ne fait qu'y déposer
+ * l'événement, et un seul consommateur à la fois la vide. Un écouteur lent ne retarde que
+ * ses propres événements, jamais la détection ni les autres écouteurs.
+ */
+public final class NowPlayingEventBus {
+
+    // Au-delà, les plus anciens événements d'un écouteur trop lent sont abandonnés
+    private static final int MAILBOX_CAPACITY = 64;
+
+    private static final Mailbox[] NO_MAILBOXES = new Mailbox[0];
+
+    // Après les constantes: le constructeur en a besoin
+    public static final NowPlayingEventBus INSTANCE = new NowPlayingEventBus();
+
+    // Copie à l'écriture: les inscriptions sont rares, les publications parcourent un tableau stable
+    private final AtomicReference<Mailbox[]> mailboxes = new AtomicReference<>(NO_MAILBOXES);
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+    private volatile NowPlayingTrack currentTrack;
+
+    // Instance propre pour les tests; le mod n'utilise que INSTANCE
+    NowPlayingEventBus() {}
+
+    public NowPlayingEvents.Registration register(NowPlayingListener listener, ListenerThread thread) {
+        Mailbox mailbox = new Mailbox(listener, thread);
+        Mailbox[] current;
+        Mailbox[] next;
+        do {
+            current = mailboxes.get();
+            next = Arrays.copyOf(current, current.length + 1);
+            next[current.length] = mailbox;
+        } while (!mailboxes.compareAndSet(current, next));
+
+        // Inscrit en cours de lecture: il reçoit tout de suite le morceau courant.
+        // Lu à la livraison, pour ne jamais passer après un changement publié entre-temps
+        mailbox.offer(l -> {
+            NowPlayingTrack track = currentTrack;
+            if (track != null) l.onTrackChanged(track);
+        });
+        return mailbox;
+    }
+
+    public NowPlayingTrack currentTrack() {
+        return currentTrack;
+    }
+
+    // ===== Publication (threads du détecteur et des pochettes) =====
+
+    void trackChanged(NowPlayingTrack track) {
+        currentTrack = track;
+        post(l -> l.onTrackChanged(track));
+    }
+
+    void trackUpdated(NowPlayingTrack track) {
+        currentTrack = track;
+        post(l -> l.onTrackUpdated(track));
+    }
+
+    void artReady(NowPlayingTrack track, Identifier texture) {
+        post(l -> l.onArtReady(track, texture));
+    }
+
+    void playbackStateChanged(NowPlayingTrack track, boolean playing) {
+        post(l -> l.onPlaybackStateChanged(track, playing));
+    }
+
+    void positionChanged(NowPlayingTrack track, long positionMs) {
+        post(l -> l.onPositionChanged(track, positionMs));
+    }
+
+    private void post(Consumer<NowPlayingListener> event) {
+        for (Mailbox mailbox : mailboxes.get()) {
+            mailbox.offer(event);
+        }
+    }
+
+    /**
+     * Livre les événements des écouteurs {@link ListenerThread#CLIENT}. Appelé sur le thread client.
+     */
+    void drainClientThread() {
+        for (Mailbox mailbox : mailboxes.get()) {
+            if (mailbox.thread == ListenerThread.CLIENT) {
+                mailbox.drain();
+            }
+        }
+    }
+
+    static NowPlayingTrack toTrack(MediaInfo media) {
+        if (media == null) return null;
+        return new NowPlayingTrack(media.getTitle(), media.getArtist(), media.getAlbum(),
+                media.getSource(), media.getDurationMs());
+    }
+
+    private void unregister(Mailbox mailbox) {
+        Mailbox[] current;
+        Mailbox[] next;
+        do {
+            current = mailboxes.get();
+            int index = Arrays.asList(current).indexOf(mailbox);
+            if (index < 0) return;
+            next = new Mailbox[current.length - 1];
+            System.arraycopy(current, 0, next, 0, index);
+            System.arraycopy(current, index + 1, next, index, next.length - index);
+        } while (!mailboxes.compareAndSet(current, next));
+    }
+
+    private final class Mailbox implements NowPlayingEvents.Registration {
+
+        private final NowPlayingListener listener;
+        private final ListenerThread thread;
+        private final ConcurrentLinkedQueue<Consumer<NowPlayingListener>> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        // Un seul worker vide la boîte à la fois: ordre préservé, pas de verrou
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        Mailbox(NowPlayingListener listener, ListenerThread thread) {
+            this.listener = listener;
+            this.thread = thread;
+        }
+
+        void offer(Consumer<NowPlayingListener> event) {
+            if (closed) return;
+            if (size.incrementAndGet() > MAILBOX_CAPACITY && queue.poll() != null) {
+                size.decrementAndGet();
+                NowPlayingIRLMod.LOGGER.debug("Now playing listener {} is falling behind, dropping an event", listener);
+            }
+            queue.offer(event);
+            if (thread == ListenerThread.WORKER && draining.compareAndSet(false, true)) {
+                workers.execute(this::drainWorker);
+            }
+        }
+
+        private void drainWorker() {
+            while (true) {
+                drain();
+                draining.set(false);
+                // Un événement arrivé entre la fin du drain et la remise à zéro ne doit pas rester en plan
+                if (queue.isEmpty() || !draining.compareAndSet(false, true)) return;
+            }
+        }
+
+        void drain() {
+            Consumer<NowPlayingListener> event;
+            while (!closed && (event = queue.poll()) != null) {
+                size.decrementAndGet();
+                try {
+                    event.accept(listener);
+                } catch (Exception e) {
+                    NowPlayingIRLMod.LOGGER.debug("Now playing listener failed: {}", e.getMessage());
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            unregister(this);
+            queue.clear();
+        }
+    }
+}
\ No newline at end of file
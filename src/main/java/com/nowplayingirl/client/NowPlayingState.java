@@ -0,0 +1,99 @@
+package com.nowplayingirl.client;
+
+import com.nowplayingirl.client.media.AlbumPalette;
+import com.nowplayingirl.client.media.Lyrics;
+import com.nowplayingirl.client.media.MediaInfo;
+import net.minecraft.util.Identifier;
+
+/**
+ * Instantané immuable de ce qui est affiché: morceau courant, sa pochette et ses couleurs, ses paroles et l'état de lecture.
+ * Publié par une seule AtomicReference; chaque transition crée une copie avec
+ * une version incrémentée, le thread de rendu lit un état cohérent sans verrou.
+ * Les MediaInfo publiées ici ne sont plus modifiées.
+ * <p>
+ * La position est une mesure (positionMs, -1 si inconnue) ancrée sur System.nanoTime():
+ * entre deux mesures, elle est extrapolée avec {@link #positionAt(long)}.
+ */
+public record NowPlayingState(long version, MediaInfo media, Identifier albumArt, AlbumPalette palette, Lyrics lyrics,
+                              boolean playing, long positionMs, long positionSampledAt) {
+
+    public static final NowPlayingState EMPTY = new NowPlayingState(0, null, null, null, null, false, -1, 0);
+
+    public boolean hasMedia() {
+        return media != null;
+    }
+
+    public boolean hasPosition() {
+        return positionMs >= 0;
+    }
+
+    /**
+     * @return la position extrapolée à l'instant nanoTime, bornée par la durée, ou -1 si inconnue
+     */
+    public long positionAt(long nanoTime) {
+        if (positionMs < 0) return -1;
+        long position = playing ? positionMs + (nanoTime - positionSampledAt) / 1_000_000 : positionMs;
+        long duration = media != null ? media.getDurationMs() : 0;
+        return duration > 0 ? Math.min(position, duration) : position;
+    }
+
+    /**
+     * Même morceau (titre et artiste): la pochette et les paroles sont conservées; la MediaInfo
+     * publiée l'est aussi, sauf si la nouvelle lecture la complète (voir {@link MediaInfo#mergedWith}).
+     * @return this si rien n'a changé
+     */
+    public NowPlayingState withMedia(MediaInfo newMedia) {
+        if (newMedia == null) {
+            return media == null ? this : new NowPlayingState(version + 1, null, null, null, null, false, -1, 0);
+        }
+        if (newMedia.equals(media)) {
+            MediaInfo merged = media.mergedWith(newMedia);
+            boolean sampled = newMedia.getPositionMs() >= 0 && newMedia.getPositionSampledAt() != positionSampledAt;
+            if (!sampled && newMedia.isPlaying() == playing && merged == media) return this;
+
+            long position = positionMs;
+            long sampledAt = positionSampledAt;
+            if (sampled) {
+                position = newMedia.getPositionMs();
+                sampledAt = newMedia.getPositionSampledAt();
+            } else if (position >= 0) {
+                // Pause ou reprise sans nouvelle mesure: on fige (ou relance) depuis la position extrapolée
+                long now = System.nanoTime();
+                position = positionAt(now);
+                sampledAt = now;
+            }
+            return new NowPlayingState(version + 1, merged, albumArt, palette, lyrics, newMedia.isPlaying(), position, sampledAt);
+        }
+        // Nouveau morceau: l'ancienne pochette et les anciennes paroles ne le concernent pas.
+        // Les couleurs restent jusqu'à celles de la nouvelle pochette, sans repasser par le thème
+        return new NowPlayingState(version + 1, newMedia, null, palette, null, newMedia.isPlaying(),
+                newMedia.getPositionMs(), newMedia.getPositionSampledAt());
+    }
+
+    /**
+     * Un résultat demandé pour une version moins complète du même morceau reste valable.
+     * @param texturePalette couleurs extraites de la pochette, ou null
+     * @return this si forMedia n'est plus le morceau courant (pochette arrivée trop tard)
+     */
+    public NowPlayingState withAlbumArt(MediaInfo forMedia, Identifier texture, AlbumPalette texturePalette) {
+        if (!forMedia.equals(media) || texture == albumArt) return this;
+        return new NowPlayingState(version + 1, media, texture, texturePalette, lyrics, playing, positionMs, positionSampledAt);
+    }
+
+    /**
+     * Aucune pochette trouvée pour le morceau: les couleurs gardées du précédent ne s'appliquent plus.
+     * @return this si forMedia n'est plus le morceau courant ou s'il a déjà une pochette
+     */
+    public NowPlayingState withoutAlbumArt(MediaInfo forMedia) {
+        if (!forMedia.equals(media) || albumArt != null || palette == null) return this;
+        return new NowPlayingState(version + 1, media, null, null, lyrics, playing, positionMs, positionSampledAt);
+    }
+
+    /**
+     * @return this si forMedia n'est plus le morceau courant
+     */
+    public NowPlayingState withLyrics(MediaInfo forMedia, Lyrics newLyrics) {
+        if (!forMedia.equals(media) || newLyrics == lyrics) return this;
+        return new NowPlayingState(version + 1, media, albumArt, palette, newLyrics, playing, positionMs, positionSampledAt);
+    }
+}
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.nowplayingirl.client.config;
 
 import com.nowplayingirl.client.NowPlayingClient;
 import com.nowplayingirl.client.hud.Theme;
+import com.nowplayingirl.client.media.AlbumArtFetcher;
 import net.minecraft.client.gui.DrawContext;
 import net.minecraft.client.gui.screen.Screen;
 import net.minecraft.client.gui.widget.ButtonWidget;
@@ -106,6 +107,22 @@ public class ConfigScreen extends Screen {
         });
         y += spacing;
 
+        // Polling interval
+        addDrawableChild(new SliderWidget(centerX - buttonWidth / 2, y, buttonWidth, buttonHeight,
+            Text.literal("Polling: " + config.getPollingIntervalMs() + " ms"),
+            (config.getPollingIntervalMs() - ModConfig.MIN_POLLING_INTERVAL_MS)
+                / (double) (ModConfig.MAX_POLLING_INTERVAL_MS - ModConfig.MIN_POLLING_INTERVAL_MS)) {
+            @Override
+            protected void updateMessage() {
+                setMessage(Text.literal("Polling: " + getPollingInterval(value) + " ms"));
+            }
+            @Override
+            protected void applyValue() {
+                config.setPollingIntervalMs(getPollingInterval(value));
+            }
+        });
+        y += spacing;
+
         // Show Album Art
         addDrawableChild(ButtonWidget.builder(
             Text.literal("Album Art: " + (config.isShowAlbumArt() ? "§aVisible" : "§7Hidden")),
@@ -114,6 +131,16 @@ public class ConfigScreen extends Screen {
                 button.setMessage(Text.literal("Album Art: " + (config.isShowAlbumArt() ? "§aVisible" : "§7Hidden")));
             }
         ).dimensions(centerX - buttonWidth / 2, y, buttonWidth, buttonHeight).build());
+        y += spacing;
+
+        // Show Lyrics
+        addDrawableChild(ButtonWidget.builder(
+            Text.literal("Lyrics: " + (config.isShowLyrics() ? "§aVisible" : "§7Hidden")),
+            button -> {
+                config.setShowLyrics(!config.isShowLyrics());
+                button.setMessage(Text.literal("Lyrics: " + (config.isShowLyrics() ? "§aVisible" : "§7Hidden")));
+            }
+        ).dimensions(centerX - buttonWidth / 2, y, buttonWidth, buttonHeight).build());
         y += spacing + 15;
 
         // Done & Reset
@@ -147,9 +174,16 @@ public class ConfigScreen extends Screen {
             case OCEAN -> "§b" + theme.getDisplayName();
             case FOREST -> "§a" + theme.getDisplayName();
             case SUNSET -> "§6" + theme.getDisplayName();
+            case ALBUM -> "§e" + theme.getDisplayName();
         };
     }
 
+    private int getPollingInterval(double value) {
+        // Mêmes bornes que ModConfig, par pas de 50 ms
+        int range = ModConfig.MAX_POLLING_INTERVAL_MS - ModConfig.MIN_POLLING_INTERVAL_MS;
+        return (int) Math.round((ModConfig.MIN_POLLING_INTERVAL_MS + value * range) / 50) * 50;
+    }
+
     private String getRotationText(float speed) {
         if (speed == 0) return "§7Disabled";
         if (speed < 1) return "§eSlow";
@@ -161,6 +195,7 @@ public class ConfigScreen extends Screen {
     @Override
     public void close() {
         config.save();
+        NowPlayingClient.getInstance().onConfigChanged();
         client.setScreen(parent);
     }
 
@@ -178,6 +213,12 @@ public class ConfigScreen extends Screen {
         // Preview Box - PLUS GRAND ET PLUS CLAIR
         drawPreviewBox(context, delta);
 
+        // Album art cache usage
+        AlbumArtFetcher.Stats stats = NowPlayingClient.getInstance().getAlbumArtFetcher().getStats();
+        context.drawCenteredTextWithShadow(textRenderer,
+            String.format("§8Album art cache: %d covers, %.1f MB", stats.textureCount(), stats.textureBytes() / (1024.0 * 1024.0)),
+            width / 2, height - 32, 0x888888);
+
         // Keybind hints
         int hintY = height - 20;
         context.drawCenteredTextWithShadow(textRenderer,
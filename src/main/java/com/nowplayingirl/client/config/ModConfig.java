@@ -4,11 +4,14 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.nowplayingirl.NowPlayingIRLMod;
 import com.nowplayingirl.client.hud.Theme;
+import com.nowplayingirl.client.media.PlayerRule;
 import net.fabricmc.loader.api.FabricLoader;
 
 import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 public class ModConfig {
     
@@ -16,6 +19,10 @@ public class ModConfig {
     private static final Path CONFIG_PATH = FabricLoader.getInstance()
         .getConfigDir().resolve("nowplayingirl.json");
     
+    // Bornes de pollingIntervalMs, partagées avec le slider de l'écran de config
+    public static final int MIN_POLLING_INTERVAL_MS = 250;
+    public static final int MAX_POLLING_INTERVAL_MS = 10_000;
+    
     // Config values
     private boolean enabled = true;
     private Position position = Position.BOTTOM_RIGHT;
@@ -25,6 +32,19 @@ public class ModConfig {
     private boolean showAlbumArt = true;
     private Theme theme = Theme.CHERRY_BLOSSOM;
     private int pollingIntervalMs = 1000;
+    // Mémoire GPU des pochettes. Décodées à la taille du HUD (48x48, 9 Ko), 16 Mo en gardent
+    // environ 1800: de quoi couvrir une longue session, le plafond ne sert que de garde-fou
+    private int artCacheBudgetMb = 16;
+    private int artDiskCacheMb = 64;
+    // Règles de lecteurs supplémentaires (Windows), prioritaires sur les règles intégrées
+    private List<PlayerRule> customPlayerRules = new ArrayList<>();
+    // Dossiers de musique où chercher cover.jpg/folder.png avant tout appel réseau (pris en compte au démarrage)
+    private List<String> artLibraryRoots = new ArrayList<>();
+    // Ligne de paroles synchronisées (.lrc à côté du morceau ou dans lyricsFolder)
+    private boolean showLyrics = true;
+    private String lyricsFolder = "";
+    // Cadence des animations du HUD (0 = chaque image); la vitesse ne dépend pas de la cadence
+    private int animationFps = 0;
     
     public enum Position {
         TOP_LEFT, TOP_RIGHT, BOTTOM_LEFT, BOTTOM_RIGHT
@@ -39,6 +59,13 @@ public class ModConfig {
     public boolean isShowAlbumArt() { return showAlbumArt; }
     public Theme getTheme() { return theme; }
     public int getPollingIntervalMs() { return pollingIntervalMs; }
+    public long getArtCacheBudgetBytes() { return artCacheBudgetMb * 1024L * 1024L; }
+    public long getArtDiskCacheBytes() { return artDiskCacheMb * 1024L * 1024L; }
+    public List<PlayerRule> getCustomPlayerRules() { return customPlayerRules; }
+    public List<String> getArtLibraryRoots() { return artLibraryRoots; }
+    public boolean isShowLyrics() { return showLyrics; }
+    public String getLyricsFolder() { return lyricsFolder; }
+    public int getAnimationFps() { return animationFps; }
     
     // Setters
     public void setEnabled(boolean enabled) { this.enabled = enabled; }
@@ -47,7 +74,12 @@ public class ModConfig {
     public void setOpacity(float opacity) { this.opacity = Math.max(0.1f, Math.min(1.0f, opacity)); }
     public void setRotationSpeed(float speed) { this.rotationSpeed = Math.max(0f, Math.min(5f, speed)); }
     public void setShowAlbumArt(boolean show) { this.showAlbumArt = show; }
+    public void setShowLyrics(boolean show) { this.showLyrics = show; }
     public void setTheme(Theme theme) { this.theme = theme; }
+    public void setPollingIntervalMs(int intervalMs) { this.pollingIntervalMs = Math.max(MIN_POLLING_INTERVAL_MS, Math.min(MAX_POLLING_INTERVAL_MS, intervalMs)); }
+    public void setArtCacheBudgetMb(int budgetMb) { this.artCacheBudgetMb = Math.max(1, Math.min(512, budgetMb)); }
+    public void setArtDiskCacheMb(int cacheMb) { this.artDiskCacheMb = Math.max(1, Math.min(4096, cacheMb)); }
+    public void setAnimationFps(int fps) { this.animationFps = Math.max(0, Math.min(240, fps)); }
     
     public void cycleTheme() {
         this.theme = this.theme.next();
@@ -68,8 +100,12 @@ public class ModConfig {
         this.opacity = 0.9f;
         this.rotationSpeed = 1.0f;
         this.showAlbumArt = true;
+        this.showLyrics = true;
         this.theme = Theme.CHERRY_BLOSSOM;
         this.pollingIntervalMs = 1000;
+        this.artCacheBudgetMb = 16;
+        this.artDiskCacheMb = 64;
+        this.animationFps = 0;
         save();
     }
     
@@ -81,6 +117,13 @@ public class ModConfig {
                     // Validation des valeurs
                     if (config.theme == null) config.theme = Theme.CHERRY_BLOSSOM;
                     if (config.position == null) config.position = Position.BOTTOM_RIGHT;
+                    config.setPollingIntervalMs(config.pollingIntervalMs);
+                    config.setArtCacheBudgetMb(config.artCacheBudgetMb);
+                    config.setArtDiskCacheMb(config.artDiskCacheMb);
+                    config.setAnimationFps(config.animationFps);
+                    if (config.customPlayerRules == null) config.customPlayerRules = new ArrayList<>();
+                    if (config.artLibraryRoots == null) config.artLibraryRoots = new ArrayList<>();
+                    if (config.lyricsFolder == null) config.lyricsFolder = "";
                     NowPlayingIRLMod.LOGGER.info("Config loaded successfully");
                     return config;
                 }
@@ -1,69 +1,119 @@
 package com.nowplayingirl.client.hud;
 
+import java.util.function.LongSupplier;
+
+/**
+ * Animations du HUD pilotées par une horloge monotone en nanosecondes:
+ * la vitesse des animations ne dépend ni du nombre d'images par seconde,
+ * ni de la cadence à laquelle elles sont mises à jour.
+ */
 public class HudAnimator {
     
-    // Animation d'apparition/disparition
+    // Le temps écoulé est découpé en pas de cette taille au plus (fin du rebond au bon moment)
+    private static final float MAX_STEP_SECONDS = 0.1f;
+    // Au-delà (HUD masqué, jeu en pause...), le retard n'est pas rattrapé
+    private static final float MAX_CATCH_UP_SECONDS = 1f;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    
+    private final LongSupplier clock;
+    private long lastUpdateNanos = -1;
+    
+    // Animation d'apparition/disparition (lissage exponentiel)
     private float visibility = 0f;
     private float targetVisibility = 0f;
-    private static final float FADE_SPEED = 0.08f;
+    private static final float FADE_TIME_CONSTANT = 0.08f;
     
-    // Rotation de la pochette
+    // Rotation de la pochette, en degrés par seconde (x vitesse de la config)
     private float albumRotation = 0f;
     private float rotationSpeed = 1f;
+    private static final float ROTATION_DEGREES_PER_SECOND = 30f;
     
     // Animation de la note qui dort
     private float sleepingNotePhase = 0f;
     private float sleepingNoteY = 0f;
+    private static final float SLEEPING_NOTE_RATE = 3f;
     
-    // Animation de slide
+    // Animation de slide (lissage exponentiel)
     private float slideOffset = 50f;
     private float targetSlideOffset = 0f;
-    private static final float SLIDE_SPEED = 0.15f;
+    private static final float SLIDE_TIME_CONSTANT = 0.1f;
     
     // Animation de pulsation (quand musique joue)
     private float pulsePhase = 0f;
+    private static final float PULSE_RATE = 6f;
     
     // Nouveau média détecté - animation de bounce
     private float bouncePhase = 0f;
     private boolean isBouncing = false;
+    private static final float BOUNCE_RATE = 9f;
+    
+    public HudAnimator() {
+        this(System::nanoTime);
+    }
+    
+    HudAnimator(LongSupplier clock) {
+        this.clock = clock;
+    }
+    
+    /**
+     * @param updatesPerSecond cadence maximale des mises à jour, 0 pour chaque image;
+     *                         entre deux mises à jour les valeurs restent figées
+     */
+    public void update(boolean hasMedia, float configRotationSpeed, int updatesPerSecond) {
+        long now = clock.getAsLong();
+        if (lastUpdateNanos < 0) {
+            lastUpdateNanos = now;
+            step(0f, hasMedia, configRotationSpeed);
+            return;
+        }
+        long elapsed = now - lastUpdateNanos;
+        if (updatesPerSecond > 0 && elapsed < NANOS_PER_SECOND / updatesPerSecond) return;
+        lastUpdateNanos = now;
+        
+        float remaining = Math.min(elapsed / (float) NANOS_PER_SECOND, MAX_CATCH_UP_SECONDS);
+        do {
+            float dt = Math.min(remaining, MAX_STEP_SECONDS);
+            step(dt, hasMedia, configRotationSpeed);
+            remaining -= dt;
+        } while (remaining > 0f);
+    }
     
-    public void update(float deltaTime, boolean hasMedia, float configRotationSpeed) {
+    /**
+     * Avance toutes les animations de dt secondes.
+     */
+    void step(float dt, boolean hasMedia, float configRotationSpeed) {
         this.rotationSpeed = configRotationSpeed;
         
         // Update target visibility
         targetVisibility = hasMedia ? 1f : 0.7f; // Légèrement visible même sans média
         
         // Smooth visibility transition
-        if (visibility < targetVisibility) {
-            visibility = Math.min(visibility + FADE_SPEED, targetVisibility);
-        } else if (visibility > targetVisibility) {
-            visibility = Math.max(visibility - FADE_SPEED, targetVisibility);
-        }
+        visibility = approach(visibility, targetVisibility, FADE_TIME_CONSTANT, dt);
+        if (Math.abs(visibility - targetVisibility) < 0.005f) visibility = targetVisibility;
         
         // Slide animation
         if (slideOffset > targetSlideOffset) {
-            slideOffset = Math.max(slideOffset - (slideOffset * SLIDE_SPEED), targetSlideOffset);
+            slideOffset = approach(slideOffset, targetSlideOffset, SLIDE_TIME_CONSTANT, dt);
             if (slideOffset < 0.5f) slideOffset = 0f;
         }
         
         // Album rotation (continuous)
         if (hasMedia) {
-            albumRotation += rotationSpeed * 0.5f;
-            if (albumRotation >= 360f) albumRotation -= 360f;
+            albumRotation = (albumRotation + rotationSpeed * ROTATION_DEGREES_PER_SECOND * dt) % 360f;
         }
         
         // Sleeping note animation
         if (!hasMedia) {
-            sleepingNotePhase += 0.05f;
+            sleepingNotePhase += SLEEPING_NOTE_RATE * dt;
             sleepingNoteY = (float) Math.sin(sleepingNotePhase) * 3f;
         }
         
         // Pulse animation
-        pulsePhase += 0.1f;
+        pulsePhase = wrap(pulsePhase + PULSE_RATE * dt);
         
         // Bounce animation
         if (isBouncing) {
-            bouncePhase += 0.15f;
+            bouncePhase += BOUNCE_RATE * dt;
             if (bouncePhase >= Math.PI) {
                 bouncePhase = 0f;
                 isBouncing = false;
@@ -71,6 +121,20 @@ public class HudAnimator {
         }
     }
     
+    /**
+     * Rapproche value de target: il reste e^(-dt/tau) de l'écart, quel que soit le découpage de dt.
+     */
+    static float approach(float value, float target, float timeConstant, float dt) {
+        if (dt <= 0f) return value;
+        return target + (value - target) * (float) Math.exp(-dt / timeConstant);
+    }
+    
+    // Phase ramenée sur deux périodes du sinus pour garder la précision des float
+    private static float wrap(float phase) {
+        float period = (float) (4 * Math.PI);
+        return phase >= period ? phase - period : phase;
+    }
+    
     public void triggerAppear() {
         slideOffset = 100f;
         targetSlideOffset = 0f;
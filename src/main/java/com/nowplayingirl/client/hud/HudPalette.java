@@ -0,0 +1,121 @@
+package com.nowplayingirl.client.hud;
+
+import com.nowplayingirl.client.media.AlbumPalette;
+
+/**
+ * Theme colors with the opacity already applied.
+ * Recomputed only when the theme, the album colors or the opacity change, so a steady frame
+ * reads plain ints instead of re-deriving every color. A change of colors cross-fades
+ * from the ones currently shown instead of snapping.
+ */
+final class HudPalette {
+
+    private static final int VINYL_DISK = 0xFF1a1a1a;
+    private static final int VINYL_GROOVE = 0xFF2a2a2a;
+    private static final int VINYL_HOLE = 0xFF000000;
+
+    private static final long FADE_NANOS = 500_000_000L;
+    private static final int PRIMARY = 0, SECONDARY = 1, TEXT = 2, ACCENT = 3, BACKGROUND = 4;
+
+    // Raw theme colors (no opacity): faded from, faded to, and shown this frame
+    private final int[] from = new int[5];
+    private final int[] target = new int[5];
+    private final int[] current = new int[5];
+    private boolean initialized;
+    private boolean fading;
+    private long fadeStart;
+    private float opacity = Float.NaN;
+
+    int background;
+    int border;
+    int text;
+    int secondaryText;
+    int accent;
+    int primary;
+    int silenceText;
+    int note;
+    int progressTrack;
+    int vinylDisk;
+    int vinylGroove;
+    int vinylHole;
+    // Without opacity, for colors whose alpha is animated per frame
+    int secondaryColor;
+
+    /**
+     * @param album colors of the current cover, used by the album theme; null falls back to the theme's own
+     */
+    void update(Theme theme, AlbumPalette album, float opacity, long now) {
+        boolean changed = retarget(theme, album, now);
+        if (fading) {
+            float t = Math.min(1f, (now - fadeStart) / (float) FADE_NANOS);
+            for (int i = 0; i < current.length; i++) {
+                current[i] = lerp(from[i], target[i], t);
+            }
+            fading = t < 1f;
+            changed = true;
+        }
+        if (!changed && opacity == this.opacity) return;
+        this.opacity = opacity;
+
+        background = applyOpacity(current[BACKGROUND], opacity);
+        border = applyOpacity(current[PRIMARY], opacity * 0.8f);
+        text = applyOpacity(current[TEXT], opacity);
+        secondaryText = applyOpacity(current[SECONDARY], opacity);
+        accent = applyOpacity(current[ACCENT], opacity);
+        primary = applyOpacity(current[PRIMARY], opacity);
+        silenceText = applyOpacity(current[TEXT], opacity * 0.7f);
+        note = applyOpacity(current[PRIMARY], opacity * 0.5f);
+        progressTrack = applyOpacity(current[SECONDARY], opacity * 0.3f);
+        vinylDisk = applyOpacity(VINYL_DISK, opacity);
+        vinylGroove = applyOpacity(VINYL_GROOVE, opacity);
+        vinylHole = applyOpacity(VINYL_HOLE, opacity);
+        secondaryColor = current[SECONDARY];
+    }
+
+    /**
+     * Starts a fade toward the new colors if they differ from the current target.
+     * The very first colors are shown as they are.
+     */
+    private boolean retarget(Theme theme, AlbumPalette album, long now) {
+        boolean useAlbum = theme == Theme.ALBUM && album != null;
+        int newPrimary = useAlbum ? album.primary() : theme.getPrimaryColor();
+        int newSecondary = useAlbum ? album.secondary() : theme.getSecondaryColor();
+        int newText = useAlbum ? album.text() : theme.getTextColor();
+        int newAccent = useAlbum ? album.accent() : theme.getAccentColor();
+        int newBackground = useAlbum ? album.background() : theme.getBackgroundColor();
+        if (initialized && newPrimary == target[PRIMARY] && newSecondary == target[SECONDARY]
+            && newText == target[TEXT] && newAccent == target[ACCENT] && newBackground == target[BACKGROUND]) {
+            return false;
+        }
+
+        System.arraycopy(current, 0, from, 0, current.length);
+        target[PRIMARY] = newPrimary;
+        target[SECONDARY] = newSecondary;
+        target[TEXT] = newText;
+        target[ACCENT] = newAccent;
+        target[BACKGROUND] = newBackground;
+        if (initialized) {
+            fading = true;
+            fadeStart = now;
+        } else {
+            System.arraycopy(target, 0, current, 0, target.length);
+            initialized = true;
+        }
+        return true;
+    }
+
+    private static int lerp(int a, int b, float t) {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 8) {
+            int ca = (a >>> shift) & 0xFF;
+            int cb = (b >>> shift) & 0xFF;
+            result |= (ca + Math.round((cb - ca) * t)) << shift;
+        }
+        return result;
+    }
+
+    static int applyOpacity(int color, float opacity) {
+        int alpha = (int) (((color >> 24) & 0xFF) * opacity);
+        return (alpha << 24) | (color & 0x00FFFFFF);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,53 @@
+package com.nowplayingirl.client.hud;
+
+/**
+ * Elapsed / remaining label ("1:23 / -2:10"), rebuilt into a reused builder only when
+ * the displayed second changes, so a steady frame reuses the same string.
+ */
+final class HudTimeLabel {
+    
+    private final StringBuilder builder = new StringBuilder(24);
+    private String text;
+    private long elapsedSeconds;
+    private long durationSeconds;
+    
+    /**
+     * @return true if the text changed, so its width must be measured again
+     */
+    boolean update(long positionMs, long durationMs) {
+        long elapsed = positionMs / 1000;
+        long duration = durationMs / 1000;
+        if (text != null && elapsed == elapsedSeconds && duration == durationSeconds) return false;
+        
+        elapsedSeconds = elapsed;
+        durationSeconds = duration;
+        builder.setLength(0);
+        appendTime(builder, elapsed);
+        if (duration > 0) {
+            builder.append(" / -");
+            appendTime(builder, Math.max(0, duration - elapsed));
+        }
+        text = builder.toString();
+        return true;
+    }
+    
+    String text() {
+        return text;
+    }
+    
+    /**
+     * Appends m:ss, or h:mm:ss past an hour.
+     */
+    private static void appendTime(StringBuilder out, long seconds) {
+        long hours = seconds / 3600;
+        long minutes = (seconds / 60) % 60;
+        long secs = seconds % 60;
+        if (hours > 0) {
+            out.append(hours).append(':');
+            if (minutes < 10) out.append('0');
+        }
+        out.append(minutes).append(':');
+        if (secs < 10) out.append('0');
+        out.append(secs);
+    }
+}
\ No newline at end of file
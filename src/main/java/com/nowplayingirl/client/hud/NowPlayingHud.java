@@ -2,7 +2,9 @@ package com.nowplayingirl.client.hud;
 
 
 import com.nowplayingirl.client.NowPlayingClient;
+import com.nowplayingirl.client.NowPlayingState;
 import com.nowplayingirl.client.config.ModConfig;
+import com.nowplayingirl.client.media.Lyrics;
 import com.nowplayingirl.client.media.MediaInfo;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.font.TextRenderer;
@@ -15,26 +17,65 @@ public class NowPlayingHud {
     
     private final NowPlayingClient client;
     private final HudAnimator animator;
+    private final HudPalette palette = new HudPalette();
+    // Reused every frame for the album art rotation
+    private final Matrix3x2f artRotation = new Matrix3x2f();
+    // Render thread only: last snapshot seen and what was derived from it
+    private NowPlayingState lastState = NowPlayingState.EMPTY;
     private MediaInfo currentMedia;
-    private long lastUpdateTime;
+    private Identifier albumArt;
     
     // Dimensions du widget
     private static final int WIDGET_WIDTH = 200;
     private static final int WIDGET_HEIGHT = 60;
     private static final int ALBUM_ART_SIZE = 50;
+    public static final int ALBUM_ART_DRAW_SIZE = ALBUM_ART_SIZE - 2;
     private static final int PADDING = 8;
     
+    private static final String SILENCE_TEXT = "Silence...";
+    private static final String NOTE = "♪";
+    
+    // Progress bar: 1 px line this far above the widget's bottom edge
+    private static final int PROGRESS_BAR_BOTTOM = 5;
+    
+    // Cached elapsed/remaining label, rebuilt when the displayed second changes
+    private final HudTimeLabel timeLabel = new HudTimeLabel();
+    private int timeLabelWidth;
+    
+    // Synced lyrics line, re-trimmed only when the current line or the room for it changes
+    private boolean lyricsLineShown;
+    private Lyrics lyricsLineSource;
+    private int lyricsLineIndex;
+    private int lyricsLineWidth;
+    private String lyricsLine = "";
+    
+    // Source name, trimmed to the room left of the time label (whose width changes with the position)
+    private String sourceLineSource;
+    private int sourceLineWidth;
+    private String sourceLine = "";
+    
+    // Layout of the silence content, shared with its animations
+    private int silenceTextY;
+    private int silenceNoteX;
+    
     public NowPlayingHud(NowPlayingClient client) {
         this.client = client;
         this.animator = new HudAnimator();
-        this.lastUpdateTime = System.currentTimeMillis();
     }
     
-    public void onMediaChanged(MediaInfo newMedia) {
+    private void applyState(NowPlayingState state) {
+        MediaInfo newMedia = state.media();
         if (newMedia != null && !newMedia.equals(currentMedia)) {
             animator.triggerAppear();
         }
         currentMedia = newMedia;
+        albumArt = state.albumArt();
+        lastState = state;
+    }
+    
+    private void updateLyricsLine(boolean enabled) {
+        // Without a position there is nothing to sync the lyrics to
+        lyricsLineShown = enabled && lastState.lyrics() != null && lastState.hasPosition();
     }
     
     public void render(DrawContext context, float tickDelta) {
@@ -44,11 +85,15 @@ public class NowPlayingHud {
         ModConfig config = client.getConfig();
         if (!config.isEnabled()) return;
         
-        // Update animations
-        long currentTime = System.currentTimeMillis();
-        float deltaTime = (currentTime - lastUpdateTime) / 16.67f;
-        lastUpdateTime = currentTime;
-        animator.update(deltaTime, currentMedia != null, config.getRotationSpeed());
+        // One consistent snapshot per frame; nothing to derive if the version is unchanged
+        NowPlayingState state = client.getState();
+        if (state.version() != lastState.version()) {
+            applyState(state);
+        }
+        updateLyricsLine(config.isShowLyrics());
+        
+        // Update animations (time-based, independent of the frame rate and of the update rate)
+        animator.update(currentMedia != null, config.getRotationSpeed(), config.getAnimationFps());
         
         // Skip rendering if fully hidden
         if (animator.isFullyHidden()) return;
@@ -58,6 +103,11 @@ public class NowPlayingHud {
         int screenHeight = mc.getWindow().getScaledHeight();
         
         float scale = config.getScale();
+        // Album art is decoded at its real on-screen size in pixels
+        int artPixels = (int) Math.ceil(ALBUM_ART_DRAW_SIZE * scale * mc.getWindow().getScaleFactor());
+        if (client.getAlbumArtFetcher().setTextureSize(artPixels)) {
+            client.onAlbumArtSizeIncreased();
+        }
         int scaledWidth = (int) (WIDGET_WIDTH * scale);
         int scaledHeight = (int) (WIDGET_HEIGHT * scale);
         
@@ -93,25 +143,28 @@ public class NowPlayingHud {
         context.getMatrices().translate(x, y);
         context.getMatrices().scale(scale, scale);
         
-        // Get theme colors
+        // Get theme colors (the album theme follows the cover, fading between covers)
         Theme theme = config.getTheme();
+        palette.update(theme, lastState.palette(), opacity, System.nanoTime());
         
         // Draw background
-        drawBackground(context, 0, 0, WIDGET_WIDTH, WIDGET_HEIGHT, theme, opacity);
+        drawBackground(context, 0, 0, WIDGET_WIDTH, WIDGET_HEIGHT);
         
         // Draw content
         if (currentMedia != null && currentMedia.hasValidInfo()) {
-            drawPlayingContent(context, mc, theme, opacity, config);
+            drawPlayingContent(context, mc.textRenderer, config);
+            drawPlayingAnimations(context, mc.textRenderer, config);
         } else {
-            drawSilenceContent(context, mc, theme, opacity);
+            drawSilenceContent(context, mc.textRenderer);
+            drawSilenceAnimations(context, mc.textRenderer, opacity);
         }
         
         context.getMatrices().popMatrix();
     }
     
-    private void drawBackground(DrawContext context, int x, int y, int width, int height, Theme theme, float opacity) {
-        int bgColor = applyOpacity(theme.getBackgroundColor(), opacity);
-        int borderColor = applyOpacity(theme.getPrimaryColor(), opacity * 0.8f);
+    private void drawBackground(DrawContext context, int x, int y, int width, int height) {
+        int bgColor = palette.background;
+        int borderColor = palette.border;
         
         // Main background
         context.fill(x + 2, y, x + width - 2, y + height, bgColor);
@@ -125,18 +178,15 @@ public class NowPlayingHud {
         context.fill(x + width - 1, y + 2, x + width, y + height - 2, borderColor);
     }
     
-    private void drawPlayingContent(DrawContext context, MinecraftClient mc, Theme theme, float opacity, ModConfig config) {
-        TextRenderer textRenderer = mc.textRenderer;
-        int textColor = applyOpacity(theme.getTextColor(), opacity);
-        int secondaryTextColor = applyOpacity(theme.getSecondaryColor(), opacity);
-        int accentColor = applyOpacity(theme.getAccentColor(), opacity);
+    private void drawPlayingContent(DrawContext context, TextRenderer textRenderer, ModConfig config) {
+        int textColor = palette.text;
+        int secondaryTextColor = palette.secondaryText;
         
         int contentX = PADDING;
         int contentY = PADDING;
         
-        // Draw album art if enabled
+        // Leave room for the album art, drawn with the animations
         if (config.isShowAlbumArt()) {
-            drawAlbumArt(context, contentX, contentY + 1, ALBUM_ART_SIZE - 2, opacity);
             contentX += ALBUM_ART_SIZE + PADDING;
         }
         
@@ -151,11 +201,26 @@ public class NowPlayingHud {
         if (artist != null) {
             context.drawText(textRenderer, artist, contentX, contentY + 18, secondaryTextColor, false);
         }
+        // The bottom line (source or lyrics) shares its row with the time label: drawn with the animations
+    }
+    
+    private void drawPlayingAnimations(DrawContext context, TextRenderer textRenderer, ModConfig config) {
+        int contentX = PADDING;
         
-        // Source indicator
-        String source = currentMedia.getSource();
-        if (source != null) {
-            context.drawText(textRenderer, source, contentX, contentY + 34, accentColor, false);
+        // Draw album art if enabled
+        if (config.isShowAlbumArt()) {
+            drawAlbumArt(context, PADDING, PADDING + 1, ALBUM_ART_DRAW_SIZE);
+            contentX += ALBUM_ART_SIZE + PADDING;
+        }
+        
+        // Interpolated from the last sample every frame; the detector is not polled any faster
+        long position = lastState.positionAt(System.nanoTime());
+        int textRight = drawProgress(context, textRenderer, contentX, position);
+        // Source indicator (the synced lyrics line takes its place)
+        if (lyricsLineShown) {
+            drawLyricsLine(context, textRenderer, contentX, textRight, position);
+        } else {
+            drawSourceLine(context, textRenderer, contentX, textRight);
         }
         
         // Playing indicator (pulsating dot)
@@ -163,12 +228,73 @@ public class NowPlayingHud {
         int dotX = WIDGET_WIDTH - PADDING - 6;
         int dotY = WIDGET_HEIGHT - PADDING - 6;
         int dotSize = (int) (4 * pulse);
-        int dotColor = applyOpacity(theme.getPrimaryColor(), opacity);
+        int dotColor = palette.primary;
         context.fill(dotX - dotSize/2, dotY - dotSize/2, dotX + dotSize/2, dotY + dotSize/2, dotColor);
     }
     
-    private void drawAlbumArt(DrawContext context, int x, int y, int size, float opacity) {
-        Identifier texture = currentMedia != null ? currentMedia.getAlbumArtTexture() : null;
+    /**
+     * @return the free space left of the time label, where the lyrics line may go
+     */
+    private int drawProgress(DrawContext context, TextRenderer textRenderer, int contentX, long position) {
+        int labelRight = WIDGET_WIDTH - PADDING - 12;
+        if (position < 0) return labelRight;
+        long duration = currentMedia.getDurationMs();
+        
+        // Elapsed / remaining, right-aligned before the playing dot
+        if (timeLabel.update(position, duration)) {
+            timeLabelWidth = textRenderer.getWidth(timeLabel.text());
+        }
+        int labelLeft = labelRight - timeLabelWidth;
+        context.drawText(textRenderer, timeLabel.text(), labelLeft, PADDING + 34, palette.secondaryText, false);
+        
+        if (duration > 0) {
+            drawProgressBar(context, contentX, position, duration);
+        }
+        return labelLeft - 6;
+    }
+    
+    private void drawProgressBar(DrawContext context, int contentX, long position, long duration) {        
+        // Progress bar along the bottom edge
+        int barRight = WIDGET_WIDTH - PADDING;
+        int barY = WIDGET_HEIGHT - PROGRESS_BAR_BOTTOM;
+        int filled = contentX + (int) ((barRight - contentX) * position / duration);
+        context.fill(contentX, barY, barRight, barY + 1, palette.progressTrack);
+        context.fill(contentX, barY, filled, barY + 1, palette.primary);
+    }
+    
+    private void drawLyricsLine(DrawContext context, TextRenderer textRenderer, int contentX, int textRight, long position) {
+        Lyrics lyrics = lastState.lyrics();
+        // Binary search over the parsed timestamps; the line is only re-trimmed when it changes
+        int index = position < 0 ? -1 : lyrics.indexAt(position);
+        int maxWidth = textRight - contentX;
+        if (lyrics != lyricsLineSource || index != lyricsLineIndex || maxWidth != lyricsLineWidth) {
+            lyricsLineSource = lyrics;
+            lyricsLineIndex = index;
+            lyricsLineWidth = maxWidth;
+            lyricsLine = index < 0 || maxWidth <= 0 ? "" : textRenderer.trimToWidth(lyrics.lineAt(index), maxWidth);
+        }
+        if (!lyricsLine.isEmpty()) {
+            context.drawText(textRenderer, lyricsLine, contentX, PADDING + 34, palette.text, false);
+        }
+    }
+    
+    private void drawSourceLine(DrawContext context, TextRenderer textRenderer, int contentX, int textRight) {
+        String source = currentMedia.getSource();
+        if (source == null) return;
+        // Re-trimmed only when the source or the room for it changes
+        int maxWidth = textRight - contentX;
+        if (!source.equals(sourceLineSource) || maxWidth != sourceLineWidth) {
+            sourceLineSource = source;
+            sourceLineWidth = maxWidth;
+            sourceLine = maxWidth <= 0 ? "" : textRenderer.trimToWidth(source, maxWidth);
+        }
+        if (!sourceLine.isEmpty()) {
+            context.drawText(textRenderer, sourceLine, contentX, PADDING + 34, palette.accent, false);
+        }
+    }
+    
+    private void drawAlbumArt(DrawContext context, int x, int y, int size) {
+        Identifier texture = albumArt;
         
         context.getMatrices().pushMatrix();
         
@@ -178,9 +304,8 @@ public class NowPlayingHud {
         
         context.getMatrices().translate(centerX, centerY);
         float angleRad = (float) Math.toRadians(animator.getAlbumRotation());
-        Matrix3x2f rotation = new Matrix3x2f().rotate(angleRad);
         context.getMatrices().mul(
-                rotation
+                artRotation.rotation(angleRad)
         );
         context.getMatrices().translate(-size / 2f, -size / 2f);
         
@@ -201,18 +326,17 @@ public class NowPlayingHud {
             //RenderSystem.disableBlend();
         } else {
             // Draw placeholder (vinyl record style)
-            drawVinylPlaceholder(context, 0, 0, size, opacity);
+            drawVinylPlaceholder(context, 0, 0, size);
         }
         
         context.getMatrices().popMatrix();
     }
 
-    private void drawVinylPlaceholder(DrawContext context, int x, int y, int size, float opacity) {
-        Theme theme = client.getConfig().getTheme();
-        int diskColor = applyOpacity(0xFF1a1a1a, opacity);
-        int grooveColor = applyOpacity(0xFF2a2a2a, opacity);
-        int labelColor = applyOpacity(theme.getPrimaryColor(), opacity);
-        int centerColor = applyOpacity(0xFF000000, opacity);
+    private void drawVinylPlaceholder(DrawContext context, int x, int y, int size) {
+        int diskColor = palette.vinylDisk;
+        int grooveColor = palette.vinylGroove;
+        int labelColor = palette.primary;
+        int centerColor = palette.vinylHole;
         
         int cx = x + size / 2;
         int cy = y + size / 2;
@@ -241,42 +365,40 @@ public class NowPlayingHud {
         context.fill(cx - holeSize/2, cy - holeSize/2, cx + holeSize/2, cy + holeSize/2, centerColor);
     }
     
-    private void drawSilenceContent(DrawContext context, MinecraftClient mc, Theme theme, float opacity) {
-        TextRenderer textRenderer = mc.textRenderer;
-        int textColor = applyOpacity(theme.getTextColor(), opacity * 0.7f);
-        int noteColor = applyOpacity(theme.getPrimaryColor(), opacity * 0.5f);
+    private void drawSilenceContent(DrawContext context, TextRenderer textRenderer) {
+        int textColor = palette.silenceText;
         
         // "Silence..." text
-        String silenceText = "Silence...";
+        String silenceText = SILENCE_TEXT;
         int textWidth = textRenderer.getWidth(silenceText);
         int textX = (WIDGET_WIDTH - textWidth) / 2;
-        int textY = WIDGET_HEIGHT / 2 - 4;
+        silenceTextY = WIDGET_HEIGHT / 2 - 4;
+        silenceNoteX = textX + textWidth + 8;
         
-        context.drawText(textRenderer, silenceText, textX, textY, textColor, false);
+        context.drawText(textRenderer, silenceText, textX, silenceTextY, textColor, false);
+    }
+    
+    private void drawSilenceAnimations(DrawContext context, TextRenderer textRenderer, float opacity) {
+        int noteColor = palette.note;
+        int textY = silenceTextY;
+        int noteX = silenceNoteX;
         
         // Sleeping note animation
         float noteY = animator.getSleepingNoteY();
         float phase = animator.getSleepingNotePhase();
         
-        String note = "♪";
-        int noteX = textX + textWidth + 8;
-        context.drawText(textRenderer, note, noteX, (int)(textY + noteY), noteColor, false);
+        context.drawText(textRenderer, NOTE, noteX, (int)(textY + noteY), noteColor, false);
         
         // Z's floating up
         float zAlpha = (float) Math.abs(Math.sin(phase * 0.5f));
-        int zColor = applyOpacity(theme.getSecondaryColor(), opacity * zAlpha * 0.5f);
+        // Alpha varies continuously here, so this one stays a per-frame computation (no allocation)
+        int zColor = HudPalette.applyOpacity(palette.secondaryColor, opacity * zAlpha * 0.5f);
         
         for (int i = 0; i < 3; i++) {
             float zOffset = (phase + i * 0.5f) % 3f;
             int zX = noteX + 12 + i * 6;
             int zY = (int)(textY - 5 - zOffset * 4);
-            String z = i == 2 ? "Z" : "z";
-            context.drawText(textRenderer, z, zX, zY, zColor, false);
+            context.drawText(textRenderer, i == 2 ? "Z" : "z", zX, zY, zColor, false);
         }
     }
-    
-    private int applyOpacity(int color, float opacity) {
-        int alpha = (int) (((color >> 24) & 0xFF) * opacity);
-        return (alpha << 24) | (color & 0x00FFFFFF);
-    }
 }
\ No newline at end of file
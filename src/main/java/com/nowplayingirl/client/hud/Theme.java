@@ -40,6 +40,15 @@ public enum Theme {
         0xFFFFFFFF, // Blanc
         0xFFC0392B, // Rouge foncé
         0xCC1A140A  // Fond
+    ),
+    // Couleurs tirées de la pochette; celles-ci ne servent que sans pochette
+    ALBUM(
+        "Album",
+        0xFF95A5A6, // Gris bleuté
+        0xFFBDC3C7, // Gris clair
+        0xFFFFFFFF, // Blanc
+        0xFF5D6D7E, // Gris ardoise
+        0xCC101214  // Fond
     );
     
     private final String displayName;
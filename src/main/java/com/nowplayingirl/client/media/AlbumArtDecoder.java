@@ -0,0 +1,130 @@
+package com.nowplayingirl.client.media;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+
+/**
+ * Décode une pochette (JPEG, PNG...) directement à la taille affichée par le HUD.
+ * Le décodeur sous-échantillonne pendant la lecture, puis un seul redimensionnement
+ * produit les pixels ARGB finaux: pas de ré-encodage PNG intermédiaire.
+ */
+final class AlbumArtDecoder {
+    
+    record DecodedArt(int width, int height, int[] argb) {}
+    
+    // Au-delà, c'est une image piégée ou une erreur du serveur
+    private static final int MAX_SOURCE_DIMENSION = 10_000;
+    
+    private AlbumArtDecoder() {}
+    
+    static DecodedArt decode(byte[] data, int targetSize) throws IOException {
+        return decode(data, data.length, targetSize);
+    }
+    
+    /**
+     * Décode les length premiers octets de data (tampon réutilisé).
+     */
+    static DecodedArt decode(byte[] data, int length, int targetSize) throws IOException {
+        return decode(new ByteArrayInputStream(data, 0, length), targetSize);
+    }
+    
+    /**
+     * Décode depuis un buffer (fichier mappé en mémoire), sans copie préalable dans un tableau.
+     */
+    static DecodedArt decode(ByteBuffer data, int targetSize) throws IOException {
+        return decode(new ByteBufferInputStream(data.duplicate()), targetSize);
+    }
+    
+    private static DecodedArt decode(InputStream data, int targetSize) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(data)) {
+            if (input == null) throw new IOException("No image input stream");
+            
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) throw new IOException("Unsupported image format");
+            
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                // Dimensions lues dans l'en-tête, avant d'allouer quoi que ce soit
+                if (width <= 0 || height <= 0 || width > MAX_SOURCE_DIMENSION || height > MAX_SOURCE_DIMENSION) {
+                    throw new IOException("Unsupported image size " + width + "x" + height);
+                }
+                
+                // Sous-échantillonner au décodage en gardant au moins 2x la cible pour le lissage
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, Math.min(width, height) / (targetSize * 2));
+                if (subsampling > 1) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+                
+                BufferedImage source = reader.read(0, param);
+                return scale(source, targetSize);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+    
+    private static DecodedArt scale(BufferedImage source, int targetSize) {
+        BufferedImage target = new BufferedImage(targetSize, targetSize, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(source, 0, 0, targetSize, targetSize, null);
+        } finally {
+            g.dispose();
+        }
+        // TYPE_INT_ARGB: le buffer interne est déjà au bon format, pas de copie via getRGB
+        int[] argb = ((DataBufferInt) target.getRaster().getDataBuffer()).getData();
+        return new DecodedArt(targetSize, targetSize, argb);
+    }
+    
+    private static final class ByteBufferInputStream extends InputStream {
+        
+        private final ByteBuffer buffer;
+        
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+        
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+        
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) return 0;
+            if (!buffer.hasRemaining()) return -1;
+            int n = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, n);
+            return n;
+        }
+        
+        @Override
+        public long skip(long n) {
+            int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+        
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
\ No newline at end of file
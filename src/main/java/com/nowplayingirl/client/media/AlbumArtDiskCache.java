@@ -0,0 +1,572 @@
+package com.nowplayingirl.client.media;
+
+import com.nowplayingirl.NowPlayingIRLMod;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Cache disque des pochettes: URL résolue + pixels déjà décodés, un fichier par morceau.
+ * L'index est une table de hachage à adressage ouvert dans un fichier mappé en mémoire:
+ * une recherche au démarrage coûte un hash et quelques lectures, sans parcourir le dossier.
+ * Toute entrée illisible (fichier tronqué, CRC faux...) est simplement supprimée.
+ * <p>
+ * Un seul client écrit dans le cache: il tient un verrou sur "cache.lock". Un second client
+ * lancé depuis le même dossier de jeu l'ouvre en lecture seule (ou s'en passe si l'index
+ * n'est pas encore valide) au lieu d'écrire dans les mêmes cases.
+ */
+public class AlbumArtDiskCache {
+
+    private static final int INDEX_MAGIC = 0x4E50494E; // "NPIN"
+    private static final int ENTRY_MAGIC = 0x4E504152; // "NPAR"
+    // v2: pixels stockés à la taille d'affichage du HUD
+    private static final int VERSION = 2;
+
+    // Nombre de cases dérivé de la taille max: la limite en octets est atteinte avant la limite
+    // en nombre, même avec les plus petites pochettes (48x48 RGBA, ~9 Ko), jusqu'à ~900 Mo
+    private static final int SMALLEST_ENTRY_BYTES = 48 * 48 * 4;
+    private static final int MIN_SLOT_COUNT = 256;
+    private static final int MAX_SLOT_COUNT = 1 << 17;
+    private static final int HEADER_SIZE = 16;
+    // keyHash (long), lastAccess (long), bytes (int), state (int), réservé (long)
+    private static final int SLOT_SIZE = 32;
+    private static final int STATE_EMPTY = 0;
+    private static final int STATE_USED = 1;
+    private static final int STATE_DELETED = 2;
+
+    // Limite de sécurité sur la taille d'une pochette décodée
+    private static final int MAX_DIMENSION = 2048;
+
+    public record Entry(String artUrl, int width, int height, int[] argb) {}
+
+    // Pas de synchronized: les threads virtuels du fetcher y resteraient épinglés pendant les I/O
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Path directory;
+    private final MappedByteBuffer index;
+    private final int slotCount;
+    // Remplissage max de la table: au-delà les sondages s'allongent
+    private final int maxEntries;
+    // Au-delà, les marqueurs de suppression allongent trop les sondages: l'index est reconstruit
+    private final int maxTombstones;
+    private final long maxBytes;
+    // Verrou inter-processus, null en lecture seule
+    private final FileChannel lockChannel;
+    private final FileLock fileLock;
+    private boolean writable;
+    private long usedBytes;
+    private int entryCount;
+    private int tombstones;
+
+    private AlbumArtDiskCache(Path directory, MappedByteBuffer index, int slotCount, long maxBytes,
+                              FileChannel lockChannel, FileLock fileLock) {
+        this.directory = directory;
+        this.index = index;
+        this.slotCount = slotCount;
+        this.maxEntries = slotCount * 3 / 4;
+        this.maxTombstones = slotCount / 8;
+        this.maxBytes = maxBytes;
+        this.lockChannel = lockChannel;
+        this.fileLock = fileLock;
+        this.writable = fileLock != null;
+        for (int slot = 0; slot < slotCount; slot++) {
+            int state = state(slot);
+            if (state == STATE_USED) {
+                usedBytes += index.getInt(slotOffset(slot) + 16);
+                entryCount++;
+            } else if (state == STATE_DELETED) {
+                tombstones++;
+            }
+        }
+        if (writable) {
+            // Taille max réduite depuis la dernière fois
+            while (usedBytes > maxBytes && evictOldest()) {}
+            if (tombstones > maxTombstones) {
+                rebuildIndex();
+            }
+        }
+    }
+    
+    /**
+     * @return le nombre de cases de l'index pour cette taille max (puissance de deux)
+     */
+    static int slotCountFor(long maxBytes) {
+        long entries = Math.max(1, maxBytes / SMALLEST_ENTRY_BYTES);
+        long slots = Long.highestOneBit(Math.max(1, entries * 4 / 3 - 1)) << 1;
+        return (int) Math.max(MIN_SLOT_COUNT, Math.min(MAX_SLOT_COUNT, slots));
+    }
+
+    /**
+     * @return le cache, ou null s'il ne peut pas être ouvert (disque en lecture seule,
+     *         ou cache tenu par un autre client avant que son index soit valide)
+     */
+    public static AlbumArtDiskCache open(Path directory, long maxBytes) {
+        FileChannel lockChannel = null;
+        try {
+            Files.createDirectories(directory);
+            Path indexPath = directory.resolve("index.bin");
+            int slotCount = slotCountFor(maxBytes);
+            long indexSize = indexSize(slotCount);
+
+            lockChannel = FileChannel.open(directory.resolve("cache.lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock fileLock = tryLock(lockChannel);
+            if (fileLock == null) {
+                lockChannel.close();
+                return openReadOnly(directory, indexPath, maxBytes);
+            }
+
+            MappedByteBuffer index;
+            try (FileChannel channel = FileChannel.open(indexPath,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                ByteBuffer resized = null;
+                if (channel.size() != indexSize) {
+                    // Taille max changée dans la config: les entrées sont gardées dans une table à la nouvelle taille
+                    resized = readIndex(channel);
+                    channel.truncate(0);
+                }
+                index = channel.map(FileChannel.MapMode.READ_WRITE, 0, indexSize);
+                if (resized != null) {
+                    resetIndex(index, slotCount);
+                    moveEntries(directory, resized, index, slotCount);
+                } else if (!hasValidHeader(index, slotCount)) {
+                    // Index absent ou d'un autre format: on repart de zéro
+                    NowPlayingIRLMod.LOGGER.info("Resetting album art disk cache index");
+                    resetIndex(index, slotCount);
+                    deleteEntryFiles(directory);
+                }
+            }
+            return new AlbumArtDiskCache(directory, index, slotCount, maxBytes, lockChannel, fileLock);
+        } catch (Exception e) {
+            NowPlayingIRLMod.LOGGER.warn("Album art disk cache disabled: {}", e.getMessage());
+            if (lockChannel != null) {
+                try {
+                    lockChannel.close();
+                } catch (IOException ignored) {}
+            }
+            return null;
+        }
+    }
+
+    private static FileLock tryLock(FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // Déjà verrouillé par cette JVM
+            return null;
+        }
+    }
+
+    /**
+     * Un autre client écrit dans le cache: on lit ses entrées sans jamais rien modifier.
+     */
+    private static AlbumArtDiskCache openReadOnly(Path directory, Path indexPath, long maxBytes) throws IOException {
+        if (!Files.exists(indexPath)) return null;
+        try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) return null;
+            MappedByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            // La table est à la taille choisie par le client qui écrit
+            int slotCount = index.getInt(8);
+            if (!hasValidHeader(index, slotCount) || channel.size() != indexSize(slotCount)) return null;
+            NowPlayingIRLMod.LOGGER.info("Album art disk cache is used by another instance, opening it read-only");
+            return new AlbumArtDiskCache(directory, index, slotCount, maxBytes, null, null);
+        }
+    }
+
+    /**
+     * @return l'index valide d'une autre taille, copié en mémoire, ou null s'il est illisible
+     */
+    private static ByteBuffer readIndex(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < HEADER_SIZE || size > indexSize(MAX_SLOT_COUNT)) return null;
+        ByteBuffer old = ByteBuffer.allocate((int) size);
+        while (old.hasRemaining() && channel.read(old, old.position()) > 0) {}
+        int slotCount = old.getInt(8);
+        if (!hasValidHeader(old, slotCount) || size != indexSize(slotCount)) return null;
+        return old;
+    }
+
+    /**
+     * Replace les entrées d'un index d'une autre taille dans la nouvelle table, les plus récentes
+     * d'abord; celles qui ne rentrent plus sont supprimées du disque.
+     */
+    private static void moveEntries(Path directory, ByteBuffer old, ByteBuffer index, int slotCount) {
+        int oldSlotCount = old.getInt(8);
+        List<Integer> used = new ArrayList<>();
+        for (int slot = 0; slot < oldSlotCount; slot++) {
+            if (old.getInt(slotOffset(slot) + 20) == STATE_USED) used.add(slotOffset(slot));
+        }
+        used.sort(Comparator.comparingLong((Integer offset) -> old.getLong(offset + 8)).reversed());
+
+        int kept = 0;
+        for (int offset : used) {
+            long hash = old.getLong(offset);
+            if (kept < slotCount * 3 / 4) {
+                place(index, HEADER_SIZE, slotCount, hash, old.getLong(offset + 8), old.getInt(offset + 16));
+                kept++;
+            } else {
+                try {
+                    Files.deleteIfExists(entryPath(directory, hash));
+                } catch (IOException ignored) {}
+            }
+        }
+        NowPlayingIRLMod.LOGGER.info("Resized album art disk cache index from {} to {} slots, kept {} entries",
+            oldSlotCount, slotCount, kept);
+    }
+
+    /**
+     * Libère le verrou: le cache n'est plus modifié ensuite.
+     */
+    public void close() {
+        lock.lock();
+        try {
+            writable = false;
+            if (lockChannel != null && lockChannel.isOpen()) {
+                // Fermer le canal libère aussi le verrou
+                lockChannel.close();
+            }
+        } catch (IOException e) {
+            NowPlayingIRLMod.LOGGER.debug("Failed to release album art cache lock: {}", e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isReadOnly() {
+        lock.lock();
+        try {
+            return !writable;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Entry get(String key) {
+        lock.lock();
+        try {
+            long hash = hash(key);
+            int slot = findSlot(hash);
+            if (slot < 0) return null;
+
+            Path file = entryPath(hash);
+            Entry entry = readEntry(file, key);
+            if (!writable) return entry;
+            if (entry == null) {
+                // Entrée corrompue ou disparue: on l'oublie
+                remove(slot, file);
+                compactIfNeeded();
+                return null;
+            }
+            index.putLong(slotOffset(slot) + 8, System.currentTimeMillis());
+            return entry;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void put(String key, String artUrl, int width, int height, int[] argb) {
+        lock.lock();
+        try {
+            if (!writable || width <= 0 || height <= 0 || width > MAX_DIMENSION || height > MAX_DIMENSION) return;
+
+            long hash = hash(key);
+            int existing = findSlot(hash);
+            if (existing >= 0) {
+                remove(existing, entryPath(hash));
+            }
+
+            byte[] data = encode(key, artUrl, width, height, argb);
+            if (data.length > maxBytes) return;
+
+            while (entryCount >= maxEntries || usedBytes + data.length > maxBytes) {
+                if (!evictOldest()) break;
+            }
+            compactIfNeeded();
+
+            Path file = entryPath(hash);
+            try {
+                // Écriture atomique: un crash ne laisse jamais un fichier à moitié écrit sous le bon nom
+                Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+                Files.write(tmp, data);
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                NowPlayingIRLMod.LOGGER.debug("Failed to write album art cache entry: {}", e.getMessage());
+                return;
+            }
+
+            int slot = freeSlot(hash);
+            if (state(slot) == STATE_DELETED) tombstones--;
+            int offset = slotOffset(slot);
+            index.putLong(offset, hash);
+            index.putLong(offset + 8, System.currentTimeMillis());
+            index.putInt(offset + 16, data.length);
+            index.putInt(offset + 20, STATE_USED);
+            usedBytes += data.length;
+            entryCount++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            if (!writable) return;
+            resetIndex(index, slotCount);
+            deleteEntryFiles(directory);
+            usedBytes = 0;
+            entryCount = 0;
+            tombstones = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getUsedBytes() {
+        lock.lock();
+        try {
+            return usedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getEntryCount() {
+        lock.lock();
+        try {
+            return entryCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getSlotCount() {
+        return slotCount;
+    }
+
+    int getTombstoneCount() {
+        lock.lock();
+        try {
+            return tombstones;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ===== Index =====
+
+    private int findSlot(long hash) {
+        int start = (int) Long.remainderUnsigned(hash, slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            int slot = (start + i) % slotCount;
+            int state = state(slot);
+            if (state == STATE_EMPTY) return -1;
+            if (state == STATE_USED && index.getLong(slotOffset(slot)) == hash) return slot;
+        }
+        return -1;
+    }
+
+    private int freeSlot(long hash) {
+        int start = (int) Long.remainderUnsigned(hash, slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            int slot = (start + i) % slotCount;
+            if (state(slot) != STATE_USED) return slot;
+        }
+        // Impossible tant que entryCount < maxEntries
+        throw new IllegalStateException("Album art index full");
+    }
+
+    private boolean evictOldest() {
+        int oldest = -1;
+        long oldestAccess = Long.MAX_VALUE;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (state(slot) != STATE_USED) continue;
+            long access = index.getLong(slotOffset(slot) + 8);
+            if (access < oldestAccess) {
+                oldestAccess = access;
+                oldest = slot;
+            }
+        }
+        if (oldest < 0) return false;
+        remove(oldest, entryPath(index.getLong(slotOffset(oldest))));
+        return true;
+    }
+
+    private void remove(int slot, Path file) {
+        int offset = slotOffset(slot);
+        usedBytes -= index.getInt(offset + 16);
+        entryCount--;
+        // Marqueur de suppression pour ne pas casser les chaînes de sondage
+        index.putInt(offset + 20, STATE_DELETED);
+        tombstones++;
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {}
+    }
+
+    private void compactIfNeeded() {
+        if (tombstones > maxTombstones) {
+            rebuildIndex();
+        }
+    }
+
+    /**
+     * Réinsère les entrées vivantes dans une table sans marqueurs de suppression.
+     * La nouvelle table est construite à part puis recopiée d'un bloc dans l'index.
+     */
+    private void rebuildIndex() {
+        ByteBuffer rebuilt = ByteBuffer.allocate(slotCount * SLOT_SIZE);
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (state(slot) != STATE_USED) continue;
+            int offset = slotOffset(slot);
+            place(rebuilt, 0, slotCount, index.getLong(offset), index.getLong(offset + 8), index.getInt(offset + 16));
+        }
+        index.put(HEADER_SIZE, rebuilt, 0, rebuilt.capacity());
+        tombstones = 0;
+    }
+
+    /**
+     * Insère une entrée dans la première case vide de sa chaîne de sondage (table sans marqueurs).
+     * @param tableOffset position de la case 0 dans table
+     */
+    private static void place(ByteBuffer table, int tableOffset, int slotCount, long hash, long lastAccess, int bytes) {
+        int start = (int) Long.remainderUnsigned(hash, slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            int target = tableOffset + ((start + i) % slotCount) * SLOT_SIZE;
+            if (table.getInt(target + 20) != STATE_EMPTY) continue;
+            table.putLong(target, hash);
+            table.putLong(target + 8, lastAccess);
+            table.putInt(target + 16, bytes);
+            table.putInt(target + 20, STATE_USED);
+            return;
+        }
+    }
+
+    private int state(int slot) {
+        return index.getInt(slotOffset(slot) + 20);
+    }
+
+    private static int slotOffset(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    private static long indexSize(int slotCount) {
+        return HEADER_SIZE + (long) slotCount * SLOT_SIZE;
+    }
+
+    private static boolean hasValidHeader(ByteBuffer index, int slotCount) {
+        return index.getInt(0) == INDEX_MAGIC && index.getInt(4) == VERSION && index.getInt(8) == slotCount
+            && slotCount >= MIN_SLOT_COUNT && slotCount <= MAX_SLOT_COUNT;
+    }
+
+    private static void resetIndex(MappedByteBuffer index, int slotCount) {
+        for (int i = 0; i < index.capacity(); i += 8) {
+            index.putLong(i, 0L);
+        }
+        index.putInt(0, INDEX_MAGIC);
+        index.putInt(4, VERSION);
+        index.putInt(8, slotCount);
+    }
+
+    private static void deleteEntryFiles(Path directory) {
+        try (var files = Files.newDirectoryStream(directory, "*.art")) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException ignored) {}
+    }
+
+    // ===== Fichiers d'entrée =====
+
+    private Path entryPath(long hash) {
+        return entryPath(directory, hash);
+    }
+
+    private static Path entryPath(Path directory, long hash) {
+        return directory.resolve(String.format("%016x.art", hash));
+    }
+
+    private static byte[] encode(String key, String artUrl, int width, int height, int[] argb) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] urlBytes = (artUrl != null ? artUrl : "").getBytes(StandardCharsets.UTF_8);
+        int pixelBytes = width * height * 4;
+
+        ByteBuffer buffer = ByteBuffer.allocate(4 * 6 + keyBytes.length + urlBytes.length + pixelBytes + 8);
+        buffer.putInt(ENTRY_MAGIC).putInt(VERSION).putInt(width).putInt(height);
+        buffer.putInt(keyBytes.length).put(keyBytes);
+        buffer.putInt(urlBytes.length).put(urlBytes);
+        // Pixels stockés en RGBA
+        for (int i = 0; i < width * height; i++) {
+            int color = argb[i];
+            buffer.putInt((color << 8) | (color >>> 24));
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putLong(crc.getValue());
+        return buffer.array();
+    }
+
+    private static Entry readEntry(Path file, String key) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+            if (buffer.remaining() < 4 * 6 + 8) return null;
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.array(), 0, buffer.limit() - 8);
+            if (crc.getValue() != buffer.getLong(buffer.limit() - 8)) return null;
+
+            if (buffer.getInt() != ENTRY_MAGIC || buffer.getInt() != VERSION) return null;
+            int width = buffer.getInt();
+            int height = buffer.getInt();
+            if (width <= 0 || height <= 0 || width > MAX_DIMENSION || height > MAX_DIMENSION) return null;
+
+            String storedKey = readString(buffer);
+            // Collision de hash: ce n'est pas notre morceau
+            if (storedKey == null || !storedKey.equals(key)) return null;
+            String artUrl = readString(buffer);
+            if (artUrl == null) return null;
+
+            if (buffer.remaining() != width * height * 4 + 8) return null;
+            int[] argb = new int[width * height];
+            for (int i = 0; i < argb.length; i++) {
+                int rgba = buffer.getInt();
+                argb[i] = (rgba >>> 8) | (rgba << 24);
+            }
+            return new Entry(artUrl.isEmpty() ? null : artUrl, width, height, argb);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining() - 8) return null;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // FNV-1a 64 bits
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
\ No newline at end of file
@@ -1,50 +1,111 @@
 package com.nowplayingirl.client.media;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import com.nowplayingirl.NowPlayingIRLMod;
+import com.nowplayingirl.client.config.ModConfig;
+import com.nowplayingirl.client.hud.NowPlayingHud;
+import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.texture.NativeImage;
-import net.minecraft.client.texture.NativeImageBackedTexture;
 import net.minecraft.util.Identifier;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.net.URI;
-import java.net.URLEncoder;
 import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.nio.charset.StandardCharsets;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 public class AlbumArtFetcher {
     
-    private static final String ITUNES_API = "https://itunes.apple.com/search";
-    private static final String DEEZER_API = "https://api.deezer.com/search";
+    // Les textures sont décodées à la taille de la pochette à l'écran, en pixels réels:
+    // taille dessinée x échelle de l'interface x échelle du HUD, arrondie au multiple de 16
+    private static final int MIN_TEXTURE_SIZE = NowPlayingHud.ALBUM_ART_DRAW_SIZE;
+    // Échelle d'interface 4 et HUD à 2.0; au-delà l'image est légèrement agrandie par le GPU
+    private static final int MAX_TEXTURE_SIZE = 384;
+    private static final int TEXTURE_SIZE_STEP = 16;
+    
+    // Un morceau sans pochette n'est pas redemandé avant ce délai
+    private static final long NOT_FOUND_TTL_MS = TimeUnit.MINUTES.toMillis(30);
+    
+    // Délai global d'une requête de pochette (recherche + téléchargement)
+    private static final long REQUEST_DEADLINE_NANOS = TimeUnit.SECONDS.toNanos(15);
+    private static final Duration SEARCH_TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration DOWNLOAD_TIMEOUT = Duration.ofSeconds(10);
+    // Appels simultanés max par fournisseur, pour ne pas se faire limiter
+    private static final int ITUNES_PERMITS = 4;
+    private static final int DEEZER_PERMITS = 4;
+    private static final int DOWNLOAD_PERMITS = 6;
+    // Le préchargement ne doit jamais monopoliser les fournisseurs
+    private static final int PREFETCH_PERMITS = 2;
     
     private final HttpClient httpClient;
     private final ExecutorService executor;
-    private final Map<String, Identifier> cache = new ConcurrentHashMap<>();
+    private final HedgedArtResolver resolver;
+    private final ImageDownloader imageDownloader;
+    private final EmbeddedTagReader tagReader = new EmbeddedTagReader();
+    private final LocalArtLibrary library;
+    private final AlbumArtTextureCache textureCache;
+    private final AlbumArtDiskCache diskCache;
+    private final TextureUploadQueue uploadQueue = new TextureUploadQueue();
+    private final Map<String, CompletableFuture<Identifier>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Long> notFound = new ConcurrentHashMap<>();
+    private final Set<String> prefetching = ConcurrentHashMap.newKeySet();
     private final AtomicInteger textureCounter = new AtomicInteger(0);
+    private volatile int textureSize = MIN_TEXTURE_SIZE;
+    
+    private final Semaphore downloadPermits = new Semaphore(DOWNLOAD_PERMITS);
+    private final Semaphore prefetchPermits = new Semaphore(PREFETCH_PERMITS);
     
-    public AlbumArtFetcher() {
-        this.httpClient = HttpClient.newBuilder()
-            .connectTimeout(Duration.ofSeconds(5))
-            .build();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong upstreamCalls = new AtomicLong();
+    
+    public AlbumArtFetcher(ModConfig config) {
+        this(
+            new AlbumArtTextureCache(config.getArtCacheBudgetBytes()),
+            AlbumArtDiskCache.open(
+                FabricLoader.getInstance().getConfigDir().resolve(NowPlayingIRLMod.MOD_ID).resolve("art-cache"),
+                config.getArtDiskCacheBytes()
+            ),
+            createLibrary(config),
+            HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build(),
+            ItunesArtProvider.API,
+            DeezerArtProvider.API
+        );
+    }
+    
+    /**
+     * @param diskCache cache disque, ou null
+     * @param library   bibliothèque locale, ou null
+     */
+    AlbumArtFetcher(AlbumArtTextureCache textureCache, AlbumArtDiskCache diskCache, LocalArtLibrary library,
+                    HttpClient httpClient, String itunesApi, String deezerApi) {
+        this.textureCache = textureCache;
+        this.diskCache = diskCache;
+        this.library = library;
+        this.httpClient = httpClient;
         
-        this.executor = Executors.newFixedThreadPool(2, r -> {
-            Thread t = new Thread(r, "NowPlayingIRL-ArtFetcher");
-            t.setDaemon(true);
-            return t;
-        });
+        // Un thread virtuel par requête: les appels HTTP bloquants ne coûtent plus de thread plateforme
+        this.executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("NowPlayingIRL-ArtFetcher-", 0).factory()
+        );
+        
+        this.imageDownloader = new ImageDownloader(httpClient, DOWNLOAD_PERMITS);
+        
+        // Ordre initial: iTunes puis Deezer, réajusté ensuite selon la santé de chacun
+        this.resolver = new HedgedArtResolver(executor, SEARCH_TIMEOUT, upstreamCalls)
+            .add(new ItunesArtProvider(httpClient, itunesApi), ITUNES_PERMITS)
+            .add(new DeezerArtProvider(httpClient, deezerApi), DEEZER_PERMITS);
     }
     
     public void fetchAsync(MediaInfo media, Consumer<Identifier> callback) {
@@ -53,161 +114,457 @@ public class AlbumArtFetcher {
             return;
         }
         
-        String cacheKey = media.getArtist() + "|" + media.getTitle();
+        fetch(media).whenComplete(deliver(callback));
+    }
+    
+    /**
+     * Un seul future par morceau, partagé entre tous les demandeurs.
+     * Complété avec null si aucune pochette n'a été trouvée.
+     */
+    public CompletableFuture<Identifier> fetch(MediaInfo media) {
+        ArtRequest request = ArtRequest.of(media);
         
-        // Vérifier le cache
-        if (cache.containsKey(cacheKey)) {
-            callback.accept(cache.get(cacheKey));
-            return;
+        // Le morceau a changé: les requêtes encore en vol pour les autres ne servent plus
+        cancelStale(request.cacheKey());
+        return request(request, false, false);
+    }
+    
+    /**
+     * Recherche à nouveau la pochette du morceau courant quand le lecteur a publié de quoi
+     * mieux la trouver (pochette, emplacement du fichier, album): le cache, l'absence connue
+     * et la requête en vol, établis avec moins d'informations, sont ignorés.
+     */
+    public void refreshAsync(MediaInfo media, Consumer<Identifier> callback) {
+        ArtRequest request = ArtRequest.of(media);
+        String cacheKey = request.cacheKey();
+        notFound.remove(cacheKey);
+        CompletableFuture<Identifier> stale = inFlight.get(cacheKey);
+        if (stale != null && !prefetching.contains(cacheKey)) {
+            stale.cancel(false);
+        }
+        request(request, false, true).whenComplete(deliver(callback));
+    }
+    
+    /**
+     * En erreur: pas de pochette. Annulée (morceau changé ou recherche relancée): pas de réponse,
+     * ce n'est pas une absence de pochette.
+     */
+    private static BiConsumer<Identifier, Throwable> deliver(Consumer<Identifier> callback) {
+        return (texture, error) -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof CancellationException) return;
+            callback.accept(error == null ? texture : null);
+        };
+    }
+    
+    /**
+     * Précharge les pochettes de morceaux à venir (file d'attente, historique, playlist).
+     * Ces requêtes ne sont pas annulées quand le morceau courant change.
+     */
+    public void prefetch(Collection<MediaInfo> upcoming) {
+        for (MediaInfo media : upcoming) {
+            if (media == null || !media.hasValidInfo()) continue;
+            request(ArtRequest.of(media), true, false);
+        }
+    }
+    
+    /**
+     * Ce qu'on sait d'un morceau pour lui trouver une pochette.
+     * @param cacheKey clé canonique ("Titre (Official Video)" == "Titre")
+     * @param artUrl   pochette publiée par le lecteur (mpris:artUrl), ou null
+     * @param trackUrl emplacement du morceau (xesam:url), ou null
+     */
+    private record ArtRequest(String cacheKey, String artist, String title, String album, String artUrl, String trackUrl) {
+        static ArtRequest of(MediaInfo media) {
+            TrackNormalizer.Track track = TrackNormalizer.normalize(media.getArtist(), media.getTitle());
+            return new ArtRequest(track.key(), track.artist(), track.title(), media.getAlbum(),
+                media.getArtUrl(), media.getTrackUrl());
+        }
+    }
+    
+    /**
+     * @param refresh ignorer les caches: les informations de la requête sont plus complètes que celles qui les ont remplis
+     */
+    private CompletableFuture<Identifier> request(ArtRequest request, boolean prefetch, boolean refresh) {
+        String cacheKey = request.cacheKey();
+        // Vérifier le cache (une texture plus petite que la taille à l'écran est redemandée)
+        Identifier cached = refresh ? null : textureCache.get(cacheKey, textureSize);
+        if (cached != null) {
+            cacheHits.incrementAndGet();
+            return CompletableFuture.completedFuture(cached);
+        }
+        if (!refresh && isKnownNotFound(cacheKey)) {
+            cacheHits.incrementAndGet();
+            return CompletableFuture.completedFuture(null);
         }
         
-        executor.submit(() -> {
-            try {
-                // 1. Essayer iTunes
-                String artUrl = fetchFromItunes(media.getArtist(), media.getTitle());
-                
-                // 2. Fallback Deezer
-                if (artUrl == null) {
-                    artUrl = fetchFromDeezer(media.getArtist(), media.getTitle());
-                }
-                
-                if (artUrl != null) {
-                    Identifier texture = downloadAndRegisterTexture(artUrl);
-                    if (texture != null) {
-                        cache.put(cacheKey, texture);
-                        callback.accept(texture);
-                        return;
-                    }
-                }
-                
-                callback.accept(null);
-                
-            } catch (Exception e) {
-                NowPlayingIRLMod.LOGGER.debug("Failed to fetch album art: {}", e.getMessage());
-                callback.accept(null);
+        // Rejoindre la requête déjà en vol s'il y en a une
+        CompletableFuture<Identifier> created = new CompletableFuture<>();
+        CompletableFuture<Identifier> existing = inFlight.putIfAbsent(cacheKey, created);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            // Le morceau préchargé est maintenant demandé pour l'affichage: son upload ne doit plus céder sa place
+            if (!prefetch) {
+                prefetching.remove(cacheKey);
             }
+            return existing;
+        }
+        
+        if (prefetch) {
+            prefetching.add(cacheKey);
+        }
+        created.whenComplete((texture, error) -> {
+            inFlight.remove(cacheKey, created);
+            prefetching.remove(cacheKey);
         });
+        try {
+            executor.submit(() -> {
+                if (prefetch) {
+                    prefetchResolve(request, created);
+                } else {
+                    resolve(request, created, System.nanoTime() + REQUEST_DEADLINE_NANOS, refresh);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            created.complete(null);
+        }
+        return created;
     }
     
-    private String fetchFromItunes(String artist, String title) {
+    private void prefetchResolve(ArtRequest request, CompletableFuture<Identifier> future) {
         try {
-            String query = URLEncoder.encode(artist + " " + title, StandardCharsets.UTF_8);
-            String url = ITUNES_API + "?term=" + query + "&media=music&limit=1";
-            
-            HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .timeout(Duration.ofSeconds(5))
-                .GET()
-                .build();
-            
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-            
-            if (response.statusCode() == 200) {
-                JsonObject json = JsonParser.parseString(response.body()).getAsJsonObject();
-                JsonArray results = json.getAsJsonArray("results");
-                
-                if (results != null && results.size() > 0) {
-                    JsonObject first = results.get(0).getAsJsonObject();
-                    String artUrl = first.get("artworkUrl100").getAsString();
-                    // Obtenir une image plus grande
-                    return artUrl.replace("100x100", "300x300");
-                }
-            }
-        } catch (Exception e) {
-            NowPlayingIRLMod.LOGGER.debug("iTunes API error: {}", e.getMessage());
+            prefetchPermits.acquire();
+        } catch (InterruptedException e) {
+            future.complete(null);
+            return;
+        }
+        try {
+            // Le délai ne commence qu'une fois le créneau de préchargement obtenu
+            resolve(request, future, System.nanoTime() + REQUEST_DEADLINE_NANOS, false);
+        } finally {
+            prefetchPermits.release();
         }
-        return null;
     }
     
-    private String fetchFromDeezer(String artist, String title) {
+    private void resolve(ArtRequest request, CompletableFuture<Identifier> future, long deadline, boolean refresh) {
+        String cacheKey = request.cacheKey();
+        int size = textureSize;
         try {
-            String query = URLEncoder.encode(artist + " " + title, StandardCharsets.UTF_8);
-            String url = DEEZER_API + "?q=" + query + "&limit=1";
+            // Une autre requête a pu remplir le cache entre-temps
+            Identifier cached = refresh ? null : textureCache.get(cacheKey, size);
+            if (cached != null) {
+                future.complete(cached);
+                return;
+            }
             
-            HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .timeout(Duration.ofSeconds(5))
-                .GET()
-                .build();
+            // Pochette locale publiée par le lecteur: aucun appel réseau
+            if (LocalArtLoader.isLocal(request.artUrl())) {
+                AlbumArtDecoder.DecodedArt image = loadLocal(request.artUrl(), size);
+                if (image != null) {
+                    uploadTexture(cacheKey, image, future);
+                    return;
+                }
+            }
             
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            // Fichier audio local: pochette intégrée, et des tags plus fiables que le titre affiché
+            EmbeddedTagReader.Tags tags = null;
+            Path trackPath = null;
+            if (LocalArtLoader.isLocal(request.trackUrl())) {
+                trackPath = LocalArtLoader.toPath(request.trackUrl());
+                tags = readTags(trackPath);
+                if (tags != null && tags.hasPicture()) {
+                    AlbumArtDecoder.DecodedArt image = loadEmbedded(trackPath, tags, size);
+                    if (image != null) {
+                        uploadTexture(cacheKey, image, future);
+                        return;
+                    }
+                }
+            }
             
-            if (response.statusCode() == 200) {
-                JsonObject json = JsonParser.parseString(response.body()).getAsJsonObject();
-                JsonArray data = json.getAsJsonArray("data");
-                
-                if (data != null && data.size() > 0) {
-                    JsonObject first = data.get(0).getAsJsonObject();
-                    JsonObject album = first.getAsJsonObject("album");
-                    if (album != null) {
-                        return album.get("cover_medium").getAsString();
+            // cover.jpg à côté du morceau ou dans la bibliothèque locale
+            if (library != null) {
+                String album = tags != null && tags.album() != null ? tags.album() : request.album();
+                String artist = tags != null && tags.artist() != null ? tags.artist() : request.artist();
+                Path cover = library.find(artist, album, trackPath != null ? trackPath.getParent() : null);
+                if (cover != null) {
+                    AlbumArtDecoder.DecodedArt image = loadLocal(cover, size);
+                    if (image != null) {
+                        uploadTexture(cacheKey, image, future);
+                        return;
                     }
                 }
             }
+            
+            // Cache disque: pixels déjà décodés, aucun appel réseau (sauf s'ils sont plus petits qu'à l'écran)
+            if (diskCache != null && !refresh) {
+                AlbumArtDiskCache.Entry entry = diskCache.get(cacheKey);
+                if (entry != null && entry.width() >= size) {
+                    cacheHits.incrementAndGet();
+                    uploadTexture(cacheKey, new AlbumArtDecoder.DecodedArt(entry.width(), entry.height(), entry.argb()), future);
+                    return;
+                }
+            }
+            
+            // URL distante publiée par le lecteur: téléchargement direct, sans recherche
+            if (LocalArtLoader.isRemote(request.artUrl())) {
+                AlbumArtDecoder.DecodedArt image = withPermit(downloadPermits, deadline,
+                    () -> downloadImage(cacheKey, request.artUrl(), size, deadline));
+                if (image != null) {
+                    uploadTexture(cacheKey, image, future);
+                    return;
+                }
+                if (future.isCancelled()) return;
+            }
+            
+            // En dernier recours, recherche chez les fournisseurs, avec requête de secours si le premier traîne
+            String artist = request.artist();
+            String title = request.title();
+            if (tags != null && tags.artist() != null && tags.title() != null) {
+                TrackNormalizer.Track tagged = TrackNormalizer.normalize(tags.artist(), tags.title());
+                artist = tagged.artist();
+                title = tagged.title();
+            }
+            HedgedArtResolver.Resolution resolution = resolver.resolve(artist, title, deadline);
+            String artUrl = resolution.artUrl();
+            
+            if (artUrl == null) {
+                // Fournisseurs en erreur ou délai dépassé: on ne sait pas s'il y a une pochette,
+                // ne pas la marquer absente
+                if (resolution.definitive()) {
+                    notFound.put(cacheKey, System.currentTimeMillis() + NOT_FOUND_TTL_MS);
+                }
+                future.complete(null);
+                return;
+            }
+            
+            if (future.isCancelled()) return;
+            String imageUrl = artUrl;
+            AlbumArtDecoder.DecodedArt image = withPermit(downloadPermits, deadline, () -> downloadImage(cacheKey, imageUrl, size, deadline));
+            if (image == null) {
+                future.complete(null);
+                return;
+            }
+            uploadTexture(cacheKey, image, future);
+            
         } catch (Exception e) {
-            NowPlayingIRLMod.LOGGER.debug("Deezer API error: {}", e.getMessage());
+            NowPlayingIRLMod.LOGGER.debug("Failed to fetch album art: {}", e.getMessage());
+            future.complete(null);
         }
-        return null;
     }
     
-    private Identifier downloadAndRegisterTexture(String imageUrl) {
+    /**
+     * Extrait la palette ici, sur le thread du fetcher, puis confie l'image au thread de rendu sans l'attendre.
+     */
+    private void uploadTexture(String cacheKey, AlbumArtDecoder.DecodedArt decoded, CompletableFuture<Identifier> future) {
+        // Créer l'identifier unique
+        int id = textureCounter.incrementAndGet();
+        Identifier textureId = Identifier.of(NowPlayingIRLMod.MOD_ID, "dynamic/album_" + id);
+        int width = decoded.width();
+        int height = decoded.height();
+        AlbumPalette palette = AlbumPalette.extract(decoded.argb());
+        
+        uploadQueue.submit(textureId, toNativeImage(width, height, decoded.argb()), () -> prefetching.contains(cacheKey)).whenComplete((texture, error) -> {
+            if (error != null) {
+                NowPlayingIRLMod.LOGGER.debug("Album art upload failed: {}", error.getMessage());
+                future.complete(null);
+                return;
+            }
+            // Mis en cache même si la requête a été annulée entre-temps: la texture reste évinçable
+            textureCache.put(cacheKey, texture, width, height, palette);
+            future.complete(texture);
+        });
+    }
+    
+    /**
+     * Appelé sur le thread de rendu à chaque frame.
+     */
+    public void drainUploads() {
+        uploadQueue.drain(MinecraftClient.getInstance().getTextureManager());
+    }
+    
+    /**
+     * Exécute un appel sous le quota du fournisseur, ou renvoie null si le délai expire avant.
+     */
+    private static <T> T withPermit(Semaphore permits, long deadline, Callable<T> call) throws Exception {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0 || !permits.tryAcquire(remaining, TimeUnit.NANOSECONDS)) return null;
         try {
-            HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(imageUrl))
-                .timeout(Duration.ofSeconds(10))
-                .GET()
-                .build();
-            
-            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            return call.call();
+        } finally {
+            permits.release();
+        }
+    }
+    
+    private static Duration timeout(Duration max, long deadline) {
+        long remaining = Math.max(1, deadline - System.nanoTime());
+        return remaining < max.toNanos() ? Duration.ofNanos(remaining) : max;
+    }
+    
+    private void cancelStale(String currentKey) {
+        for (Map.Entry<String, CompletableFuture<Identifier>> entry : inFlight.entrySet()) {
+            if (!entry.getKey().equals(currentKey) && !prefetching.contains(entry.getKey())) {
+                entry.getValue().cancel(false);
+            }
+        }
+    }
+    
+    private boolean isKnownNotFound(String cacheKey) {
+        Long expiry = notFound.get(cacheKey);
+        if (expiry == null) return false;
+        if (expiry > System.currentTimeMillis()) return true;
+        notFound.remove(cacheKey, expiry);
+        return false;
+    }
+    
+    public Stats getStats() {
+        return new Stats(cacheHits.get(), coalesced.get(), upstreamCalls.get(),
+            textureCache.getTextureCount(), textureCache.getUsedBytes());
+    }
+    
+    /**
+     * @param cacheHits     requêtes servies par le cache (pochette ou "pas de pochette")
+     * @param coalesced     requêtes qui ont rejoint une requête déjà en vol
+     * @param upstreamCalls appels HTTP réellement envoyés (recherche et téléchargement)
+     * @param textureCount  textures de pochettes actuellement chargées
+     * @param textureBytes  mémoire occupée par ces textures (RGBA)
+     */
+    public record Stats(long cacheHits, long coalesced, long upstreamCalls, int textureCount, long textureBytes) {}
+    
+    /**
+     * Épingle la pochette affichée par le HUD (jamais évincée du cache).
+     * @return false si elle a déjà été évincée et ne doit plus être affichée
+     */
+    public boolean setDisplayedTexture(Identifier texture) {
+        return textureCache.setDisplayed(texture);
+    }
+    
+    /**
+     * Taille de la pochette à l'écran, en pixels, appelée par le HUD à chaque frame.
+     * @return true si elle a augmenté: la pochette affichée mérite d'être redemandée
+     */
+    public boolean setTextureSize(int screenPixels) {
+        int rounded = (screenPixels + TEXTURE_SIZE_STEP - 1) / TEXTURE_SIZE_STEP * TEXTURE_SIZE_STEP;
+        int size = Math.max(MIN_TEXTURE_SIZE, Math.min(MAX_TEXTURE_SIZE, rounded));
+        int previous = textureSize;
+        if (size == previous) return false;
+        textureSize = size;
+        return size > previous;
+    }
+    
+    int getTextureSize() {
+        return textureSize;
+    }
+    
+    public void setCacheBudget(long budgetBytes) {
+        textureCache.setBudget(budgetBytes);
+    }
+    
+    /**
+     * @return les couleurs extraites de cette pochette, ou null si elle n'est plus en cache
+     */
+    public AlbumPalette getPalette(Identifier texture) {
+        return textureCache.getPalette(texture);
+    }
+
+    
+    private AlbumArtDecoder.DecodedArt downloadImage(String cacheKey, String imageUrl, int size, long deadline) {
+        try {
+            upstreamCalls.incrementAndGet();
+            // Lecture bornée et décodage hors du thread de rendu, directement à la taille à l'écran
+            AlbumArtDecoder.DecodedArt decoded = imageDownloader.download(
+                imageUrl, size, timeout(DOWNLOAD_TIMEOUT, deadline), deadline);
             
-            if (response.statusCode() == 200) {
-                byte[] imageData = response.body();
-                
-                // Convertir en PNG si nécessaire
-                byte[] pngData = convertToPng(imageData);
-                
-                // Créer l'identifier unique
-                int id = textureCounter.incrementAndGet();
-                Identifier textureId = Identifier.of(NowPlayingIRLMod.MOD_ID, "dynamic/album_" + id);
-                
-                // Enregistrer sur le thread principal de Minecraft
-                MinecraftClient client = MinecraftClient.getInstance();
-                CountDownLatch latch = new CountDownLatch(1);
-                final Identifier[] result = {null};
-                
-                client.execute(() -> {
-                    try {
-                        NativeImage image = NativeImage.read(new ByteArrayInputStream(pngData));
-                        NativeImageBackedTexture texture = new NativeImageBackedTexture(() -> "meow",image);
-                        client.getTextureManager().registerTexture(textureId, texture);
-                        result[0] = textureId;
-                    } catch (Exception e) {
-                        NowPlayingIRLMod.LOGGER.debug("Failed to register texture: {}", e.getMessage());
-                    }
-                    latch.countDown();
-                });
-                
-                latch.await(5, TimeUnit.SECONDS);
-                return result[0];
+            // Garder les pixels décodés pour le prochain démarrage
+            if (diskCache != null) {
+                diskCache.put(cacheKey, imageUrl, decoded.width(), decoded.height(), decoded.argb());
             }
+            
+            return decoded;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             NowPlayingIRLMod.LOGGER.debug("Failed to download image: {}", e.getMessage());
         }
         return null;
     }
     
-    private byte[] convertToPng(byte[] imageData) throws Exception {
-        BufferedImage image = ImageIO.read(new ByteArrayInputStream(imageData));
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        ImageIO.write(image, "PNG", baos);
-        return baos.toByteArray();
+    private static AlbumArtDecoder.DecodedArt loadLocal(String fileUrl, int size) {
+        try {
+            return loadLocal(LocalArtLoader.toPath(fileUrl), size);
+        } catch (Exception e) {
+            NowPlayingIRLMod.LOGGER.debug("Failed to load local album art: {}", e.getMessage());
+            return null;
+        }
+    }
+    
+    private static AlbumArtDecoder.DecodedArt loadLocal(Path file, int size) {
+        try {
+            return LocalArtLoader.load(file, size);
+        } catch (Exception e) {
+            NowPlayingIRLMod.LOGGER.debug("Failed to load local album art: {}", e.getMessage());
+            return null;
+        }
+    }
+    
+    private EmbeddedTagReader.Tags readTags(Path trackPath) {
+        try {
+            return tagReader.read(trackPath);
+        } catch (Exception e) {
+            NowPlayingIRLMod.LOGGER.debug("Failed to read tags: {}", e.getMessage());
+            return null;
+        }
+    }
+    
+    private static AlbumArtDecoder.DecodedArt loadEmbedded(Path trackPath, EmbeddedTagReader.Tags tags, int size) {
+        try {
+            // Seule l'image est mappée, pas le fichier audio
+            return AlbumArtDecoder.decode(EmbeddedTagReader.mapPicture(trackPath, tags), size);
+        } catch (Exception e) {
+            NowPlayingIRLMod.LOGGER.debug("Failed to load embedded album art: {}", e.getMessage());
+            return null;
+        }
+    }
+    
+    private static NativeImage toNativeImage(int width, int height, int[] argb) {
+        NativeImage image = new NativeImage(width, height, false);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setColorArgb(x, y, argb[y * width + x]);
+            }
+        }
+        return image;
+    }
+    
+    private static LocalArtLibrary createLibrary(ModConfig config) {
+        List<Path> roots = new ArrayList<>();
+        for (String root : config.getArtLibraryRoots()) {
+            try {
+                roots.add(Path.of(root));
+            } catch (InvalidPathException e) {
+                NowPlayingIRLMod.LOGGER.warn("Ignoring invalid art library folder: {}", root);
+            }
+        }
+        if (roots.isEmpty()) return null;
+        
+        LocalArtLibrary library = new LocalArtLibrary(roots,
+            FabricLoader.getInstance().getConfigDir().resolve(NowPlayingIRLMod.MOD_ID).resolve("art-library.idx"));
+        library.start();
+        return library;
     }
     
     public void shutdown() {
+        if (library != null) {
+            library.close();
+        }
+        if (diskCache != null) {
+            diskCache.close();
+        }
         executor.shutdownNow();
+        uploadQueue.clear();
     }
     
     public void clearCache() {
-        cache.clear();
+        textureCache.clear();
+        notFound.clear();
     }
 }
\ No newline at end of file
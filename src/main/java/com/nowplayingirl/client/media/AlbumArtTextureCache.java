@@ -0,0 +1,176 @@
+package com.nowplayingirl.client.media;
+
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.util.Identifier;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Cache LRU des textures de pochettes, borné en octets de mémoire GPU/native.
+ * La texture actuellement affichée n'est jamais évincée.
+ */
+public class AlbumArtTextureCache {
+    
+    // La palette suit la texture: évincées ensemble, jamais recalculées
+    private record Entry(Identifier texture, int width, long bytes, AlbumPalette palette) {}
+    
+    // Ordre d'accès: le premier élément est le moins récemment utilisé
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Consumer<List<Identifier>> release;
+    private long budgetBytes;
+    private long usedBytes;
+    private Identifier displayed;
+    // Texture affichée dont l'entrée a été remplacée: détruite dès que le HUD n'en veut plus
+    private Identifier orphan;
+    
+    public AlbumArtTextureCache(long budgetBytes) {
+        this(budgetBytes, AlbumArtTextureCache::destroyOnRenderThread);
+    }
+    
+    /**
+     * @param release destruction des textures évincées, appelée hors du verrou
+     */
+    AlbumArtTextureCache(long budgetBytes, Consumer<List<Identifier>> release) {
+        this.budgetBytes = budgetBytes;
+        this.release = release;
+    }
+    
+    public Identifier get(String key) {
+        return get(key, 0);
+    }
+    
+    /**
+     * @return la texture, ou null si elle est absente ou plus petite que minSize (à redécoder)
+     */
+    public synchronized Identifier get(String key, int minSize) {
+        Entry entry = entries.get(key);
+        return entry != null && entry.width() >= minSize ? entry.texture() : null;
+    }
+    
+    /**
+     * @return la palette de cette texture, ou null (pochette sans pixel opaque, ou évincée)
+     */
+    public synchronized AlbumPalette getPalette(Identifier texture) {
+        Entry entry = find(texture);
+        return entry != null ? entry.palette() : null;
+    }
+    
+    public void put(String key, Identifier texture, int width, int height, AlbumPalette palette) {
+        List<Identifier> evicted;
+        synchronized (this) {
+            Entry previous = entries.put(key, new Entry(texture, width, (long) width * height * 4, palette));
+            usedBytes += (long) width * height * 4;
+            if (previous != null) {
+                usedBytes -= previous.bytes();
+            }
+            evicted = evictOverBudget();
+            if (previous != null && !previous.texture().equals(texture)) {
+                if (previous.texture().equals(displayed)) {
+                    // Encore dessinée par le HUD: détruite quand il passera à une autre texture
+                    orphan = previous.texture();
+                } else {
+                    evicted.add(previous.texture());
+                }
+            }
+        }
+        release(evicted);
+    }
+    
+    /**
+     * Marque la texture affichée par le HUD pour qu'elle ne soit jamais évincée.
+     * À appeler avant de publier la texture au HUD, pas après; null quand le HUD n'en affiche plus.
+     * @return false si la texture a déjà été évincée: elle est détruite ou sur le point de l'être
+     */
+    public boolean setDisplayed(Identifier texture) {
+        List<Identifier> evicted;
+        synchronized (this) {
+            if (texture != null && !texture.equals(orphan) && find(texture) == null) return false;
+            displayed = texture;
+            // L'ancienne texture épinglée a pu rester au-delà du budget
+            evicted = evictOverBudget();
+            if (orphan != null && !orphan.equals(texture)) {
+                evicted.add(orphan);
+                orphan = null;
+            }
+        }
+        release(evicted);
+        return true;
+    }
+    
+    public void setBudget(long budgetBytes) {
+        List<Identifier> evicted;
+        synchronized (this) {
+            this.budgetBytes = budgetBytes;
+            evicted = evictOverBudget();
+        }
+        release(evicted);
+    }
+    
+    /**
+     * Libère toutes les textures sauf celle affichée.
+     */
+    public void clear() {
+        List<Identifier> evicted = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Entry> it = entries.values().iterator();
+            while (it.hasNext()) {
+                Entry entry = it.next();
+                if (entry.texture().equals(displayed)) continue;
+                it.remove();
+                usedBytes -= entry.bytes();
+                evicted.add(entry.texture());
+            }
+        }
+        release(evicted);
+    }
+    
+    public synchronized int getTextureCount() {
+        return entries.size();
+    }
+    
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+    
+    private Entry find(Identifier texture) {
+        // Quelques dizaines d'entrées au plus, une fois par changement de pochette
+        for (Entry entry : entries.values()) {
+            if (entry.texture().equals(texture)) return entry;
+        }
+        return null;
+    }
+    
+    private List<Identifier> evictOverBudget() {
+        List<Identifier> evicted = new ArrayList<>();
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (usedBytes > budgetBytes && it.hasNext()) {
+            Entry entry = it.next().getValue();
+            if (entry.texture().equals(displayed)) continue;
+            it.remove();
+            usedBytes -= entry.bytes();
+            evicted.add(entry.texture());
+        }
+        return evicted;
+    }
+    
+    private void release(List<Identifier> textures) {
+        if (!textures.isEmpty()) {
+            release.accept(textures);
+        }
+    }
+    
+    private static void destroyOnRenderThread(List<Identifier> textures) {
+        // Les textures GPU ne peuvent être détruites que sur le thread de rendu
+        MinecraftClient client = MinecraftClient.getInstance();
+        client.execute(() -> {
+            for (Identifier texture : textures) {
+                client.getTextureManager().destroyTexture(texture);
+            }
+        });
+    }
+}
\ No newline at end of file
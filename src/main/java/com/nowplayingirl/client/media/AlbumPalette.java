@@ -0,0 +1,120 @@
+package com.nowplayingirl.client.media;
+
+/**
+ * Couleurs de thème tirées d'une pochette, dans les mêmes rôles que les thèmes fixes.
+ * Calculées une fois par pochette sur le thread du fetcher, jamais sur le thread de rendu.
+ */
+public record AlbumPalette(int primary, int secondary, int text, int accent, int background) {
+
+    private static final int TEXT = 0xFFFFFFFF;
+    // Même transparence que les fonds des thèmes fixes
+    private static final int BACKGROUND_ALPHA = 0xCC;
+    // Luminance minimale de la couleur principale, lisible sur le fond sombre
+    private static final double MIN_PRIMARY_LUMINANCE = 0.35;
+
+    /**
+     * @return la palette, ou null si l'image n'a pas assez de pixels opaques
+     */
+    static AlbumPalette extract(int[] argb) {
+        PaletteQuantizer.Swatch[] swatches = PaletteQuantizer.quantize(argb);
+        if (swatches.length == 0) return null;
+
+        PaletteQuantizer.Swatch dominant = swatches[0];
+        PaletteQuantizer.Swatch vivid = mostVivid(swatches, null);
+        PaletteQuantizer.Swatch other = mostVivid(swatches, vivid);
+
+        int primary = ensureLuminance(vivid.rgb(), MIN_PRIMARY_LUMINANCE);
+        // Seconde teinte de la pochette si elle existe, sinon une version claire de la principale
+        int secondary = other != null
+            ? mix(ensureLuminance(other.rgb(), MIN_PRIMARY_LUMINANCE), 0xFFFFFF, 0.35)
+            : mix(primary, 0xFFFFFF, 0.45);
+        int accent = scale(primary, 0.6);
+        // Fond: teinte dominante très assombrie
+        int background = scale(ensureLuminance(dominant.rgb(), 0.2), 0.12);
+
+        return new AlbumPalette(0xFF000000 | primary, 0xFF000000 | secondary, TEXT,
+            0xFF000000 | accent, (BACKGROUND_ALPHA << 24) | background);
+    }
+
+    /**
+     * Saturée et fréquente à la fois; les quasi-noirs et quasi-blancs ne font pas une couleur de thème.
+     * @param distinctFrom teinte déjà retenue, ou null
+     */
+    private static PaletteQuantizer.Swatch mostVivid(PaletteQuantizer.Swatch[] swatches, PaletteQuantizer.Swatch distinctFrom) {
+        PaletteQuantizer.Swatch best = null;
+        double bestScore = 0;
+        for (PaletteQuantizer.Swatch swatch : swatches) {
+            if (swatch == distinctFrom) continue;
+            int rgb = swatch.rgb();
+            double saturation = saturation(rgb);
+            double value = value(rgb);
+            if (distinctFrom != null && (saturation < 0.25 || hueDistance(rgb, distinctFrom.rgb()) < 30)) continue;
+
+            // Une teinte vive mais minoritaire l'emporte sur un grand aplat terne
+            double weight = (0.1 + saturation) * value;
+            if (value < 0.15 || (value > 0.92 && saturation < 0.1)) weight *= 0.1;
+            double score = swatch.population() * weight;
+            if (score > bestScore) {
+                bestScore = score;
+                best = swatch;
+            }
+        }
+        return distinctFrom == null && best == null ? swatches[0] : best;
+    }
+
+    // ===== Couleurs (RGB sans alpha) =====
+
+    private static double saturation(int rgb) {
+        int max = Math.max(red(rgb), Math.max(green(rgb), blue(rgb)));
+        int min = Math.min(red(rgb), Math.min(green(rgb), blue(rgb)));
+        return max == 0 ? 0 : (max - min) / (double) max;
+    }
+
+    private static double value(int rgb) {
+        return Math.max(red(rgb), Math.max(green(rgb), blue(rgb))) / 255.0;
+    }
+
+    private static double hue(int rgb) {
+        double r = red(rgb), g = green(rgb), b = blue(rgb);
+        double max = Math.max(r, Math.max(g, b));
+        double delta = max - Math.min(r, Math.min(g, b));
+        if (delta == 0) return 0;
+        double hue;
+        if (max == r) hue = ((g - b) / delta) % 6;
+        else if (max == g) hue = (b - r) / delta + 2;
+        else hue = (r - g) / delta + 4;
+        return (hue * 60 + 360) % 360;
+    }
+
+    private static double hueDistance(int a, int b) {
+        double distance = Math.abs(hue(a) - hue(b));
+        return Math.min(distance, 360 - distance);
+    }
+
+    private static double luminance(int rgb) {
+        return (0.2126 * red(rgb) + 0.7152 * green(rgb) + 0.0722 * blue(rgb)) / 255.0;
+    }
+
+    private static int ensureLuminance(int rgb, double minimum) {
+        // Éclaircir vers le blanc par petits pas garde la teinte reconnaissable
+        for (int i = 0; i < 10 && luminance(rgb) < minimum; i++) {
+            rgb = mix(rgb, 0xFFFFFF, 0.15);
+        }
+        return rgb;
+    }
+
+    private static int mix(int rgb, int other, double amount) {
+        int r = (int) Math.round(red(rgb) + (red(other) - red(rgb)) * amount);
+        int g = (int) Math.round(green(rgb) + (green(other) - green(rgb)) * amount);
+        int b = (int) Math.round(blue(rgb) + (blue(other) - blue(rgb)) * amount);
+        return (r << 16) | (g << 8) | b;
+    }
+
+    private static int scale(int rgb, double factor) {
+        return ((int) (red(rgb) * factor) << 16) | ((int) (green(rgb) * factor) << 8) | (int) (blue(rgb) * factor);
+    }
+
+    private static int red(int rgb) { return (rgb >> 16) & 0xFF; }
+    private static int green(int rgb) { return (rgb >> 8) & 0xFF; }
+    private static int blue(int rgb) { return rgb & 0xFF; }
+}
\ No newline at end of file
@@ -0,0 +1,6 @@
+package com.nowplayingirl.client.media;
+
+/**
+ * Un résultat de recherche d'un fournisseur de pochettes.
+ */
+public record ArtCandidate(String artist, String title, String artUrl) {}
\ No newline at end of file
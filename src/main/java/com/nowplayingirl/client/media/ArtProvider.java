@@ -0,0 +1,19 @@
+package com.nowplayingirl.client.media;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Service de recherche de pochettes (iTunes, Deezer...).
+ */
+public interface ArtProvider {
+    
+    String name();
+    
+    /**
+     * @return l'URL de la pochette, ou null si le service n'en a pas pour ce morceau
+     * @throws RateLimitedException si le service demande de ralentir (HTTP 429)
+     * @throws IOException          pour toute autre erreur (réseau, HTTP, réponse illisible)
+     */
+    String findArtUrl(String artist, String title, Duration timeout) throws IOException, InterruptedException;
+}
\ No newline at end of file
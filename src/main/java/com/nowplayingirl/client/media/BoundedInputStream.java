@@ -0,0 +1,52 @@
+package com.nowplayingirl.client.media;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Coupe la lecture dès que le flux dépasse la taille autorisée.
+ */
+class BoundedInputStream extends FilterInputStream {
+    
+    private final long limit;
+    private long count;
+    
+    BoundedInputStream(InputStream in, long limit) {
+        super(in);
+        this.limit = limit;
+    }
+    
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) count(1);
+        return b;
+    }
+    
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int n = super.read(buffer, offset, length);
+        if (n > 0) count(n);
+        return n;
+    }
+    
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        count(skipped);
+        return skipped;
+    }
+    
+    private void count(long n) throws IOException {
+        count += n;
+        if (count > limit) {
+            throw new IOException("Response larger than " + limit + " bytes");
+        }
+    }
+    
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,71 @@
+package com.nowplayingirl.client.media;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.util.List;
+
+class DeezerArtProvider extends HttpArtProvider {
+    
+    static final String API = "https://api.deezer.com/search";
+    
+    DeezerArtProvider(HttpClient httpClient, String baseUrl) {
+        super(httpClient, baseUrl);
+    }
+    
+    @Override
+    public String name() {
+        return "Deezer";
+    }
+    
+    @Override
+    protected String searchUrl(String encodedQuery, int limit) {
+        return baseUrl + "?q=" + encodedQuery + "&limit=" + limit;
+    }
+    
+    // {"data": [{"title", "artist": {"name"}, "album": {"cover_medium"}, ...}], "total": n}
+    @Override
+    protected List<ArtCandidate> readCandidates(JsonReader reader, int max) throws IOException {
+        if (!seekArray(reader, "data")) return List.of();
+        return readArray(reader, max, DeezerArtProvider::readTrack);
+    }
+    
+    private static ArtCandidate readTrack(JsonReader reader) throws IOException {
+        String artist = null;
+        String title = null;
+        String artUrl = null;
+        
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "title" -> title = nextStringOrNull(reader);
+                case "artist" -> artist = readNested(reader, "name");
+                case "album" -> artUrl = readNested(reader, "cover_medium");
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        
+        return artUrl == null ? null : new ArtCandidate(artist, title, artUrl);
+    }
+    
+    private static String readNested(JsonReader reader, String field) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+        String value = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals(field)) {
+                value = nextStringOrNull(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return value;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,405 @@
+package com.nowplayingirl.client.media;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Lit les tags d'un fichier audio local (ID3v2, FLAC, MP4) par lectures positionnelles:
+ * seuls l'en-tête et les en-têtes de trames sont lus, jamais l'audio. La pochette intégrée
+ * est repérée par sa position et mappée en mémoire au moment du décodage.
+ * Les résultats sont gardés par (chemin, date de modification, taille).
+ */
+final class EmbeddedTagReader {
+
+    /**
+     * @param pictureOffset position de l'image dans le fichier (0 si aucune)
+     * @param pictureLength taille de l'image en octets (0 si aucune)
+     */
+    record Tags(String artist, String title, String album, long pictureOffset, int pictureLength) {
+        boolean hasPicture() {
+            return pictureLength > 0;
+        }
+    }
+
+    private record CacheKey(Path path, long modified, long size) {}
+
+    private static final int CACHE_SIZE = 64;
+    // Limites de sécurité contre un fichier corrompu
+    private static final int MAX_TEXT_BYTES = 64 * 1024;
+    private static final int MAX_PICTURE_BYTES = 16 * 1024 * 1024;
+    private static final int PICTURE_HEADER_PEEK = 512;
+    // Type de pochette "Front cover" en ID3 et FLAC
+    private static final int FRONT_COVER = 3;
+    private static final Tags NONE = new Tags(null, null, null, 0, 0);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<CacheKey, Tags> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<CacheKey, Tags> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    /**
+     * @return les tags du fichier, ou null si le format n'est pas reconnu
+     */
+    Tags read(Path path) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        CacheKey key = new CacheKey(path, attributes.lastModifiedTime().toMillis(), attributes.size());
+
+        lock.lock();
+        try {
+            Tags cached = cache.get(key);
+            if (cached != null) return cached == NONE ? null : cached;
+        } finally {
+            lock.unlock();
+        }
+
+        Tags tags;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            tags = parse(channel);
+        }
+
+        lock.lock();
+        try {
+            cache.put(key, tags != null ? tags : NONE);
+        } finally {
+            lock.unlock();
+        }
+        return tags;
+    }
+
+    /**
+     * Mappe l'image intégrée sans la copier.
+     */
+    static ByteBuffer mapPicture(Path path, Tags tags) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (tags.pictureOffset() + tags.pictureLength() > channel.size()) {
+                throw new IOException("Embedded picture past end of file");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, tags.pictureOffset(), tags.pictureLength());
+        }
+    }
+
+    static Tags parse(FileChannel channel) throws IOException {
+        ByteBuffer magic = readAt(channel, 0, 12);
+        if (magic.remaining() < 12) return null;
+
+        if (magic.get(0) == 'I' && magic.get(1) == 'D' && magic.get(2) == '3') {
+            return parseId3(channel);
+        }
+        if (magic.get(0) == 'f' && magic.get(1) == 'L' && magic.get(2) == 'a' && magic.get(3) == 'C') {
+            return parseFlac(channel);
+        }
+        if (magic.get(4) == 'f' && magic.get(5) == 't' && magic.get(6) == 'y' && magic.get(7) == 'p') {
+            return parseMp4(channel);
+        }
+        return null;
+    }
+
+    // ===== ID3v2 (MP3) =====
+
+    private static Tags parseId3(FileChannel channel) throws IOException {
+        ByteBuffer header = readAt(channel, 0, 10);
+        int version = header.get(3);
+        int flags = header.get(5) & 0xFF;
+        long tagEnd = 10 + syncsafe(header.getInt(6));
+        if (version < 2 || version > 4) return null;
+        // Désynchronisation de tout le tag: les trames ne sont plus contiguës, cas rare ignoré
+        if ((flags & 0x80) != 0 && version < 4) return null;
+
+        long position = 10;
+        if ((flags & 0x40) != 0 && version >= 3) {
+            int size = readAt(channel, position, 4).getInt();
+            position += version == 4 ? syncsafe(size) : size + 4;
+        }
+
+        int idLength = version == 2 ? 3 : 4;
+        int frameHeaderLength = version == 2 ? 6 : 10;
+        String artist = null;
+        String title = null;
+        String album = null;
+        long pictureOffset = 0;
+        int pictureLength = 0;
+        int pictureType = -1;
+
+        while (position + frameHeaderLength <= tagEnd) {
+            ByteBuffer frame = readAt(channel, position, frameHeaderLength);
+            if (frame.remaining() < frameHeaderLength || frame.get(0) == 0) break; // padding
+
+            String id = ascii(frame, 0, idLength);
+            int size;
+            int frameFlags = 0;
+            if (version == 2) {
+                size = ((frame.get(3) & 0xFF) << 16) | ((frame.get(4) & 0xFF) << 8) | (frame.get(5) & 0xFF);
+            } else {
+                size = version == 4 ? syncsafe(frame.getInt(4)) : frame.getInt(4);
+                frameFlags = frame.getShort(8) & 0xFFFF;
+            }
+            long body = position + frameHeaderLength;
+            if (size <= 0 || body + size > tagEnd) break;
+            position = body + size;
+
+            // Trames compressées, chiffrées ou désynchronisées: ignorées
+            boolean plain = version == 2
+                || (version == 3 && (frameFlags & 0x00C0) == 0)
+                || (version == 4 && (frameFlags & 0x000F) == 0);
+            if (!plain) continue;
+
+            switch (id) {
+                case "TIT2", "TT2" -> title = id3Text(channel, body, size);
+                case "TPE1", "TP1" -> artist = id3Text(channel, body, size);
+                case "TALB", "TAL" -> album = id3Text(channel, body, size);
+                case "APIC", "PIC" -> {
+                    if (pictureType == FRONT_COVER) break;
+                    ByteBuffer peek = readAt(channel, body, Math.min(size, PICTURE_HEADER_PEEK));
+                    int encoding = peek.get(0);
+                    int p = 1;
+                    if (version == 2) {
+                        p += 3; // format sur 3 caractères
+                    } else {
+                        p = skipTerminated(peek, p, 0);
+                    }
+                    if (p < 0 || p >= peek.limit()) break;
+                    int type = peek.get(p++) & 0xFF;
+                    p = skipTerminated(peek, p, encoding);
+                    if (p < 0) break;
+                    pictureOffset = body + p;
+                    pictureLength = size - p;
+                    pictureType = type;
+                }
+                default -> {}
+            }
+        }
+        return tags(artist, title, album, pictureOffset, pictureLength);
+    }
+
+    private static String id3Text(FileChannel channel, long position, int size) throws IOException {
+        if (size < 2 || size > MAX_TEXT_BYTES) return null;
+        ByteBuffer data = readAt(channel, position, size);
+        Charset charset = switch (data.get(0)) {
+            case 1 -> StandardCharsets.UTF_16;
+            case 2 -> StandardCharsets.UTF_16BE;
+            case 3 -> StandardCharsets.UTF_8;
+            default -> StandardCharsets.ISO_8859_1;
+        };
+        String text = new String(data.array(), 1, data.limit() - 1, charset);
+        // ID3v2.4: plusieurs valeurs séparées par un 0, on garde la première
+        int end = text.indexOf('\0');
+        return clean(end >= 0 ? text.substring(0, end) : text);
+    }
+
+    /**
+     * Saute une chaîne terminée par 0 (ou 00 00 en UTF-16).
+     * @return la position qui suit le terminateur, ou -1 s'il est hors de la zone lue
+     */
+    private static int skipTerminated(ByteBuffer buffer, int position, int encoding) {
+        boolean wide = encoding == 1 || encoding == 2;
+        int step = wide ? 2 : 1;
+        for (int p = position; p + step <= buffer.limit(); p += step) {
+            if (buffer.get(p) == 0 && (!wide || buffer.get(p + 1) == 0)) return p + step;
+        }
+        return -1;
+    }
+
+    private static int syncsafe(int value) {
+        return ((value >> 24) & 0x7F) << 21 | ((value >> 16) & 0x7F) << 14 | ((value >> 8) & 0x7F) << 7 | (value & 0x7F);
+    }
+
+    // ===== FLAC =====
+
+    private static Tags parseFlac(FileChannel channel) throws IOException {
+        String artist = null;
+        String title = null;
+        String album = null;
+        long pictureOffset = 0;
+        int pictureLength = 0;
+        int pictureType = -1;
+
+        long position = 4;
+        boolean last = false;
+        while (!last) {
+            ByteBuffer header = readAt(channel, position, 4);
+            if (header.remaining() < 4) break;
+            int first = header.get(0) & 0xFF;
+            last = (first & 0x80) != 0;
+            int type = first & 0x7F;
+            int length = header.getInt(0) & 0xFFFFFF;
+            long body = position + 4;
+            position = body + length;
+
+            if (type == 4 && length <= MAX_TEXT_BYTES) {
+                // VORBIS_COMMENT, en petit-boutiste
+                ByteBuffer block = readAt(channel, body, length).order(ByteOrder.LITTLE_ENDIAN);
+                int vendor = block.getInt();
+                if (vendor < 0 || vendor > block.remaining()) continue;
+                block.position(block.position() + vendor);
+                int count = block.getInt();
+                for (int i = 0; i < count && block.remaining() >= 4; i++) {
+                    int size = block.getInt();
+                    if (size < 0 || size > block.remaining()) break;
+                    String comment = new String(block.array(), block.position(), size, StandardCharsets.UTF_8);
+                    block.position(block.position() + size);
+                    int eq = comment.indexOf('=');
+                    if (eq <= 0) continue;
+                    String value = clean(comment.substring(eq + 1));
+                    switch (comment.substring(0, eq).toUpperCase(Locale.ROOT)) {
+                        case "ARTIST" -> { if (artist == null) artist = value; }
+                        case "TITLE" -> { if (title == null) title = value; }
+                        case "ALBUM" -> { if (album == null) album = value; }
+                        default -> {}
+                    }
+                }
+            } else if (type == 6 && pictureType != FRONT_COVER) {
+                // PICTURE, en gros-boutiste: seul l'en-tête est lu
+                ByteBuffer peek = readAt(channel, body, Math.min(length, PICTURE_HEADER_PEEK));
+                if (peek.remaining() < 8) continue;
+                int pictureKind = peek.getInt();
+                int mimeLength = peek.getInt();
+                if (mimeLength < 0 || mimeLength > peek.remaining() - 4) continue;
+                peek.position(peek.position() + mimeLength);
+                int descriptionLength = peek.getInt();
+                if (descriptionLength < 0 || descriptionLength > peek.remaining() - 20) continue;
+                peek.position(peek.position() + descriptionLength + 16);
+                int dataLength = peek.getInt();
+                if (dataLength <= 0 || peek.position() + (long) dataLength > length) continue;
+                pictureOffset = body + peek.position();
+                pictureLength = dataLength;
+                pictureType = pictureKind;
+            }
+        }
+        return tags(artist, title, album, pictureOffset, pictureLength);
+    }
+
+    // ===== MP4 / M4A =====
+
+    private static Tags parseMp4(FileChannel channel) throws IOException {
+        long[] moov = findAtom(channel, 0, channel.size(), "moov");
+        if (moov == null) return null;
+        long[] udta = findAtom(channel, moov[0], moov[1], "udta");
+        if (udta == null) return tags(null, null, null, 0, 0);
+        long[] meta = findAtom(channel, udta[0], udta[1], "meta");
+        if (meta == null) return tags(null, null, null, 0, 0);
+        // "meta" est un atome complet: 4 octets de version/drapeaux avant ses enfants
+        long[] ilst = findAtom(channel, meta[0] + 4, meta[1], "ilst");
+        if (ilst == null) return tags(null, null, null, 0, 0);
+
+        String artist = null;
+        String title = null;
+        String album = null;
+        long pictureOffset = 0;
+        int pictureLength = 0;
+
+        long position = ilst[0];
+        while (position + 8 <= ilst[1]) {
+            ByteBuffer header = readAt(channel, position, 8);
+            long size = header.getInt(0) & 0xFFFFFFFFL;
+            if (size < 8 || position + size > ilst[1]) break;
+            String name = latin1(header, 4, 4);
+            long[] data = findAtom(channel, position + 8, position + size, "data");
+            position += size;
+            if (data == null) continue;
+
+            // data: type (4), locale (4), puis la valeur
+            long valueStart = data[0] + 8;
+            long valueLength = data[1] - valueStart;
+            if (valueLength <= 0) continue;
+            switch (name) {
+                case "©nam" -> title = mp4Text(channel, valueStart, valueLength);
+                case "©ART" -> artist = mp4Text(channel, valueStart, valueLength);
+                case "©alb" -> album = mp4Text(channel, valueStart, valueLength);
+                case "covr" -> {
+                    if (pictureLength == 0 && valueLength <= MAX_PICTURE_BYTES) {
+                        pictureOffset = valueStart;
+                        pictureLength = (int) valueLength;
+                    }
+                }
+                default -> {}
+            }
+        }
+        return tags(artist, title, album, pictureOffset, pictureLength);
+    }
+
+    /**
+     * Cherche un atome enfant entre start et end, en sautant les autres (mdat compris) sans les lire.
+     * @return {début du contenu, fin de l'atome}, ou null
+     */
+    private static long[] findAtom(FileChannel channel, long start, long end, String type) throws IOException {
+        long position = start;
+        while (position + 8 <= end) {
+            ByteBuffer header = readAt(channel, position, 16);
+            if (header.remaining() < 8) return null;
+            long size = header.getInt(0) & 0xFFFFFFFFL;
+            int headerLength = 8;
+            if (size == 1) {
+                if (header.remaining() < 16) return null;
+                size = header.getLong(8);
+                headerLength = 16;
+            } else if (size == 0) {
+                size = end - position; // jusqu'à la fin du parent
+            }
+            if (size < headerLength || position + size > end) return null;
+            if (latin1(header, 4, 4).equals(type)) {
+                return new long[] { position + headerLength, position + size };
+            }
+            position += size;
+        }
+        return null;
+    }
+
+    private static String mp4Text(FileChannel channel, long position, long length) throws IOException {
+        if (length > MAX_TEXT_BYTES) return null;
+        ByteBuffer data = readAt(channel, position, (int) length);
+        return clean(new String(data.array(), 0, data.limit(), StandardCharsets.UTF_8));
+    }
+
+    // ===== Lecture =====
+
+    /**
+     * Lecture positionnelle: ne déplace pas la position du canal, lit au plus length octets.
+     */
+    private static ByteBuffer readAt(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position + buffer.position());
+            if (n < 0) break;
+        }
+        return buffer.flip();
+    }
+
+    private static Tags tags(String artist, String title, String album, long pictureOffset, int pictureLength) {
+        if (pictureLength > MAX_PICTURE_BYTES) {
+            pictureOffset = 0;
+            pictureLength = 0;
+        }
+        return new Tags(artist, title, album, pictureOffset, pictureLength);
+    }
+
+    private static String ascii(ByteBuffer buffer, int offset, int length) {
+        return new String(buffer.array(), offset, length, StandardCharsets.US_ASCII);
+    }
+
+    private static String latin1(ByteBuffer buffer, int offset, int length) {
+        return new String(buffer.array(), offset, length, StandardCharsets.ISO_8859_1);
+    }
+
+    private static String clean(String value) {
+        // Les tags ID3 finissent souvent par un ou plusieurs 0
+        int end = value.length();
+        while (end > 0 && (value.charAt(end - 1) == 0 || Character.isWhitespace(value.charAt(end - 1)))) end--;
+        String trimmed = value.substring(0, end).strip();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+}
\ No newline at end of file
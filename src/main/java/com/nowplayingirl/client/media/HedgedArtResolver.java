@@ -0,0 +1,172 @@
+package com.nowplayingirl.client.media;
+
+import com.nowplayingirl.NowPlayingIRLMod;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Interroge les fournisseurs du plus sain au plus lent. Si le premier dépasse son
+ * 90e centile de latence, le suivant est lancé en parallèle et la première réponse gagne.
+ * Les fournisseurs dont le disjoncteur est ouvert sont sautés.
+ */
+class HedgedArtResolver {
+    
+    // Bornes du délai avant de lancer la requête de secours
+    private static final long MIN_HEDGE_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+    private static final long MAX_HEDGE_DELAY_NANOS = TimeUnit.SECONDS.toNanos(3);
+    
+    /**
+     * @param artUrl     l'URL trouvée, ou null
+     * @param definitive true si tous les fournisseurs ont répondu "pas de pochette"
+     *                   (et pas seulement échoué, expiré ou été sautés)
+     */
+    record Resolution(String artUrl, boolean definitive) {
+        static final Resolution UNAVAILABLE = new Resolution(null, false);
+    }
+    
+    private record Slot(ArtProvider provider, ProviderHealth health, Semaphore permits) {}
+    
+    private record Outcome(Slot slot, String artUrl, boolean answered) {}
+    
+    private final List<Slot> slots = new ArrayList<>();
+    private final ExecutorService executor;
+    private final Duration searchTimeout;
+    private final AtomicLong upstreamCalls;
+    
+    HedgedArtResolver(ExecutorService executor, Duration searchTimeout, AtomicLong upstreamCalls) {
+        this.executor = executor;
+        this.searchTimeout = searchTimeout;
+        this.upstreamCalls = upstreamCalls;
+    }
+    
+    /**
+     * @param permits appels simultanés max, pour ne pas se faire limiter
+     */
+    HedgedArtResolver add(ArtProvider provider, int permits) {
+        slots.add(new Slot(provider, new ProviderHealth(), new Semaphore(permits)));
+        return this;
+    }
+    
+    Resolution resolve(String artist, String title, long deadline) throws InterruptedException {
+        List<Slot> ordered = new ArrayList<>(slots);
+        ordered.sort(Comparator.comparingDouble(slot -> slot.health().score()));
+        
+        LinkedBlockingQueue<Outcome> outcomes = new LinkedBlockingQueue<>();
+        List<Future<?>> running = new ArrayList<>();
+        int nextIndex = 0;
+        int pending = 0;
+        boolean allAnswered = true;
+        long hedgeAt = deadline;
+        
+        try {
+            while (true) {
+                // Lancer le prochain fournisseur disponible si rien ne tourne ou si le délai de secours est passé
+                long now = System.nanoTime();
+                if (nextIndex < ordered.size() && (pending == 0 || now - hedgeAt >= 0)) {
+                    Slot slot = ordered.get(nextIndex++);
+                    if (!slot.health().tryAcquire(now)) {
+                        // Disjoncteur ouvert: on ne sait pas si ce fournisseur avait la pochette
+                        allAnswered = false;
+                        continue;
+                    }
+                    try {
+                        running.add(executor.submit(() -> call(slot, artist, title, deadline, outcomes)));
+                    } catch (RejectedExecutionException e) {
+                        slot.health().recordAbandoned();
+                        return Resolution.UNAVAILABLE;
+                    }
+                    pending++;
+                    hedgeAt = now + hedgeDelay(slot.health());
+                    continue;
+                }
+                if (pending == 0) {
+                    return allAnswered ? new Resolution(null, true) : Resolution.UNAVAILABLE;
+                }
+                
+                long wakeAt = nextIndex < ordered.size() && hedgeAt - deadline < 0 ? hedgeAt : deadline;
+                Outcome outcome = outcomes.poll(Math.max(0, wakeAt - now), TimeUnit.NANOSECONDS);
+                if (outcome == null) {
+                    if (System.nanoTime() - deadline >= 0) return Resolution.UNAVAILABLE;
+                    continue;
+                }
+                pending--;
+                if (outcome.artUrl() != null) {
+                    return new Resolution(outcome.artUrl(), true);
+                }
+                if (!outcome.answered()) {
+                    allAnswered = false;
+                }
+                // Réponse vide ou erreur: inutile d'attendre le délai de secours
+                hedgeAt = now;
+            }
+        } finally {
+            // Les requêtes perdantes sont interrompues
+            for (Future<?> future : running) {
+                future.cancel(true);
+            }
+        }
+    }
+    
+    private void call(Slot slot, String artist, String title, long deadline, LinkedBlockingQueue<Outcome> outcomes) {
+        ProviderHealth health = slot.health();
+        String artUrl = null;
+        boolean answered = false;
+        boolean acquired = false;
+        try {
+            long remaining = deadline - System.nanoTime();
+            acquired = remaining > 0 && slot.permits().tryAcquire(remaining, TimeUnit.NANOSECONDS);
+            if (!acquired) {
+                health.recordAbandoned();
+                return;
+            }
+            
+            long start = System.nanoTime();
+            try {
+                upstreamCalls.incrementAndGet();
+                artUrl = slot.provider().findArtUrl(artist, title, timeout(deadline));
+                answered = true;
+                health.recordSuccess(System.nanoTime() - start);
+            } catch (RateLimitedException e) {
+                NowPlayingIRLMod.LOGGER.debug("{} rate limited, retry after {}", slot.provider().name(), e.getRetryAfter());
+                health.recordRateLimited(e.getRetryAfter(), System.nanoTime());
+            } catch (InterruptedException e) {
+                health.recordAbandoned();
+            } catch (Exception e) {
+                // Une requête interrompue parce qu'un autre fournisseur a gagné n'est pas une panne
+                if (Thread.currentThread().isInterrupted()) {
+                    health.recordAbandoned();
+                } else {
+                    NowPlayingIRLMod.LOGGER.debug("{} API error: {}", slot.provider().name(), e.getMessage());
+                    long end = System.nanoTime();
+                    health.recordFailure(end - start, end);
+                }
+            }
+        } catch (InterruptedException e) {
+            health.recordAbandoned();
+        } finally {
+            if (acquired) {
+                slot.permits().release();
+            }
+            outcomes.add(new Outcome(slot, artUrl, answered));
+        }
+    }
+    
+    private Duration timeout(long deadline) {
+        long remaining = Math.max(1, deadline - System.nanoTime());
+        return remaining < searchTimeout.toNanos() ? Duration.ofNanos(remaining) : searchTimeout;
+    }
+    
+    private static long hedgeDelay(ProviderHealth health) {
+        return Math.max(MIN_HEDGE_DELAY_NANOS, Math.min(MAX_HEDGE_DELAY_NANOS, health.p90Nanos()));
+    }
+}
\ No newline at end of file
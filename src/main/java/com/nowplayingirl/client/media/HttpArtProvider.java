@@ -0,0 +1,154 @@
+package com.nowplayingirl.client.media;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Base commune des fournisseurs HTTP/JSON: construction de la requête, gestion des statuts
+ * et lecture en flux de la réponse (on s'arrête dès que les premiers résultats sont lus).
+ */
+abstract class HttpArtProvider implements ArtProvider {
+    
+    // Nombre de résultats demandés puis lus
+    static final int CANDIDATE_LIMIT = 5;
+    // Une réponse de recherche fait quelques Ko; au-delà, quelque chose ne va pas
+    static final long MAX_BODY_BYTES = 256 * 1024;
+    
+    protected final HttpClient httpClient;
+    protected final String baseUrl;
+    
+    protected HttpArtProvider(HttpClient httpClient, String baseUrl) {
+        this.httpClient = httpClient;
+        this.baseUrl = baseUrl;
+    }
+    
+    protected abstract String searchUrl(String encodedQuery, int limit);
+    
+    /**
+     * Lit au plus max résultats depuis la racine du document, sans construire l'arbre JSON.
+     */
+    protected abstract List<ArtCandidate> readCandidates(JsonReader reader, int max) throws IOException;
+    
+    @Override
+    public String findArtUrl(String artist, String title, Duration timeout) throws IOException, InterruptedException {
+        // Le meilleur résultat qui ressemble vraiment au morceau, pas forcément le premier
+        ArtCandidate best = TrackNormalizer.best(TrackNormalizer.normalize(artist, title), search(artist, title, timeout));
+        return best != null ? best.artUrl() : null;
+    }
+    
+    List<ArtCandidate> search(String artist, String title, Duration timeout) throws IOException, InterruptedException {
+        String query = URLEncoder.encode((artist + " " + title).strip(), StandardCharsets.UTF_8);
+        
+        HttpRequest request = HttpRequest.newBuilder()
+            .uri(URI.create(searchUrl(query, CANDIDATE_LIMIT)))
+            .timeout(timeout)
+            .GET()
+            .build();
+        
+        HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        
+        // Fermer le flux avant la fin abandonne le reste de la réponse
+        try (InputStream body = response.body()) {
+            if (response.statusCode() == 429) {
+                throw new RateLimitedException(name(), parseRetryAfter(response.headers().firstValue("Retry-After").orElse(null)));
+            }
+            if (response.statusCode() != 200) {
+                throw new IOException(name() + " HTTP " + response.statusCode());
+            }
+            if (response.headers().firstValueAsLong("Content-Length").orElse(0) > MAX_BODY_BYTES) {
+                throw new IOException(name() + " response too large");
+            }
+            return parse(new BoundedInputStream(body, MAX_BODY_BYTES));
+        }
+    }
+    
+    List<ArtCandidate> parse(InputStream body) throws IOException {
+        JsonReader reader = new JsonReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        try {
+            return readCandidates(reader, CANDIDATE_LIMIT);
+        } catch (IllegalStateException | NumberFormatException e) {
+            // JsonReader signale une structure inattendue par des exceptions non vérifiées
+            throw new IOException(name() + " unreadable response: " + e.getMessage(), e);
+        }
+    }
+    
+    // ===== Lecture en flux =====
+    
+    /**
+     * Avance jusqu'au tableau nommé field à la racine de l'objet courant.
+     * @return false si le champ n'existe pas
+     */
+    static boolean seekArray(JsonReader reader, String field) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals(field) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                return true;
+            }
+            reader.skipValue();
+        }
+        return false;
+    }
+    
+    /**
+     * Lit les objets d'un tableau déjà ouvert jusqu'à en avoir max, sans lire la suite.
+     */
+    static List<ArtCandidate> readArray(JsonReader reader, int max, ObjectReader objectReader) throws IOException {
+        List<ArtCandidate> candidates = new ArrayList<>(max);
+        while (candidates.size() < max && reader.hasNext()) {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue();
+                continue;
+            }
+            ArtCandidate candidate = objectReader.read(reader);
+            if (candidate != null && candidate.artUrl() != null && !candidate.artUrl().isEmpty()) {
+                candidates.add(candidate);
+            }
+        }
+        return candidates;
+    }
+    
+    static String nextStringOrNull(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.STRING) {
+            return reader.nextString();
+        }
+        reader.skipValue();
+        return null;
+    }
+    
+    @FunctionalInterface
+    interface ObjectReader {
+        ArtCandidate read(JsonReader reader) throws IOException;
+    }
+    
+    /**
+     * Retry-After: soit un nombre de secondes, soit une date HTTP.
+     */
+    static Duration parseRetryAfter(String value) {
+        if (value == null || value.isBlank()) return null;
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim())));
+        } catch (NumberFormatException ignored) {}
+        try {
+            ZonedDateTime date = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+            Duration wait = Duration.between(ZonedDateTime.now(date.getZone()), date);
+            return wait.isNegative() ? Duration.ZERO : wait;
+        } catch (Exception ignored) {}
+        return null;
+    }
+}
\ No newline at end of file
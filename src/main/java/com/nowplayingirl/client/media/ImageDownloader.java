@@ -0,0 +1,131 @@
+package com.nowplayingirl.client.media;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Téléchargement borné d'une pochette: type et taille vérifiés avant de lire le corps,
+ * lecture dans un tampon réutilisé de taille plafonnée, puis décodage sous-échantillonné
+ * à la taille du HUD. Un serveur lent ne peut pas dépasser le délai de la requête.
+ */
+final class ImageDownloader {
+    
+    // Une pochette de fournisseur fait quelques dizaines de Ko
+    static final int MAX_IMAGE_BYTES = 1024 * 1024;
+    private static final int INITIAL_BUFFER_BYTES = 64 * 1024;
+    // Les tampons agrandis au-delà ne sont pas gardés
+    private static final int MAX_POOLED_BUFFER_BYTES = 256 * 1024;
+    
+    private final HttpClient httpClient;
+    private final ArrayBlockingQueue<byte[]> pool;
+    
+    /**
+     * @param poolSize tampons gardés, au plus un par téléchargement simultané
+     */
+    ImageDownloader(HttpClient httpClient, int poolSize) {
+        this.httpClient = httpClient;
+        this.pool = new ArrayBlockingQueue<>(poolSize);
+    }
+    
+    AlbumArtDecoder.DecodedArt download(String imageUrl, int targetSize, Duration timeout, long deadline)
+            throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+            .uri(URI.create(imageUrl))
+            .timeout(timeout)
+            .GET()
+            .build();
+        
+        HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        
+        try (InputStream body = response.body()) {
+            if (response.statusCode() != 200) {
+                throw new IOException("Image HTTP " + response.statusCode());
+            }
+            // Rejeter sans lire le corps ce qui n'est pas une image ou annonce une taille excessive
+            String contentType = response.headers().firstValue("Content-Type").orElse("");
+            if (!contentType.isEmpty() && !contentType.toLowerCase(Locale.ROOT).startsWith("image/")) {
+                throw new IOException("Not an image: " + contentType);
+            }
+            if (response.headers().firstValueAsLong("Content-Length").orElse(0) > MAX_IMAGE_BYTES) {
+                throw new IOException("Image too large");
+            }
+            
+            Body data = readWithDeadline(new BoundedInputStream(body, MAX_IMAGE_BYTES), deadline);
+            try {
+                return AlbumArtDecoder.decode(data.buffer(), data.length(), targetSize);
+            } finally {
+                release(data.buffer());
+            }
+        }
+    }
+    
+    private record Body(byte[] buffer, int length) {}
+    
+    /**
+     * Lit tout le corps dans un tampon du pool. Si le délai expire pendant une lecture
+     * bloquante (serveur qui envoie goutte à goutte), le thread est interrompu.
+     */
+    private Body readWithDeadline(InputStream body, long deadline) throws IOException {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) throw new IOException("Image download timed out");
+        
+        Thread reader = Thread.currentThread();
+        AtomicBoolean finished = new AtomicBoolean();
+        CompletableFuture<Void> watchdog = CompletableFuture.runAsync(() -> {
+            if (finished.compareAndSet(false, true)) {
+                reader.interrupt();
+            }
+        }, CompletableFuture.delayedExecutor(remaining, TimeUnit.NANOSECONDS, Runnable::run));
+        
+        byte[] buffer = acquire();
+        int length = 0;
+        IOException failure = null;
+        try {
+            int n;
+            while ((n = body.read(buffer, length, buffer.length - length)) >= 0) {
+                length += n;
+                if (length == buffer.length) {
+                    // BoundedInputStream coupe avant que le tampon dépasse MAX_IMAGE_BYTES + 1
+                    buffer = Arrays.copyOf(buffer, Math.min(buffer.length * 2, MAX_IMAGE_BYTES + 1));
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+        } finally {
+            if (!finished.compareAndSet(false, true)) {
+                // Le chien de garde a interrompu la lecture: ne pas laisser le drapeau au thread
+                Thread.interrupted();
+                failure = new IOException("Image download timed out");
+            }
+            watchdog.cancel(false);
+        }
+        
+        if (failure != null || length == 0) {
+            release(buffer);
+            throw failure != null ? failure : new IOException("Empty image");
+        }
+        return new Body(buffer, length);
+    }
+    
+    private byte[] acquire() {
+        byte[] buffer = pool.poll();
+        return buffer != null ? buffer : new byte[INITIAL_BUFFER_BYTES];
+    }
+    
+    private void release(byte[] buffer) {
+        if (buffer.length <= MAX_POOLED_BUFFER_BYTES) {
+            pool.offer(buffer);
+        }
+    }
+}
\ No newline at end of file
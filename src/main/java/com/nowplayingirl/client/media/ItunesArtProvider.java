@@ -0,0 +1,54 @@
+package com.nowplayingirl.client.media;
+
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.util.List;
+
+class ItunesArtProvider extends HttpArtProvider {
+    
+    static final String API = "https://itunes.apple.com/search";
+    
+    ItunesArtProvider(HttpClient httpClient, String baseUrl) {
+        super(httpClient, baseUrl);
+    }
+    
+    @Override
+    public String name() {
+        return "iTunes";
+    }
+    
+    @Override
+    protected String searchUrl(String encodedQuery, int limit) {
+        return baseUrl + "?term=" + encodedQuery + "&media=music&limit=" + limit;
+    }
+    
+    // {"resultCount": n, "results": [{"artistName", "trackName", "artworkUrl100", ...}]}
+    @Override
+    protected List<ArtCandidate> readCandidates(JsonReader reader, int max) throws IOException {
+        if (!seekArray(reader, "results")) return List.of();
+        return readArray(reader, max, ItunesArtProvider::readResult);
+    }
+    
+    private static ArtCandidate readResult(JsonReader reader) throws IOException {
+        String artist = null;
+        String title = null;
+        String artUrl = null;
+        
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "artistName" -> artist = nextStringOrNull(reader);
+                case "trackName" -> title = nextStringOrNull(reader);
+                case "artworkUrl100" -> artUrl = nextStringOrNull(reader);
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        
+        if (artUrl == null) return null;
+        // Obtenir une image plus grande
+        return new ArtCandidate(artist, title, artUrl.replace("100x100", "300x300"));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,234 @@
+package com.nowplayingirl.client.media;
+
+import com.nowplayingirl.NowPlayingIRLMod;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Linux: MPRIS via playerctl
+class LinuxMediaDetector extends MediaDetector {
+
+    // Champs séparés par une tabulation, le titre en dernier (il peut contenir n'importe quoi).
+    // Avec {{position}} dans le format, playerctl --follow écrit une ligne par seconde de lecture:
+    // voir PositionFilter, seuls les changements d'état et les sauts sont transmis, le HUD interpole entre les deux
+    private static final String SEPARATOR = "\t";
+    private static final String FORMAT = String.join(SEPARATOR,
+        "{{status}}", "{{playerName}}", "{{position}}", "{{mpris:length}}", "{{mpris:artUrl}}",
+        "{{xesam:url}}", "{{xesam:album}}", "{{artist}}", "{{title}}");
+    private static final int FIELD_COUNT = 9;
+    private static final int POSITION_FIELD = 2;
+
+    private static final long MIN_RESTART_DELAY_MS = 1000;
+    private static final long MAX_RESTART_DELAY_MS = 30_000;
+    private static final long STABLE_RUN_MS = 60_000;
+
+    private volatile boolean running;
+    private volatile Process follower;
+    private Thread followerThread;
+
+    @Override
+    public MediaInfo detect() {
+        // Lecture ponctuelle, utilisée seulement si le mode --follow est indisponible
+        try {
+            Process p = new ProcessBuilder("playerctl", "metadata", "--format", FORMAT)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+            String result = new String(p.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            return parseLine(result.strip());
+        } catch (Exception ignored) {}
+        return null;
+    }
+
+    /**
+     * Garde un seul "playerctl --follow" vivant: il reste abonné aux signaux
+     * PropertiesChanged de MPRIS et n'écrit une ligne que quand le lecteur change.
+     */
+    @Override
+    public synchronized boolean start(Consumer<MediaInfo> listener) {
+        if (running) return true;
+
+        Process first;
+        try {
+            first = spawnFollower();
+        } catch (IOException e) {
+            NowPlayingIRLMod.LOGGER.info("playerctl --follow unavailable, falling back to polling: {}", e.getMessage());
+            return false;
+        }
+
+        running = true;
+        follower = first;
+        followerThread = new Thread(() -> followLoop(first, listener), "NowPlayingIRL-MprisFollower");
+        followerThread.setDaemon(true);
+        followerThread.start();
+        return true;
+    }
+
+    private Process spawnFollower() throws IOException {
+        return new ProcessBuilder("playerctl", "--follow", "metadata", "--format", FORMAT)
+            .redirectError(ProcessBuilder.Redirect.DISCARD)
+            .start();
+    }
+
+    private void followLoop(Process first, Consumer<MediaInfo> listener) {
+        Process process = first;
+        String lastLine = null;
+        PositionFilter filter = new PositionFilter();
+        long restartDelay = MIN_RESTART_DELAY_MS;
+
+        while (running) {
+            long startedAt = System.nanoTime();
+
+            if (process != null) {
+                try (BufferedReader reader = process.inputReader(StandardCharsets.UTF_8)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        // Même ligne à la position près, et position conforme à la lecture: rien à publier
+                        if (!filter.accept(line, System.nanoTime())) continue;
+                        lastLine = line;
+                        listener.accept(parseLine(line));
+                    }
+                } catch (Exception e) {
+                    NowPlayingIRLMod.LOGGER.debug("MPRIS follower error: {}", e.getMessage());
+                }
+                process.destroy();
+            }
+            if (!running) break;
+
+            // Le processus s'est arrêté (bus de session relancé, playerctl tué...):
+            // on oublie l'état courant et on relance avec un backoff
+            if (lastLine != null && !lastLine.isEmpty()) {
+                lastLine = null;
+                listener.accept(null);
+            }
+            filter.reset();
+            if (TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt) > STABLE_RUN_MS) {
+                restartDelay = MIN_RESTART_DELAY_MS;
+            }
+
+            try {
+                Thread.sleep(restartDelay);
+            } catch (InterruptedException e) {
+                break;
+            }
+            restartDelay = Math.min(restartDelay * 2, MAX_RESTART_DELAY_MS);
+
+            try {
+                process = spawnFollower();
+                follower = process;
+            } catch (IOException e) {
+                NowPlayingIRLMod.LOGGER.debug("Failed to restart playerctl: {}", e.getMessage());
+                process = null;
+            }
+        }
+    }
+
+    /**
+     * Trie les lignes de playerctl --follow: une ligne n'est transmise que si un autre champ
+     * que la position a changé, ou si la position s'écarte de celle extrapolée depuis la
+     * dernière ligne transmise (saut dans le morceau, dérive du lecteur).
+     */
+    static final class PositionFilter {
+
+        // Au-delà de cet écart avec la position attendue, c'est un saut
+        static final long SEEK_TOLERANCE_MS = 1500;
+
+        private String lastKey;
+        private long lastPositionMs = -1;
+        private long lastSampledAt;
+        private boolean lastPlaying;
+
+        /**
+         * @return true si la ligne doit être publiée
+         */
+        boolean accept(String line, long nanoTime) {
+            String[] parts = line.split(SEPARATOR, FIELD_COUNT);
+            long position = -1;
+            String key = line;
+            if (parts.length == FIELD_COUNT) {
+                position = parsePositionMs(parts[POSITION_FIELD].trim());
+                parts[POSITION_FIELD] = "";
+                key = String.join(SEPARATOR, parts);
+            }
+
+            if (key.equals(lastKey)) {
+                if (position < 0 || lastPositionMs < 0) return false;
+                long elapsedMs = lastPlaying ? (nanoTime - lastSampledAt) / 1_000_000 : 0;
+                if (Math.abs(position - (lastPositionMs + elapsedMs)) <= SEEK_TOLERANCE_MS) return false;
+            }
+
+            lastKey = key;
+            lastPositionMs = position;
+            lastSampledAt = nanoTime;
+            lastPlaying = parts.length == FIELD_COUNT && "Playing".equals(parts[0].trim());
+            return true;
+        }
+
+        void reset() {
+            lastKey = null;
+            lastPositionMs = -1;
+        }
+    }
+
+    /**
+     * @param micros position MPRIS en microsecondes
+     * @return la position en millisecondes, ou -1 si absente ou invalide
+     */
+    private static long parsePositionMs(String micros) {
+        if (micros.isEmpty()) return -1;
+        try {
+            return Math.max(0, Long.parseLong(micros) / 1000);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    static MediaInfo parseLine(String line) {
+        // Ligne vide: plus aucun lecteur sur le bus
+        if (line == null || line.isBlank()) return null;
+
+        String[] parts = line.split(SEPARATOR, FIELD_COUNT);
+        if (parts.length < FIELD_COUNT) return null;
+
+        String status = parts[0].trim();
+        String player = parts[1].trim();
+        String position = parts[2].trim();
+        String length = parts[3].trim();
+        String artUrl = parts[4].trim();
+        String trackUrl = parts[5].trim();
+        String album = parts[6].trim();
+        String artist = parts[7].trim();
+        String title = parts[8].trim();
+
+        if ("Stopped".equals(status) || (artist.isEmpty() && title.isEmpty())) return null;
+
+        MediaInfo info = new MediaInfo(title, artist, player.isEmpty() ? "Unknown" : player);
+        info.setPlaying("Playing".equals(status));
+        if (!album.isEmpty()) info.setAlbum(album);
+        // Pochette publiée par le lecteur: souvent un fichier local, sinon une URL de son service
+        if (!artUrl.isEmpty()) info.setArtUrl(artUrl);
+        // Fichier local: sa pochette intégrée sera lue directement
+        if (!trackUrl.isEmpty()) info.setTrackUrl(trackUrl);
+        // mpris:length et position sont en microsecondes
+        try {
+            if (!length.isEmpty()) info.setDurationMs(Long.parseLong(length) / 1000);
+        } catch (NumberFormatException ignored) {}
+        long positionMs = parsePositionMs(position);
+        if (positionMs >= 0) info.setPositionMs(positionMs);
+        return info;
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        running = false;
+        Process p = follower;
+        if (p != null) {
+            p.destroy();
+        }
+        if (followerThread != null) {
+            followerThread.interrupt();
+        }
+    }
+}
\ No newline at end of file
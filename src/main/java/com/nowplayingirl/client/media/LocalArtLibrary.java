@@ -0,0 +1,582 @@
+package com.nowplayingirl.client.media;
+
+import com.nowplayingirl.NowPlayingIRLMod;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Bibliothèque locale de pochettes: les cover.jpg/folder.png rangés à côté de la musique.
+ * L'index "artiste|album" -> dossier est persisté pour être disponible dès le démarrage;
+ * un parcours parallèle (fork/join) le réconcilie et enregistre chaque dossier auprès d'un
+ * WatchService, qui le tient ensuite à jour dossier par dossier, sans re-parcours complet.
+ * Au démarrage, un dossier dont la date de modification n'a pas bougé depuis l'index n'est
+ * pas relu: sa pochette et ses sous-dossiers sont repris de l'index.
+ */
+public class LocalArtLibrary {
+
+    private static final int INDEX_MAGIC = 0x4E504C49; // "NPLI"
+    private static final int VERSION = 2;
+
+    // Par ordre de préférence; à défaut, n'importe quelle image du dossier
+    private static final List<String> COVER_NAMES = List.of("cover", "folder", "front", "album", "albumart");
+    private static final Set<String> IMAGE_EXTENSIONS = Set.of("jpg", "jpeg", "png");
+    // Extensions courantes dans une bibliothèque: pas besoin de vérifier si c'est un dossier
+    private static final Set<String> FILE_EXTENSIONS = Set.of(
+        "mp3", "flac", "m4a", "aac", "ogg", "opus", "wav", "wma", "alac", "ape", "wv",
+        "jpg", "jpeg", "png", "gif", "bmp", "webp", "txt", "nfo", "cue", "log", "lrc", "m3u", "m3u8", "pdf");
+    // "CD1", "Disc 2": l'album est le dossier parent
+    private static final Pattern DISC_FOLDER = Pattern.compile("(?i)^(cd|dis[ck])\\s*\\d+$");
+    private static final String ARTIST_ALBUM_SEPARATOR = " - ";
+
+    private static final long SAVE_DELAY_MS = 30_000;
+    // Résolution des dates de modification (2 s en FAT): un dossier modifié juste avant
+    // son listing pourrait changer encore sans que sa date bouge, il sera relu
+    private static final long MODIFIED_GRANULARITY_MS = 2_000;
+    private static final long UNKNOWN_MODIFIED = -1;
+
+    /**
+     * Dossier déjà listé.
+     * @param modified date de modification au moment du listing, ou UNKNOWN_MODIFIED pour toujours le relire
+     * @param children sous-dossiers trouvés
+     */
+    private record Folder(long modified, List<String> children) {}
+
+    private final List<Path> roots;
+    private final Path indexFile;
+    private final ForkJoinPool pool;
+
+    // dossier -> nom du fichier de pochette
+    private final Map<String, String> covers = new ConcurrentHashMap<>();
+    // "artiste|album" et "|album" (clés pliées) -> dossier
+    private final Map<String, String> byKey = new ConcurrentHashMap<>();
+    // dossier -> date de modification et sous-dossiers, pour ne pas relire un dossier inchangé
+    private final Map<String, Folder> folders = new ConcurrentHashMap<>();
+    private final Map<WatchKey, Path> watchedDirs = new ConcurrentHashMap<>();
+    private final AtomicBoolean watchFailureLogged = new AtomicBoolean();
+
+    private volatile boolean running;
+    private volatile boolean dirty;
+    private volatile boolean scanned;
+    private WatchService watchService;
+    private Thread thread;
+
+    public LocalArtLibrary(List<Path> roots, Path indexFile) {
+        this.roots = List.copyOf(roots);
+        this.indexFile = indexFile;
+        // Le parcours est limité par le disque: inutile d'occuper tous les coeurs
+        this.pool = new ForkJoinPool(Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2)));
+    }
+
+    /**
+     * Charge l'index persisté puis lance la réconciliation et la surveillance en arrière-plan.
+     */
+    public synchronized void start() {
+        if (running || roots.isEmpty()) return;
+        running = true;
+
+        thread = new Thread(this::run, "NowPlayingIRL-ArtLibrary");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    public synchronized void close() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+        try {
+            if (watchService != null) watchService.close();
+        } catch (IOException ignored) {}
+        pool.shutdownNow();
+        if (dirty) save();
+    }
+
+    /**
+     * @return la pochette du dossier du morceau, sinon celle de l'album dans la bibliothèque, ou null
+     */
+    public Path find(String artist, String album, Path trackDir) {
+        if (trackDir != null) {
+            Path sibling = findInDirectory(trackDir);
+            if (sibling != null) return sibling;
+        }
+        if (album == null || album.isBlank()) return null;
+
+        String albumKey = foldAlbum(album);
+        String dir = byKey.get(foldArtist(artist) + "|" + albumKey);
+        if (dir == null && artist != null) {
+            // "Artiste feat. Invité": l'album peut être rangé sous le nom de l'invité
+            for (String guest : TrackNormalizer.normalize(artist, "").featured()) {
+                dir = byKey.get(TrackNormalizer.fold(guest) + "|" + albumKey);
+                if (dir != null) break;
+            }
+        }
+        if (dir == null) dir = byKey.get("|" + albumKey);
+        return dir != null ? coverPath(dir) : null;
+    }
+
+    private Path findInDirectory(Path dir) {
+        // Dossier indexé: aucune entrée-sortie
+        Path indexed = coverPath(dir.toString());
+        if (indexed != null) return indexed;
+
+        // Hors bibliothèque: un seul listing, et le parent pour les dossiers "CD1"
+        String cover = bestCover(dir);
+        if (cover != null) return dir.resolve(cover);
+        Path parent = dir.getParent();
+        if (parent != null && DISC_FOLDER.matcher(dir.getFileName().toString()).matches()) {
+            cover = bestCover(parent);
+            if (cover != null) return parent.resolve(cover);
+        }
+        return null;
+    }
+
+    private Path coverPath(String dir) {
+        String cover = covers.get(dir);
+        return cover != null ? Path.of(dir, cover) : null;
+    }
+
+    public int getCoverCount() {
+        return covers.size();
+    }
+
+    /**
+     * @return true une fois la réconciliation du démarrage terminée et l'index enregistré
+     */
+    boolean isScanned() {
+        return scanned;
+    }
+
+    // ===== Parcours =====
+
+    private void run() {
+        try {
+            scanAndWatch();
+        } catch (RuntimeException e) {
+            // Pool arrêté pendant la fermeture, ou erreur inattendue: la bibliothèque reste utilisable telle quelle
+            if (running) NowPlayingIRLMod.LOGGER.warn("Local art library stopped: {}", e.getMessage());
+        }
+    }
+
+    private void scanAndWatch() {
+        if (load()) {
+            NowPlayingIRLMod.LOGGER.info("Local art library index loaded: {} covers", covers.size());
+        }
+
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+        } catch (IOException e) {
+            NowPlayingIRLMod.LOGGER.warn("Local art library cannot watch for changes: {}", e.getMessage());
+        }
+
+        // Réconciliation: ce qui a changé pendant que le jeu était fermé
+        long start = System.nanoTime();
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        for (Path root : roots) {
+            if (!running) return;
+            if (Files.isDirectory(root)) {
+                pool.invoke(new ScanTask(root, seen, true));
+            }
+        }
+        // Parcours interrompu par la fermeture: ne rien conclure d'un arbre incomplet
+        if (!running) return;
+        for (String dir : new ArrayList<>(covers.keySet())) {
+            if (!seen.contains(dir)) removeCover(dir);
+        }
+        folders.keySet().retainAll(seen);
+        dirty = true;
+        save();
+        scanned = true;
+        NowPlayingIRLMod.LOGGER.info("Local art library scanned in {} ms: {} covers, {} folders",
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), covers.size(), seen.size());
+
+        if (watchService != null) {
+            watchLoop();
+        }
+    }
+
+    private class ScanTask extends RecursiveAction {
+
+        private final Path dir;
+        private final Set<String> seen;
+        // Réconciliation au démarrage: un dossier inchangé depuis l'index n'est pas relu
+        private final boolean trustIndex;
+
+        ScanTask(Path dir, Set<String> seen, boolean trustIndex) {
+            this.dir = dir;
+            this.seen = seen;
+            this.trustIndex = trustIndex;
+        }
+
+        @Override
+        protected void compute() {
+            if (!running) return;
+            String key = dir.toString();
+            long modified = lastModified(dir);
+            List<ScanTask> children = new ArrayList<>();
+
+            Folder indexed = folders.get(key);
+            if (trustIndex && indexed != null && modified != UNKNOWN_MODIFIED && indexed.modified() == modified) {
+                // Aucune entrée ajoutée, supprimée ou renommée: la pochette de l'index est toujours la bonne
+                seen.add(key);
+                watch(dir);
+                for (String child : indexed.children()) {
+                    children.add(new ScanTask(Path.of(child), seen, true));
+                }
+                invokeAll(children);
+                return;
+            }
+
+            List<String> childDirs = new ArrayList<>();
+            String best = null;
+            int bestRank = Integer.MAX_VALUE;
+
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                for (Path entry : entries) {
+                    String name = entry.getFileName().toString();
+                    int rank = coverRank(name);
+                    if (rank >= 0) {
+                        if (rank < bestRank) {
+                            best = name;
+                            bestRank = rank;
+                        }
+                    } else if (!FILE_EXTENSIONS.contains(extension(name))
+                        && Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+                        children.add(new ScanTask(entry, seen, trustIndex));
+                        childDirs.add(entry.toString());
+                    }
+                }
+            } catch (IOException | DirectoryIteratorException e) {
+                return;
+            }
+
+            seen.add(key);
+            if (best != null) {
+                putCover(key, best);
+            } else {
+                removeCover(key);
+            }
+            boolean settled = modified != UNKNOWN_MODIFIED
+                && System.currentTimeMillis() - modified > MODIFIED_GRANULARITY_MS;
+            folders.put(key, new Folder(settled ? modified : UNKNOWN_MODIFIED, List.copyOf(childDirs)));
+            watch(dir);
+            invokeAll(children);
+        }
+    }
+
+    private static long lastModified(Path dir) {
+        try {
+            return Files.getLastModifiedTime(dir, LinkOption.NOFOLLOW_LINKS).toMillis();
+        } catch (IOException e) {
+            return UNKNOWN_MODIFIED;
+        }
+    }
+
+    /**
+     * Relit un seul dossier (image ajoutée, renommée ou supprimée).
+     */
+    private void rescanDirectory(Path dir) {
+        String cover = bestCover(dir);
+        if (cover != null) {
+            putCover(dir.toString(), cover);
+        } else {
+            removeCover(dir.toString());
+        }
+        dirty = true;
+    }
+
+    private static String bestCover(Path dir) {
+        String best = null;
+        int bestRank = Integer.MAX_VALUE;
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+            for (Path entry : entries) {
+                String name = entry.getFileName().toString();
+                int rank = coverRank(name);
+                if (rank >= 0 && rank < bestRank) {
+                    best = name;
+                    bestRank = rank;
+                }
+            }
+        } catch (IOException | DirectoryIteratorException ignored) {}
+        return best;
+    }
+
+    /**
+     * @return rang de préférence (0 = meilleur) ou -1 si ce n'est pas une image
+     */
+    private static int coverRank(String fileName) {
+        String extension = extension(fileName);
+        if (!IMAGE_EXTENSIONS.contains(extension)) return -1;
+        String base = fileName.substring(0, fileName.length() - extension.length() - 1).toLowerCase(Locale.ROOT);
+        int rank = COVER_NAMES.indexOf(base);
+        return rank >= 0 ? rank : COVER_NAMES.size();
+    }
+
+    private static String extension(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(dot + 1).toLowerCase(Locale.ROOT) : "";
+    }
+
+    // ===== Index =====
+
+    private void putCover(String dir, String cover) {
+        String previous = covers.put(dir, cover);
+        if (previous == null) {
+            for (String key : keysFor(dir)) {
+                byKey.putIfAbsent(key, dir);
+            }
+        }
+    }
+
+    private void removeCover(String dir) {
+        if (covers.remove(dir) != null) {
+            for (String key : keysFor(dir)) {
+                byKey.remove(key, dir);
+            }
+        }
+    }
+
+    /**
+     * Artiste/Album/, Artiste/Album/CD1/ ou "Artiste - Album"/.
+     */
+    private static List<String> keysFor(String dir) {
+        Path path = Path.of(dir);
+        Path albumDir = path;
+        if (path.getFileName() != null && DISC_FOLDER.matcher(path.getFileName().toString()).matches()
+            && path.getParent() != null) {
+            albumDir = path.getParent();
+        }
+        if (albumDir.getFileName() == null) return List.of();
+
+        String album = albumDir.getFileName().toString();
+        Path artistDir = albumDir.getParent();
+        String artist = artistDir != null && artistDir.getFileName() != null ? artistDir.getFileName().toString() : "";
+
+        List<String> keys = new ArrayList<>(4);
+        keys.add(foldArtist(artist) + "|" + foldAlbum(album));
+        keys.add("|" + foldAlbum(album));
+        int separator = album.indexOf(ARTIST_ALBUM_SEPARATOR);
+        if (separator > 0) {
+            String splitAlbum = album.substring(separator + ARTIST_ALBUM_SEPARATOR.length());
+            keys.add(foldArtist(album.substring(0, separator)) + "|" + foldAlbum(splitAlbum));
+            keys.add("|" + foldAlbum(splitAlbum));
+        }
+        return keys;
+    }
+
+    private static String foldArtist(String artist) {
+        return artist == null ? "" : TrackNormalizer.fold(TrackNormalizer.normalize(artist, "").artist());
+    }
+
+    // "Album (Deluxe Edition) [Remastered]" et "Album" partagent la même clé
+    private static String foldAlbum(String album) {
+        return TrackNormalizer.fold(TrackNormalizer.normalize("", album).title());
+    }
+
+    // ===== Surveillance =====
+
+    private void watch(Path dir) {
+        if (watchService == null) return;
+        try {
+            WatchKey key = dir.register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+            watchedDirs.put(key, dir);
+        } catch (ClosedWatchServiceException e) {
+            // Fermeture en cours
+        } catch (IOException e) {
+            // Le plus souvent la limite de surveillances du système (inotify sous Linux):
+            // signalé une fois, les dossiers suivants échoueront de la même façon
+            if (watchFailureLogged.compareAndSet(false, true)) {
+                NowPlayingIRLMod.LOGGER.warn("Local art library cannot watch {}, changes in it and further folders may be missed: {}",
+                    dir, e.getMessage());
+            } else {
+                NowPlayingIRLMod.LOGGER.debug("Cannot watch {}: {}", dir, e.getMessage());
+            }
+        }
+    }
+
+    private void watchLoop() {
+        long lastSave = System.currentTimeMillis();
+        while (running) {
+            WatchKey key;
+            try {
+                key = watchService.poll(SAVE_DELAY_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                break;
+            }
+
+            if (key != null) {
+                Path dir = watchedDirs.get(key);
+                if (dir != null) {
+                    handleEvents(dir, key.pollEvents());
+                }
+                if (!key.reset()) {
+                    // Dossier supprimé ou démonté
+                    watchedDirs.remove(key);
+                    if (dir != null) forgetTree(dir);
+                }
+            }
+
+            // Sauvegarde groupée, au plus toutes les SAVE_DELAY_MS
+            if (dirty && System.currentTimeMillis() - lastSave >= SAVE_DELAY_MS) {
+                save();
+                lastSave = System.currentTimeMillis();
+            }
+        }
+    }
+
+    private void handleEvents(Path dir, List<WatchEvent<?>> events) {
+        boolean imagesChanged = false;
+        for (WatchEvent<?> event : events) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // Événements perdus: seul ce sous-arbre est relu
+                pool.invoke(new ScanTask(dir, ConcurrentHashMap.newKeySet(), false));
+                dirty = true;
+                return;
+            }
+            Path child = dir.resolve((Path) event.context());
+            String name = child.getFileName().toString();
+
+            if (coverRank(name) >= 0) {
+                imagesChanged = true;
+            } else if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+                && Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                // Nouveau dossier (album copié): parcours de ce seul sous-arbre
+                pool.invoke(new ScanTask(child, ConcurrentHashMap.newKeySet(), false));
+                dirty = true;
+            } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                forgetTree(child);
+            }
+        }
+        if (imagesChanged) {
+            rescanDirectory(dir);
+        }
+    }
+
+    private void forgetTree(Path dir) {
+        String prefix = dir.toString();
+        String childPrefix = prefix + dir.getFileSystem().getSeparator();
+        for (String indexed : new ArrayList<>(covers.keySet())) {
+            if (indexed.equals(prefix) || indexed.startsWith(childPrefix)) {
+                removeCover(indexed);
+                dirty = true;
+            }
+        }
+        if (folders.keySet().removeIf(indexed -> indexed.equals(prefix) || indexed.startsWith(childPrefix))) {
+            dirty = true;
+        }
+    }
+
+    // ===== Persistance =====
+
+    /**
+     * Format: en-tête, racines, puis tous les dossiers parcourus, triés, chacun stocké comme
+     * (longueur du préfixe commun avec le précédent, suffixe, nom de la pochette ou "",
+     * date de modification), compressé. Les sous-dossiers se déduisent des chemins au chargement.
+     */
+    private synchronized void save() {
+        if (indexFile == null) return;
+        dirty = false;
+        Set<String> known = new HashSet<>(folders.keySet());
+        known.addAll(covers.keySet());
+        String[] dirs = known.toArray(new String[0]);
+        Arrays.sort(dirs);
+
+        try {
+            Files.createDirectories(indexFile.getParent());
+            Path tmp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(Files.newOutputStream(tmp))))) {
+                out.writeInt(INDEX_MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(roots.size());
+                for (Path root : roots) {
+                    out.writeUTF(root.toString());
+                }
+
+                out.writeInt(dirs.length);
+                String previous = "";
+                for (String dir : dirs) {
+                    Folder folder = folders.get(dir);
+                    int common = commonPrefix(previous, dir);
+                    out.writeShort(common);
+                    out.writeUTF(dir.substring(common));
+                    out.writeUTF(covers.getOrDefault(dir, ""));
+                    out.writeLong(folder != null ? folder.modified() : UNKNOWN_MODIFIED);
+                    previous = dir;
+                }
+            }
+            Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            NowPlayingIRLMod.LOGGER.debug("Failed to save local art library index: {}", e.getMessage());
+        }
+    }
+
+    private boolean load() {
+        if (indexFile == null || !Files.exists(indexFile)) return false;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(indexFile))))) {
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != VERSION) return false;
+
+            // Racines modifiées dans la config: l'ancien index ne vaut plus rien
+            int rootCount = in.readInt();
+            if (rootCount != roots.size()) return false;
+            for (Path root : roots) {
+                if (!in.readUTF().equals(root.toString())) return false;
+            }
+
+            int count = in.readInt();
+            String previous = "";
+            Map<String, Long> modified = new HashMap<>();
+            Map<String, List<String>> children = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                int common = in.readUnsignedShort();
+                if (common > previous.length()) throw new IOException("Corrupt folder entry");
+                String dir = previous.substring(0, common) + in.readUTF();
+                String cover = in.readUTF();
+                if (!cover.isEmpty()) putCover(dir, cover);
+                modified.put(dir, in.readLong());
+                Path parent = Path.of(dir).getParent();
+                if (parent != null) {
+                    children.computeIfAbsent(parent.toString(), k -> new ArrayList<>()).add(dir);
+                }
+                previous = dir;
+            }
+            modified.forEach((dir, time) ->
+                folders.put(dir, new Folder(time, List.copyOf(children.getOrDefault(dir, List.of())))));
+            return true;
+        } catch (IOException | RuntimeException e) {
+            NowPlayingIRLMod.LOGGER.debug("Ignoring unreadable local art library index: {}", e.getMessage());
+            covers.clear();
+            byKey.clear();
+            folders.clear();
+            return false;
+        }
+    }
+
+    private static int commonPrefix(String a, String b) {
+        int max = Math.min(Math.min(a.length(), b.length()), 0xFFFF);
+        int i = 0;
+        while (i < max && a.charAt(i) == b.charAt(i)) i++;
+        return i;
+    }
+}
\ No newline at end of file
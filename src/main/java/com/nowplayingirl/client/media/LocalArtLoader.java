@@ -0,0 +1,56 @@
+package com.nowplayingirl.client.media;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Charge une pochette locale (mpris:artUrl en file://): fichier mappé en mémoire
+ * puis décodé à la taille du HUD, sur le thread appelant (jamais le thread de rendu).
+ */
+final class LocalArtLoader {
+    
+    // Une image de pochette, pas un fichier audio pointé par erreur
+    private static final long MAX_FILE_BYTES = 32L * 1024 * 1024;
+    
+    private LocalArtLoader() {}
+    
+    static boolean isLocal(String artUrl) {
+        return artUrl != null && artUrl.regionMatches(true, 0, "file:", 0, 5);
+    }
+    
+    static boolean isRemote(String artUrl) {
+        return artUrl != null
+            && (artUrl.regionMatches(true, 0, "http://", 0, 7) || artUrl.regionMatches(true, 0, "https://", 0, 8));
+    }
+    
+    static AlbumArtDecoder.DecodedArt load(String fileUrl, int targetSize) throws IOException {
+        return load(toPath(fileUrl), targetSize);
+    }
+    
+    static Path toPath(String fileUrl) throws IOException {
+        try {
+            return Path.of(URI.create(fileUrl));
+        } catch (IllegalArgumentException | FileSystemNotFoundException e) {
+            throw new IOException("Invalid file URL: " + fileUrl, e);
+        }
+    }
+    
+    static AlbumArtDecoder.DecodedArt load(Path path, int targetSize) throws IOException {
+        if (!Files.isRegularFile(path)) throw new IOException("No art file at " + path);
+        
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0 || size > MAX_FILE_BYTES) throw new IOException("Unsupported art file size " + size);
+            
+            // Le mapping reste valide après fermeture du canal; seules les pages lues sont chargées
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return AlbumArtDecoder.decode(data, targetSize);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,136 @@
+package com.nowplayingirl.client.media;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Lecture des fichiers .lrc: "[mm:ss.xx]texte", plusieurs horodatages par ligne,
+ * balise [offset:ms]. Les minutages mot à mot du format étendu ("<mm:ss.xx>")
+ * sont retirés ici, une seule fois: le HUD n'affiche que la ligne.
+ * Un crochet qui n'est ni un horodatage ni une balise connue ("[Chorus]") fait partie du texte.
+ */
+final class LrcParser {
+
+    private static final Pattern WORD_TIMING = Pattern.compile("<\\d+:\\d+(?:[.:]\\d+)?>");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    // Balises d'en-tête du format ("[ar:Artiste]"), ignorées sauf offset
+    private static final Set<String> ID_TAGS = Set.of("ar", "al", "ti", "au", "by", "offset", "length", "re", "ve", "tool", "#");
+
+    private record Line(long time, String text) {}
+
+    private LrcParser() {}
+
+    /**
+     * @return les paroles, ou null si le fichier ne contient aucune ligne horodatée
+     */
+    static Lyrics parse(String content) {
+        List<Line> parsed = new ArrayList<>();
+        long offset = 0;
+
+        for (String raw : content.split("\r?\n|\r")) {
+            String line = raw.strip();
+            if (!line.isEmpty() && line.charAt(0) == '\uFEFF') line = line.substring(1);
+
+            // Horodatages en tête de ligne; le texte commence après le dernier
+            List<Long> stamps = new ArrayList<>(1);
+            int pos = 0;
+            while (pos < line.length() && line.charAt(pos) == '[') {
+                int end = line.indexOf(']', pos);
+                if (end < 0) break;
+                String tag = line.substring(pos + 1, end);
+                long time = parseTime(tag);
+                if (time >= 0) {
+                    stamps.add(time);
+                } else if (tag.regionMatches(true, 0, "offset:", 0, 7)) {
+                    offset = parseOffset(tag.substring(7).strip(), offset);
+                } else if (!isIdTag(tag)) {
+                    break;
+                }
+                pos = end + 1;
+            }
+            if (stamps.isEmpty()) continue;
+
+            String text = WORD_TIMING.matcher(line.substring(pos)).replaceAll("");
+            text = WHITESPACE.matcher(text).replaceAll(" ").strip();
+            for (long time : stamps) {
+                parsed.add(new Line(time, text));
+            }
+        }
+        if (parsed.isEmpty()) return null;
+
+        // Tri stable: à horodatage égal, la dernière ligne du fichier l'emporte
+        parsed.sort(Comparator.comparingLong(Line::time));
+        long[] times = new long[parsed.size()];
+        String[] lines = new String[parsed.size()];
+        int count = 0;
+        for (Line line : parsed) {
+            // Offset positif: les paroles arrivent plus tôt
+            long time = Math.max(0, line.time() - offset);
+            if (count > 0 && times[count - 1] == time) {
+                lines[count - 1] = line.text();
+                continue;
+            }
+            times[count] = time;
+            lines[count] = line.text();
+            count++;
+        }
+        return new Lyrics(Arrays.copyOf(times, count), Arrays.copyOf(lines, count));
+    }
+
+    /**
+     * "mm:ss", "mm:ss.x", "mm:ss.xx", "mm:ss.xxx" ou "mm:ss:xx".
+     * @return le temps en millisecondes, -1 si ce n'est pas un horodatage
+     */
+    static long parseTime(String tag) {
+        int colon = tag.indexOf(':');
+        if (colon <= 0) return -1;
+        long minutes = parseDigits(tag, 0, colon);
+        if (minutes < 0) return -1;
+
+        int fraction = colon + 1;
+        while (fraction < tag.length() && Character.isDigit(tag.charAt(fraction))) fraction++;
+        long seconds = parseDigits(tag, colon + 1, fraction);
+        if (seconds < 0 || seconds >= 60) return -1;
+
+        long millis = 0;
+        if (fraction < tag.length()) {
+            char separator = tag.charAt(fraction);
+            if (separator != '.' && separator != ':') return -1;
+            int digits = tag.length() - fraction - 1;
+            long value = parseDigits(tag, fraction + 1, tag.length());
+            if (value < 0 || digits > 3) return -1;
+            // Centièmes (le plus courant), dixièmes ou millièmes
+            millis = digits == 1 ? value * 100 : digits == 2 ? value * 10 : value;
+        }
+        return (minutes * 60 + seconds) * 1000 + millis;
+    }
+
+    private static boolean isIdTag(String tag) {
+        int colon = tag.indexOf(':');
+        return colon > 0 && ID_TAGS.contains(tag.substring(0, colon).strip().toLowerCase(Locale.ROOT));
+    }
+
+    private static long parseOffset(String value, long fallback) {
+        try {
+            return Long.parseLong(value.startsWith("+") ? value.substring(1) : value);
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    private static long parseDigits(String s, int start, int end) {
+        if (start >= end || end - start > 6) return -1;
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.nowplayingirl.client.media;
+
+import java.util.Arrays;
+
+/**
+ * Paroles synchronisées d'un morceau, déjà analysées: horodatages triés dans un long[]
+ * et table des lignes en parallèle. Trouver la ligne courante est une recherche
+ * dichotomique, sans allocation, quelle que soit la taille du fichier.
+ */
+public final class Lyrics {
+
+    private final long[] times;
+    private final String[] lines;
+
+    Lyrics(long[] times, String[] lines) {
+        this.times = times;
+        this.lines = lines;
+    }
+
+    public int size() {
+        return times.length;
+    }
+
+    /**
+     * @return l'indice de la ligne chantée à positionMs, ou -1 avant la première
+     */
+    public int indexAt(long positionMs) {
+        // Horodatages uniques: une correspondance exacte désigne directement la ligne
+        int index = Arrays.binarySearch(times, positionMs);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    public long timeAt(int index) {
+        return times[index];
+    }
+
+    /**
+     * @return le texte de la ligne, vide pour un passage instrumental
+     */
+    public String lineAt(int index) {
+        return lines[index];
+    }
+}
\ No newline at end of file
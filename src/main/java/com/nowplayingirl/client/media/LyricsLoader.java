@@ -0,0 +1,217 @@
+package com.nowplayingirl.client.media;
+
+import com.nowplayingirl.NowPlayingIRLMod;
+import com.nowplayingirl.client.config.ModConfig;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Trouve et analyse les paroles synchronisées (.lrc) d'un morceau, hors du thread de rendu:
+ * fichier voisin du morceau (même nom, extension .lrc), sinon dossier de paroles configuré
+ * ("Artiste - Titre.lrc" ou "Titre.lrc"). Le fichier du morceau suivant dans le dossier est
+ * analysé d'avance pour que ses paroles soient prêtes au changement de piste.
+ */
+public class LyricsLoader {
+
+    private record CacheKey(Path path, long modified, long size) {}
+
+    private static final int CACHE_SIZE = 16;
+    // Un .lrc karaoké fait quelques centaines de Ko; au-delà ce n'est pas des paroles
+    private static final long MAX_FILE_BYTES = 2L * 1024 * 1024;
+    private static final String EXTENSION = ".lrc";
+    private static final List<String> AUDIO_EXTENSIONS = List.of(
+        ".mp3", ".flac", ".ogg", ".opus", ".m4a", ".aac", ".wav", ".wma", ".ape", ".wv", ".alac", ".aiff");
+    private static final Lyrics NONE = new Lyrics(new long[0], new String[0]);
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Path lyricsFolder;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<CacheKey, Lyrics> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<CacheKey, Lyrics> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    public LyricsLoader(ModConfig config) {
+        this.lyricsFolder = folderOf(config.getLyricsFolder());
+    }
+
+    private static Path folderOf(String folder) {
+        if (folder == null || folder.isBlank()) return null;
+        try {
+            return Path.of(folder);
+        } catch (InvalidPathException e) {
+            NowPlayingIRLMod.LOGGER.warn("Ignoring invalid lyrics folder {}: {}", folder, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Complété avec null si le morceau n'a pas de paroles synchronisées.
+     */
+    public CompletableFuture<Lyrics> load(MediaInfo media) {
+        return CompletableFuture.supplyAsync(() -> {
+            Path track = localTrack(media);
+            Lyrics lyrics = find(media, track);
+            if (track != null) {
+                // Après coup: ne retarde pas les paroles du morceau courant
+                executor.execute(() -> prefetchNext(track));
+            }
+            return lyrics;
+        }, executor);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private Lyrics find(MediaInfo media, Path track) {
+        if (track != null) {
+            Lyrics lyrics = read(sidecar(track));
+            if (lyrics != null) return lyrics;
+        }
+        if (lyricsFolder == null || !media.hasValidInfo()) return null;
+
+        // Noms exacts d'abord, puis comparaison tolérante (casse, ponctuation, mentions "Official Video"...)
+        String artist = media.getArtist();
+        String title = media.getTitle();
+        for (String name : List.of(artist + " - " + title, title)) {
+            if (isSafeFileName(name)) {
+                Lyrics lyrics = read(lyricsFolder.resolve(name + EXTENSION));
+                if (lyrics != null) return lyrics;
+            }
+        }
+        return read(searchFolder(artist, title));
+    }
+
+    private Path searchFolder(String artist, String title) {
+        TrackNormalizer.Track wanted = TrackNormalizer.normalize(artist, title);
+        String withArtist = TrackNormalizer.fold(wanted.artist() + " " + wanted.title());
+        String titleOnly = TrackNormalizer.fold(wanted.title());
+
+        Path titleMatch = null;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(lyricsFolder, "*" + EXTENSION)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String stem = TrackNormalizer.fold(name.substring(0, name.length() - EXTENSION.length()));
+                if (stem.equals(withArtist)) return file;
+                if (titleMatch == null && stem.equals(titleOnly)) titleMatch = file;
+            }
+        } catch (IOException e) {
+            NowPlayingIRLMod.LOGGER.debug("Failed to list lyrics folder: {}", e.getMessage());
+        }
+        return titleMatch;
+    }
+
+    /**
+     * Analyse d'avance les paroles du fichier audio suivant dans le dossier (ordre de l'album).
+     */
+    private void prefetchNext(Path track) {
+        Path directory = track.getParent();
+        if (directory == null) return;
+
+        String current = track.getFileName().toString();
+        String next = null;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (!isAudio(name) || name.compareTo(current) <= 0) continue;
+                if (next == null || name.compareTo(next) < 0) next = name;
+            }
+        } catch (IOException e) {
+            return;
+        }
+        if (next != null) {
+            read(sidecar(directory.resolve(next)));
+        }
+    }
+
+    /**
+     * @return les paroles du fichier (depuis le cache si inchangé), ou null
+     */
+    private Lyrics read(Path file) {
+        if (file == null) return null;
+        CacheKey key;
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            if (!attributes.isRegularFile() || attributes.size() > MAX_FILE_BYTES) return null;
+            key = new CacheKey(file, attributes.lastModifiedTime().toMillis(), attributes.size());
+        } catch (IOException e) {
+            // Pas de fichier: le cas le plus courant
+            return null;
+        }
+
+        lock.lock();
+        try {
+            Lyrics cached = cache.get(key);
+            if (cached != null) return cached == NONE ? null : cached;
+        } finally {
+            lock.unlock();
+        }
+
+        Lyrics lyrics;
+        try {
+            // UTF-8 presque toujours; les octets invalides deviennent des caractères de remplacement
+            lyrics = LrcParser.parse(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            NowPlayingIRLMod.LOGGER.debug("Failed to read lyrics {}: {}", file, e.getMessage());
+            return null;
+        }
+
+        lock.lock();
+        try {
+            cache.put(key, lyrics != null ? lyrics : NONE);
+        } finally {
+            lock.unlock();
+        }
+        return lyrics;
+    }
+
+    private static Path localTrack(MediaInfo media) {
+        String trackUrl = media.getTrackUrl();
+        if (!LocalArtLoader.isLocal(trackUrl)) return null;
+        try {
+            return LocalArtLoader.toPath(trackUrl);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static Path sidecar(Path track) {
+        String name = track.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String stem = dot > 0 ? name.substring(0, dot) : name;
+        return track.resolveSibling(stem + EXTENSION);
+    }
+
+    private static boolean isAudio(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        for (String extension : AUDIO_EXTENSIONS) {
+            if (lower.endsWith(extension)) return true;
+        }
+        return false;
+    }
+
+    private static boolean isSafeFileName(String name) {
+        if (name.isBlank() || name.startsWith(".")) return false;
+        for (int i = 0; i < name.length(); i++) {
+            if ("/\\:*?\"<>|".indexOf(name.charAt(i)) >= 0 || name.charAt(i) < ' ') return false;
+        }
+        return true;
+    }
+}
\ No newline at end of file
@@ -1,17 +1,32 @@
 package com.nowplayingirl.client.media;
 
 import com.nowplayingirl.NowPlayingIRLMod;
+import com.nowplayingirl.client.config.ModConfig;
+
+import java.util.function.Consumer;
 
 public abstract class MediaDetector {
     
     public abstract MediaInfo detect();
     
-    public static MediaDetector create() {
+    /**
+     * Démarre la détection en mode push. Le listener reçoit un MediaInfo
+     * (ou null) uniquement quand quelque chose change.
+     * @return false si le détecteur ne sait pas pousser, il faut alors poller detect()
+     */
+    public boolean start(Consumer<MediaInfo> listener) {
+        return false;
+    }
+    
+    public void shutdown() {
+    }
+    
+    public static MediaDetector create(ModConfig config) {
         String os = System.getProperty("os.name").toLowerCase();
         
         if (os.contains("win")) {
             NowPlayingIRLMod.LOGGER.info("Using Windows media detector");
-            return new WindowsMediaDetector();
+            return new WindowsMediaDetector(config.getCustomPlayerRules());
         } else if (os.contains("mac")) {
             NowPlayingIRLMod.LOGGER.info("Using macOS media detector");
             return new MacOSMediaDetector();
@@ -43,26 +58,4 @@ class MacOSMediaDetector extends MediaDetector {
         } catch (Exception ignored) {}
         return null;
     }
-}
-
-// Fallback pour Linux
-class LinuxMediaDetector extends MediaDetector {
-    @Override
-    public MediaInfo detect() {
-        // Utiliser playerctl
-        try {
-            ProcessBuilder pb = new ProcessBuilder(
-                "playerctl", "metadata", "--format", "{{artist}}|{{title}}|{{playerName}}"
-            );
-            Process p = pb.start();
-            String result = new String(p.getInputStream().readAllBytes()).trim();
-            if (!result.isEmpty() && result.contains("|")) {
-                String[] parts = result.split("\\|", 3);
-                if (parts.length >= 2) {
-                    return new MediaInfo(parts[1], parts[0], parts.length > 2 ? parts[2] : "Unknown");
-                }
-            }
-        } catch (Exception ignored) {}
-        return null;
-    }
 }
\ No newline at end of file
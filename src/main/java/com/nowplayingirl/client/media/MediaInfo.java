@@ -1,15 +1,21 @@
 package com.nowplayingirl.client.media;
 
-import net.minecraft.util.Identifier;
 import java.util.Objects;
 
 public class MediaInfo {
     private String title;
     private String artist;
+    // Versions tronquées pour le HUD, calculées une fois par changement
+    private String displayTitle;
+    private String displayArtist;
     private String album;
     private String source; // "Spotify", "Chrome", "VLC", etc.
-    private Identifier albumArtTexture;
+    private String artUrl; // URL de pochette publiée par le lecteur (file://, https://), si connue
+    private String trackUrl; // emplacement du morceau (xesam:url), si connu
     private boolean isPlaying;
+    private long durationMs; // 0 = inconnue
+    private long positionMs = -1; // -1 = inconnue
+    private long positionSampledAt; // System.nanoTime() de la mesure de position
     private long timestamp;
     
     public MediaInfo() {
@@ -18,8 +24,8 @@ public class MediaInfo {
     
     public MediaInfo(String title, String artist, String source) {
         this();
-        this.title = title;
-        this.artist = artist;
+        setTitle(title);
+        setArtist(artist);
         this.source = source;
         this.isPlaying = true;
     }
@@ -31,10 +37,16 @@ public class MediaInfo {
     
     // Getters et Setters
     public String getTitle() { return title; }
-    public void setTitle(String title) { this.title = title; }
+    public void setTitle(String title) {
+        this.title = title;
+        this.displayTitle = truncate(title, 30);
+    }
     
     public String getArtist() { return artist; }
-    public void setArtist(String artist) { this.artist = artist; }
+    public void setArtist(String artist) {
+        this.artist = artist;
+        this.displayArtist = truncate(artist, 25);
+    }
     
     public String getAlbum() { return album; }
     public void setAlbum(String album) { this.album = album; }
@@ -42,22 +54,77 @@ public class MediaInfo {
     public String getSource() { return source; }
     public void setSource(String source) { this.source = source; }
     
-    public Identifier getAlbumArtTexture() { return albumArtTexture; }
-    public void setAlbumArtTexture(Identifier texture) { this.albumArtTexture = texture; }
+    public String getArtUrl() { return artUrl; }
+    public void setArtUrl(String artUrl) { this.artUrl = artUrl; }
+    
+    public String getTrackUrl() { return trackUrl; }
+    public void setTrackUrl(String trackUrl) { this.trackUrl = trackUrl; }
     
     public boolean isPlaying() { return isPlaying; }
     public void setPlaying(boolean playing) { isPlaying = playing; }
     
+    public long getDurationMs() { return durationMs; }
+    public void setDurationMs(long durationMs) { this.durationMs = durationMs; }
+    
+    public long getPositionMs() { return positionMs; }
+    public long getPositionSampledAt() { return positionSampledAt; }
+    
+    /**
+     * Position lue à l'instant (horloge monotone): le HUD l'extrapole ensuite lui-même.
+     */
+    public void setPositionMs(long positionMs) {
+        this.positionMs = positionMs;
+        this.positionSampledAt = System.nanoTime();
+    }
+    
     public long getTimestamp() { return timestamp; }
     
+    /**
+     * Même morceau relu plus tard: les métadonnées arrivées entre-temps (pochette, emplacement,
+     * durée, album...) complètent celles-ci; une valeur absente de la nouvelle lecture garde l'ancienne.
+     * Aucune des deux instances n'est modifiée.
+     * @return this si newer n'apporte rien de nouveau, sinon une copie complétée
+     */
+    public MediaInfo mergedWith(MediaInfo newer) {
+        String mergedAlbum = newer.album != null ? newer.album : album;
+        String mergedSource = newer.source != null ? newer.source : source;
+        String mergedArtUrl = newer.artUrl != null ? newer.artUrl : artUrl;
+        String mergedTrackUrl = newer.trackUrl != null ? newer.trackUrl : trackUrl;
+        long mergedDuration = newer.durationMs > 0 ? newer.durationMs : durationMs;
+        if (Objects.equals(mergedAlbum, album) && Objects.equals(mergedSource, source)
+            && Objects.equals(mergedArtUrl, artUrl) && Objects.equals(mergedTrackUrl, trackUrl)
+            && mergedDuration == durationMs) {
+            return this;
+        }
+        
+        MediaInfo merged = new MediaInfo();
+        merged.title = title;
+        merged.artist = artist;
+        merged.displayTitle = displayTitle;
+        merged.displayArtist = displayArtist;
+        merged.album = mergedAlbum;
+        merged.source = mergedSource;
+        merged.artUrl = mergedArtUrl;
+        merged.trackUrl = mergedTrackUrl;
+        merged.durationMs = mergedDuration;
+        merged.isPlaying = newer.isPlaying;
+        merged.positionMs = newer.positionMs;
+        merged.positionSampledAt = newer.positionSampledAt;
+        merged.timestamp = timestamp;
+        return merged;
+    }
+    
     public String getDisplayTitle() {
-        if (title == null || title.length() <= 30) return title;
-        return title.substring(0, 27) + "...";
+        return displayTitle;
     }
     
     public String getDisplayArtist() {
-        if (artist == null || artist.length() <= 25) return artist;
-        return artist.substring(0, 22) + "...";
+        return displayArtist;
+    }
+    
+    private static String truncate(String text, int maxLength) {
+        if (text == null || text.length() <= maxLength) return text;
+        return text.substring(0, maxLength - 3) + "...";
     }
     
     @Override
@@ -0,0 +1,149 @@
+package com.nowplayingirl.client.media;
+
+import java.util.Arrays;
+
+/**
+ * Median cut sur un histogramme 5 bits par canal (32768 cases): un passage sur les pixels,
+ * puis les découpes ne trient que les couleurs distinctes présentes dans la boîte.
+ * Aucune dépendance au nombre de pixels au-delà du premier passage.
+ */
+final class PaletteQuantizer {
+
+    record Swatch(int rgb, int population) {}
+
+    private static final int MAX_SWATCHES = 8;
+    // Au-delà, un pixel sur n suffit pour l'histogramme; borne aussi le nombre de couleurs à trier
+    private static final int MAX_SAMPLES = 4096;
+    private static final int MIN_ALPHA = 128;
+    private static final int RED = 0, GREEN = 1, BLUE = 2;
+
+    private PaletteQuantizer() {}
+
+    /**
+     * @return les couleurs représentatives, de la plus fréquente à la moins fréquente
+     */
+    static Swatch[] quantize(int[] argb) {
+        int[] histogram = new int[1 << 15];
+        int step = Math.max(1, argb.length / MAX_SAMPLES);
+        int distinct = 0;
+        for (int i = 0; i < argb.length; i += step) {
+            int color = argb[i];
+            if ((color >>> 24) < MIN_ALPHA) continue;
+            int bin = ((color >> 9) & 0x7C00) | ((color >> 6) & 0x03E0) | ((color >> 3) & 0x001F);
+            if (histogram[bin]++ == 0) distinct++;
+        }
+        if (distinct == 0) return new Swatch[0];
+
+        int[] colors = new int[distinct];
+        int n = 0;
+        for (int bin = 0; bin < histogram.length; bin++) {
+            if (histogram[bin] != 0) colors[n++] = bin;
+        }
+
+        // Boîtes = plages [start, end) du tableau de couleurs
+        int[] starts = new int[MAX_SWATCHES];
+        int[] ends = new int[MAX_SWATCHES];
+        int boxes = 1;
+        ends[0] = distinct;
+        int[] keys = new int[distinct];
+
+        while (boxes < MAX_SWATCHES) {
+            // La boîte la plus peuplée qui peut encore être coupée
+            int target = -1;
+            long targetPopulation = 0;
+            for (int b = 0; b < boxes; b++) {
+                if (ends[b] - starts[b] < 2) continue;
+                long population = population(histogram, colors, starts[b], ends[b]);
+                if (population > targetPopulation) {
+                    targetPopulation = population;
+                    target = b;
+                }
+            }
+            if (target < 0) break;
+
+            int start = starts[target];
+            int end = ends[target];
+            int channel = widestChannel(colors, start, end);
+
+            // Tri par le canal le plus étendu: clé = valeur du canal puis case de l'histogramme
+            for (int i = start; i < end; i++) {
+                keys[i] = (component(colors[i], channel) << 15) | colors[i];
+            }
+            Arrays.sort(keys, start, end);
+            for (int i = start; i < end; i++) {
+                colors[i] = keys[i] & 0x7FFF;
+            }
+
+            // Coupe à la médiane de population
+            long half = targetPopulation / 2;
+            long running = 0;
+            int split = start + 1;
+            for (int i = start; i < end - 1; i++) {
+                running += histogram[colors[i]];
+                if (running >= half) {
+                    split = i + 1;
+                    break;
+                }
+            }
+            starts[boxes] = split;
+            ends[boxes] = end;
+            ends[target] = split;
+            boxes++;
+        }
+
+        Swatch[] swatches = new Swatch[boxes];
+        for (int b = 0; b < boxes; b++) {
+            swatches[b] = average(histogram, colors, starts[b], ends[b]);
+        }
+        Arrays.sort(swatches, (a, b) -> Integer.compare(b.population(), a.population()));
+        return swatches;
+    }
+
+    private static long population(int[] histogram, int[] colors, int start, int end) {
+        long population = 0;
+        for (int i = start; i < end; i++) {
+            population += histogram[colors[i]];
+        }
+        return population;
+    }
+
+    private static int widestChannel(int[] colors, int start, int end) {
+        int minR = 31, maxR = 0, minG = 31, maxG = 0, minB = 31, maxB = 0;
+        for (int i = start; i < end; i++) {
+            int bin = colors[i];
+            int r = component(bin, RED), g = component(bin, GREEN), b = component(bin, BLUE);
+            minR = Math.min(minR, r); maxR = Math.max(maxR, r);
+            minG = Math.min(minG, g); maxG = Math.max(maxG, g);
+            minB = Math.min(minB, b); maxB = Math.max(maxB, b);
+        }
+        int rangeR = maxR - minR, rangeG = maxG - minG, rangeB = maxB - minB;
+        if (rangeR >= rangeG && rangeR >= rangeB) return RED;
+        return rangeG >= rangeB ? GREEN : BLUE;
+    }
+
+    private static Swatch average(int[] histogram, int[] colors, int start, int end) {
+        long r = 0, g = 0, b = 0;
+        int population = 0;
+        for (int i = start; i < end; i++) {
+            int bin = colors[i];
+            int count = histogram[bin];
+            r += (long) component(bin, RED) * count;
+            g += (long) component(bin, GREEN) * count;
+            b += (long) component(bin, BLUE) * count;
+            population += count;
+        }
+        // 5 bits -> 8 bits, centré dans la case
+        int red = (int) (r * 8 / population) + 4;
+        int green = (int) (g * 8 / population) + 4;
+        int blue = (int) (b * 8 / population) + 4;
+        return new Swatch((Math.min(255, red) << 16) | (Math.min(255, green) << 8) | Math.min(255, blue), population);
+    }
+
+    private static int component(int bin, int channel) {
+        return switch (channel) {
+            case RED -> (bin >> 10) & 0x1F;
+            case GREEN -> (bin >> 5) & 0x1F;
+            default -> bin & 0x1F;
+        };
+    }
+}
\ No newline at end of file
@@ -0,0 +1,186 @@
+package com.nowplayingirl.client.media;
+
+import com.nowplayingirl.NowPlayingIRLMod;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Règle de reconnaissance d'un lecteur à partir du titre de sa fenêtre.
+ * Sérialisée telle quelle dans la config (customPlayerRules), puis compilée une seule fois.
+ */
+public class PlayerRule {
+    
+    // Nom affiché comme source ("Spotify", "VLC"...)
+    public String name;
+    // Préfiltre littéral, insensible à la casse: la regex n'est évaluée que s'il est présent
+    public String contains;
+    // Regex sur le titre, avec des groupes nommés "title" (obligatoire) et "artist"
+    public String pattern;
+    // Artiste utilisé si le groupe "artist" est absent ou vide
+    public String defaultArtist;
+    // Retirer le littéral du titre (et les tirets en bordure) avant d'appliquer la regex
+    public boolean strip;
+    // Préfixes de classe de fenêtre acceptés (vide = toutes)
+    public List<String> windowClasses = List.of();
+    // Sous-chaîne du chemin de l'exécutable (insensible à la casse), optionnelle
+    public String process;
+    public boolean requireVisible = true;
+    
+    public PlayerRule() {}
+    
+    PlayerRule(String name, String contains, String pattern) {
+        this.name = name;
+        this.contains = contains;
+        this.pattern = pattern;
+    }
+    
+    PlayerRule defaultArtist(String artist) { this.defaultArtist = artist; return this; }
+    PlayerRule strip() { this.strip = true; return this; }
+    PlayerRule windowClasses(String... classes) { this.windowClasses = List.of(classes); return this; }
+    PlayerRule process(String process) { this.process = process; return this; }
+    PlayerRule anyVisibility() { this.requireVisible = false; return this; }
+    
+    /**
+     * @return le matcher compilé, ou null si la règle est invalide
+     */
+    public WindowMatcher compile() {
+        if (name == null || name.isEmpty() || pattern == null || pattern.isEmpty()) {
+            NowPlayingIRLMod.LOGGER.warn("Ignoring player rule without name or pattern: {}", name);
+            return null;
+        }
+        try {
+            Pattern compiled = Pattern.compile(pattern);
+            Pattern stripPattern = strip && contains != null && !contains.isEmpty()
+                ? Pattern.compile(Pattern.quote(contains), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE)
+                : null;
+            return new Compiled(this, compiled, stripPattern);
+        } catch (PatternSyntaxException e) {
+            NowPlayingIRLMod.LOGGER.warn("Ignoring player rule '{}', invalid pattern: {}", name, e.getDescription());
+            return null;
+        }
+    }
+    
+    private static final Pattern EDGE_DASHES = Pattern.compile("^[\\s\\-–—]+|[\\s\\-–—]+$");
+    
+    private static final class Compiled implements WindowMatcher {
+        private final String name;
+        private final Literal contains;
+        private final String defaultArtist;
+        private final String[] windowClasses;
+        private final Literal process;
+        private final boolean requireVisible;
+        private final Pattern pattern;
+        private final Pattern stripPattern;
+        private final boolean hasArtistGroup;
+        
+        Compiled(PlayerRule rule, Pattern pattern, Pattern stripPattern) {
+            this.name = rule.name;
+            this.contains = Literal.of(rule.contains);
+            this.defaultArtist = rule.defaultArtist;
+            this.windowClasses = rule.windowClasses == null ? new String[0] : rule.windowClasses.toArray(String[]::new);
+            this.process = Literal.of(rule.process);
+            this.requireVisible = rule.requireVisible;
+            this.pattern = pattern;
+            this.stripPattern = stripPattern;
+            this.hasArtistGroup = pattern.namedGroups().containsKey("artist");
+            if (!pattern.namedGroups().containsKey("title")) {
+                throw new PatternSyntaxException("missing named group 'title'", pattern.pattern(), -1);
+            }
+        }
+        
+        @Override
+        public boolean needsProcessImage(String className) {
+            return process != null && classMatches(className);
+        }
+        
+        @Override
+        public MediaInfo match(WindowSnapshot window) {
+            if (requireVisible && !window.visible()) return null;
+            
+            String text = window.title();
+            // Préfiltres les moins chers d'abord (classe, littéral), la regex ensuite
+            if (!classMatches(window.className())) return null;
+            if (contains != null && !contains.in(text)) return null;
+            if (process != null && (window.imageName() == null || !process.in(window.imageName()))) {
+                return null;
+            }
+            
+            if (stripPattern != null) {
+                text = stripPattern.matcher(text).replaceAll("").trim();
+                text = EDGE_DASHES.matcher(text).replaceAll("");
+            }
+            
+            Matcher m = pattern.matcher(text);
+            if (!m.matches()) return null;
+            
+            String title = m.group("title");
+            if (title == null || title.isBlank()) return null;
+            
+            String artist = hasArtistGroup ? m.group("artist") : null;
+            if (artist == null || artist.isBlank()) {
+                artist = defaultArtist;
+            }
+            return new MediaInfo(title.trim(), artist != null ? artist.trim() : null, name);
+        }
+        
+        private boolean classMatches(String className) {
+            if (windowClasses.length == 0) return true;
+            for (String prefix : windowClasses) {
+                if (className.startsWith(prefix)) return true;
+            }
+            return false;
+        }
+    }
+    
+    /**
+     * Sous-chaîne cherchée sans tenir compte de la casse, sans allocation: ses deux casses sont
+     * calculées une fois, indexOf saute d'une occurrence du premier caractère à la suivante
+     * et le reste n'est comparé que là.
+     */
+    static final class Literal {
+        private final char[] lower;
+        private final char[] upper;
+        
+        private Literal(String text) {
+            lower = new char[text.length()];
+            upper = new char[text.length()];
+            for (int i = 0; i < lower.length; i++) {
+                lower[i] = Character.toLowerCase(text.charAt(i));
+                upper[i] = Character.toUpperCase(text.charAt(i));
+            }
+        }
+        
+        /**
+         * @return null pour un texte vide: pas de filtre
+         */
+        static Literal of(String text) {
+            return text == null || text.isEmpty() ? null : new Literal(text);
+        }
+        
+        boolean in(String text) {
+            int max = text.length() - lower.length;
+            char firstLower = lower[0];
+            char firstUpper = upper[0];
+            int lowerAt = text.indexOf(firstLower);
+            int upperAt = firstLower == firstUpper ? -1 : text.indexOf(firstUpper);
+            while (true) {
+                int i = lowerAt < 0 ? upperAt : upperAt < 0 ? lowerAt : Math.min(lowerAt, upperAt);
+                if (i < 0 || i > max) return false;
+                if (matchesAt(text, i)) return true;
+                if (i == lowerAt) lowerAt = text.indexOf(firstLower, i + 1);
+                if (i == upperAt) upperAt = text.indexOf(firstUpper, i + 1);
+            }
+        }
+        
+        private boolean matchesAt(String text, int offset) {
+            for (int j = 1; j < lower.length; j++) {
+                char c = text.charAt(offset + j);
+                if (c != lower[j] && c != upper[j]) return false;
+            }
+            return true;
+        }
+    }
+}
\ No newline at end of file
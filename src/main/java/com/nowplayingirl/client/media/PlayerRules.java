@@ -0,0 +1,64 @@
+package com.nowplayingirl.client.media;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Table des règles de lecteurs, en groupes par ordre de priorité.
+ * Les règles de la config passent avant les règles intégrées, chacune dans son propre groupe.
+ */
+public final class PlayerRules {
+    
+    // "Artist - Title" avec les tirets usuels
+    private static final String ARTIST_DASH_TITLE = "^(?<artist>.+?)\\s*[-–—]\\s*(?<title>.+)$";
+    // "Artist - Title" séparé strictement par " - " (les noms composés comme "Jay-Z" restent entiers)
+    private static final String ARTIST_SPACED_DASH_TITLE = "^(?<artist>.+?) - (?<title>.+)$";
+    
+    // Même ordre que l'ancien détecteur: Spotify sur toutes les fenêtres d'abord,
+    // puis VLC/YouTube fenêtre par fenêtre, puis les autres lecteurs fenêtre par fenêtre
+    public static final List<List<PlayerRule>> BUILT_IN = List.of(
+        List.of(
+            // Spotify: "Artist - Title", uniquement sur les fenêtres du processus Spotify
+            new PlayerRule("Spotify", " - ", ARTIST_DASH_TITLE)
+                .windowClasses("Chrome_WidgetWin", "SpotifyMainWindow")
+                .process("spotify")
+                .anyVisibility()
+        ),
+        List.of(
+            // VLC: "Title - VLC media player"
+            new PlayerRule("VLC", "VLC media player", "^(?<title>.+?)\\s*[-–—]\\s*VLC media player$")
+                .defaultArtist("Unknown Artist"),
+            // Chrome/Edge/Firefox avec YouTube: "Artist - Title - YouTube" ou "Title - YouTube"
+            new PlayerRule("YouTube", "YouTube", "^(?:(?<artist>.+?) - )?(?<title>.+?)\\s*[-–—]\\s*YouTube.*$")
+                .defaultArtist("YouTube")
+        ),
+        List.of(
+            // Lecteurs qui mettent leur nom quelque part dans "Artist - Title"
+            new PlayerRule("AIMP", "AIMP", ARTIST_SPACED_DASH_TITLE).strip(),
+            new PlayerRule("Winamp", "Winamp", ARTIST_SPACED_DASH_TITLE).strip(),
+            new PlayerRule("foobar2000", "foobar2000", ARTIST_SPACED_DASH_TITLE).strip(),
+            new PlayerRule("MusicBee", "MusicBee", ARTIST_SPACED_DASH_TITLE).strip(),
+            new PlayerRule("iTunes", "iTunes", ARTIST_SPACED_DASH_TITLE).strip()
+        )
+    );
+    
+    private PlayerRules() {}
+    
+    public static WindowMatchEngine compile(List<PlayerRule> customRules) {
+        List<List<WindowMatcher>> groups = new ArrayList<>();
+        if (customRules != null) {
+            for (PlayerRule rule : customRules) {
+                WindowMatcher matcher = rule != null ? rule.compile() : null;
+                if (matcher != null) groups.add(List.of(matcher));
+            }
+        }
+        for (List<PlayerRule> group : BUILT_IN) {
+            List<WindowMatcher> matchers = new ArrayList<>();
+            for (PlayerRule rule : group) {
+                matchers.add(rule.compile());
+            }
+            groups.add(matchers);
+        }
+        return new WindowMatchEngine(groups);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,95 @@
+package com.nowplayingirl.client.media;
+
+import com.sun.jna.Native;
+import com.sun.jna.platform.win32.Kernel32;
+import com.sun.jna.platform.win32.WinBase;
+import com.sun.jna.platform.win32.WinNT;
+import com.sun.jna.ptr.IntByReference;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache pid -> chemin de l'exécutable.
+ * Un pid déjà vu à la passe précédente est repris tel quel, sans aucun appel système.
+ * Seuls les nouveaux pids sont ouverts: leur heure de création est lue, et le chemin n'est
+ * demandé que si ce processus (pid + heure de création, un pid pouvant être réutilisé)
+ * n'est pas déjà connu. Chaque pid est résolu au plus une fois par passe.
+ */
+class ProcessImageCache {
+    
+    private record Key(int pid, long creationTime) {}
+    
+    private static final int MAX_IMAGES = 64;
+    
+    // pid -> chemin (null si la lecture a échoué: retentée à la passe suivante seulement)
+    private Map<Integer, String> previousPass = new HashMap<>();
+    private Map<Integer, String> currentPass = new HashMap<>();
+    private final Map<Key, String> images = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, String> eldest) {
+            return size() > MAX_IMAGES;
+        }
+    };
+    
+    // Buffers réutilisés (toujours appelé depuis le thread de polling)
+    private final char[] pathBuffer = new char[1024];
+    private final IntByReference pathSize = new IntByReference();
+    private final WinBase.FILETIME creationTime = new WinBase.FILETIME();
+    private final WinBase.FILETIME exitTime = new WinBase.FILETIME();
+    private final WinBase.FILETIME kernelTime = new WinBase.FILETIME();
+    private final WinBase.FILETIME userTime = new WinBase.FILETIME();
+    
+    /**
+     * Les pids de la passe qui se termine deviennent ceux de la passe précédente;
+     * ceux qui n'ont plus de fenêtre candidate sont oubliés.
+     */
+    void beginPass() {
+        Map<Integer, String> recycled = previousPass;
+        previousPass = currentPass;
+        currentPass = recycled;
+        currentPass.clear();
+    }
+    
+    String imageName(int pid) {
+        if (currentPass.containsKey(pid)) return currentPass.get(pid);
+        
+        String name = previousPass.get(pid);
+        if (name == null) {
+            name = resolve(pid);
+        }
+        currentPass.put(pid, name);
+        return name;
+    }
+    
+    private String resolve(int pid) {
+        WinNT.HANDLE process = null;
+        try {
+            process = Kernel32.INSTANCE.OpenProcess(WinNT.PROCESS_QUERY_LIMITED_INFORMATION, false, pid);
+            if (process == null) return null;
+            
+            Key key = Kernel32.INSTANCE.GetProcessTimes(process, creationTime, exitTime, kernelTime, userTime)
+                ? new Key(pid, creationTime.toTime()) : null;
+            if (key != null) {
+                String cached = images.get(key);
+                if (cached != null) return cached;
+            }
+            
+            pathSize.setValue(pathBuffer.length);
+            if (Kernel32.INSTANCE.QueryFullProcessImageName(process, 0, pathBuffer, pathSize)) {
+                String name = Native.toString(pathBuffer);
+                if (key != null) {
+                    images.put(key, name);
+                }
+                return name;
+            }
+        } catch (Exception ignored) {
+        } finally {
+            if (process != null) {
+                Kernel32.INSTANCE.CloseHandle(process);
+            }
+        }
+        return null;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,140 @@
+package com.nowplayingirl.client.media;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Santé d'un fournisseur de pochettes: latences et erreurs sur une fenêtre glissante,
+ * plus un disjoncteur qui le met de côté quand il échoue ou demande de ralentir.
+ */
+class ProviderHealth {
+    
+    private static final int WINDOW = 32;
+    // Sans mesure, on suppose un fournisseur moyen
+    private static final long DEFAULT_P90_NANOS = Duration.ofMillis(1000).toNanos();
+    
+    // Échecs consécutifs avant ouverture du disjoncteur
+    private static final int FAILURE_THRESHOLD = 3;
+    private static final long MIN_COOLDOWN_NANOS = Duration.ofSeconds(30).toNanos();
+    private static final long MAX_COOLDOWN_NANOS = Duration.ofMinutes(10).toNanos();
+    // 429 sans Retry-After
+    private static final long DEFAULT_RETRY_AFTER_NANOS = Duration.ofSeconds(60).toNanos();
+    
+    enum State { CLOSED, OPEN, HALF_OPEN }
+    
+    private final long[] latencies = new long[WINDOW];
+    private final boolean[] failures = new boolean[WINDOW];
+    private int samples;
+    private int next;
+    
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openUntil;
+    private long cooldown = MIN_COOLDOWN_NANOS;
+    private boolean trialInFlight;
+    
+    /**
+     * Réserve un appel. En demi-ouverture, un seul appel d'essai passe à la fois.
+     */
+    synchronized boolean tryAcquire(long now) {
+        if (state == State.CLOSED) return true;
+        if (state == State.OPEN) {
+            if (now - openUntil < 0) return false;
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        if (trialInFlight) return false;
+        trialInFlight = true;
+        return true;
+    }
+    
+    /**
+     * Appel abouti (pochette trouvée ou non): le fournisseur répond correctement.
+     */
+    synchronized void recordSuccess(long latencyNanos) {
+        record(latencyNanos, false);
+        consecutiveFailures = 0;
+        if (state != State.CLOSED) {
+            state = State.CLOSED;
+            cooldown = MIN_COOLDOWN_NANOS;
+            trialInFlight = false;
+        }
+    }
+    
+    synchronized void recordFailure(long latencyNanos, long now) {
+        record(latencyNanos, true);
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN) {
+            // L'essai a échoué: on attend plus longtemps la prochaine fois
+            cooldown = Math.min(cooldown * 2, MAX_COOLDOWN_NANOS);
+            open(now + cooldown);
+        } else if (consecutiveFailures >= FAILURE_THRESHOLD) {
+            open(now + cooldown);
+        }
+    }
+    
+    /**
+     * HTTP 429: on respecte le délai demandé avant tout nouvel appel.
+     */
+    synchronized void recordRateLimited(Duration retryAfter, long now) {
+        record(0, true);
+        long wait = retryAfter != null ? Math.min(retryAfter.toNanos(), MAX_COOLDOWN_NANOS) : DEFAULT_RETRY_AFTER_NANOS;
+        open(now + Math.max(wait, 0));
+    }
+    
+    /**
+     * L'appel a été abandonné (requête annulée, autre fournisseur plus rapide): rien à apprendre.
+     */
+    synchronized void recordAbandoned() {
+        if (state == State.HALF_OPEN) {
+            trialInFlight = false;
+        }
+    }
+    
+    private void open(long until) {
+        state = State.OPEN;
+        openUntil = until;
+        trialInFlight = false;
+    }
+    
+    private void record(long latencyNanos, boolean failed) {
+        latencies[next] = latencyNanos;
+        failures[next] = failed;
+        next = (next + 1) % WINDOW;
+        if (samples < WINDOW) samples++;
+    }
+    
+    /**
+     * 90e centile des latences des appels réussis de la fenêtre.
+     */
+    synchronized long p90Nanos() {
+        long[] sorted = new long[samples];
+        int count = 0;
+        for (int i = 0; i < samples; i++) {
+            if (!failures[i]) sorted[count++] = latencies[i];
+        }
+        if (count == 0) return DEFAULT_P90_NANOS;
+        Arrays.sort(sorted, 0, count);
+        return sorted[Math.min(count - 1, (int) Math.ceil(count * 0.9) - 1)];
+    }
+    
+    synchronized double errorRate() {
+        if (samples == 0) return 0;
+        int errors = 0;
+        for (int i = 0; i < samples; i++) {
+            if (failures[i]) errors++;
+        }
+        return (double) errors / samples;
+    }
+    
+    /**
+     * Plus le score est bas, plus le fournisseur est interrogé tôt.
+     */
+    double score() {
+        return p90Nanos() * (1 + 4 * errorRate());
+    }
+    
+    synchronized State getState() {
+        return state;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.nowplayingirl.client.media;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * HTTP 429: le service demande de ne pas revenir avant retryAfter (null si non précisé).
+ */
+public class RateLimitedException extends IOException {
+    
+    private final Duration retryAfter;
+    
+    public RateLimitedException(String provider, Duration retryAfter) {
+        super(provider + " rate limited");
+        this.retryAfter = retryAfter;
+    }
+    
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,101 @@
+package com.nowplayingirl.client.media;
+
+import com.nowplayingirl.NowPlayingIRLMod;
+import net.minecraft.client.texture.NativeImage;
+import net.minecraft.client.texture.NativeImageBackedTexture;
+import net.minecraft.client.texture.TextureManager;
+import net.minecraft.util.Identifier;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * File bornée d'uploads de textures, vidée par le thread de rendu avec un budget par frame.
+ * Les threads de fetch déposent une image prête et récupèrent un future: ils n'attendent jamais le rendu.
+ * File pleine: les préchargements cèdent leur place à la pochette du morceau affiché.
+ */
+public class TextureUploadQueue {
+    
+    private static final int CAPACITY = 16;
+    // Au plus N uploads et X µs par frame (au moins un upload si la file n'est pas vide)
+    private static final int MAX_UPLOADS_PER_FRAME = 2;
+    private static final long FRAME_BUDGET_NANOS = 1_000_000;
+    
+    private record Upload(Identifier id, NativeImage image, BooleanSupplier sheddable, CompletableFuture<Identifier> done) {}
+    
+    private final ArrayBlockingQueue<Upload> queue;
+    
+    public TextureUploadQueue() {
+        this(CAPACITY);
+    }
+    
+    TextureUploadQueue(int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+    
+    /**
+     * Prend possession de l'image: elle est fermée si l'upload échoue.
+     * @param sheddable vrai tant que l'upload peut être abandonné au profit d'un autre (préchargement),
+     *                  évalué au moment où la file déborde: un préchargement devenu le morceau affiché est gardé
+     */
+    public CompletableFuture<Identifier> submit(Identifier id, NativeImage image, BooleanSupplier sheddable) {
+        CompletableFuture<Identifier> done = new CompletableFuture<>();
+        Upload upload = new Upload(id, image, sheddable, done);
+        while (!queue.offer(upload)) {
+            if (sheddable.getAsBoolean() || !shedOne()) {
+                image.close();
+                done.completeExceptionally(new RejectedExecutionException("Texture upload queue full"));
+                break;
+            }
+        }
+        return done;
+    }
+    
+    /**
+     * Retire le plus ancien préchargement en attente. Faux s'il n'y en a aucun.
+     */
+    private boolean shedOne() {
+        for (Upload queued : queue) {
+            // Le thread de rendu a pu le prendre entre-temps: on passe au suivant
+            if (queued.sheddable().getAsBoolean() && queue.remove(queued)) {
+                queued.image().close();
+                queued.done().completeExceptionally(new RejectedExecutionException("Texture upload shed for the displayed track"));
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Appelé sur le thread de rendu, une fois par frame.
+     */
+    public void drain(TextureManager textureManager) {
+        long start = System.nanoTime();
+        for (int uploaded = 0; uploaded < MAX_UPLOADS_PER_FRAME; uploaded++) {
+            if (uploaded > 0 && System.nanoTime() - start > FRAME_BUDGET_NANOS) return;
+            
+            Upload upload = queue.poll();
+            if (upload == null) return;
+            
+            try {
+                NativeImageBackedTexture texture = new NativeImageBackedTexture(upload.id()::toString, upload.image());
+                textureManager.registerTexture(upload.id(), texture);
+                upload.done().complete(upload.id());
+            } catch (Exception e) {
+                NowPlayingIRLMod.LOGGER.debug("Failed to register texture: {}", e.getMessage());
+                upload.image().close();
+                upload.done().completeExceptionally(e);
+            }
+        }
+    }
+    
+    public void clear() {
+        Upload upload;
+        while ((upload = queue.poll()) != null) {
+            upload.image().close();
+            upload.done().cancel(false);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,207 @@
+package com.nowplayingirl.client.media;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Forme canonique d'un couple artiste/titre. Les titres de vidéos ("(Official Video)",
+ * "[Lyrics]", "feat. X", artistes "- Topic"...) donnent ainsi la même clé de cache
+ * et la même recherche que le morceau d'origine.
+ */
+final class TrackNormalizer {
+    
+    /**
+     * @param artist   artiste principal nettoyé (casse d'origine), pour la recherche
+     * @param title    titre nettoyé (casse d'origine), pour la recherche
+     * @param featured artistes invités retirés du titre ou de l'artiste, comptés dans le score des résultats
+     * @param key      clé de cache: artiste et titre pliés, sans ponctuation (ni espaces pour l'artiste)
+     */
+    record Track(String artist, String title, List<String> featured, String key) {}
+    
+    // Contenu entre parenthèses/crochets qui n'appartient pas au titre
+    private static final Pattern DECORATION_WORDS = Pattern.compile(
+        "(?i)\\b(official|video|audio|lyrics?|visuali[sz]er|mv|m/v|hd|hq|4k|1080p|720p|explicit|clean|"
+            + "remaster(?:ed)?|deluxe|edition|expanded|anniversary|color coded|full album|audio only|music video|live session|topic)\\b");
+    private static final Pattern BRACKETED = Pattern.compile("\\s*[(\\[{【]([^)\\]}】]*)[)\\]}】]");
+    private static final Pattern FEAT_INSIDE = Pattern.compile("(?i)^\\s*(?:feat\\.?|ft\\.?|featuring|with)\\s+(.+)$");
+    private static final Pattern FEAT_TRAILING = Pattern.compile("(?i)\\s+(?:feat\\.?|ft\\.?|featuring)\\s+(.+)$");
+    // "Titre | Official Video", "Titre - Lyrics"
+    private static final Pattern SEPARATED_SUFFIX = Pattern.compile("\\s+(?:[|｜]|-|–|—)\\s+([^|｜\\-–—]*)$");
+    // "Titre HD" après suppression des parenthèses
+    private static final Pattern BARE_SUFFIX = Pattern.compile("(?i)\\s+(?:hd|hq|4k|1080p|720p)$");
+    private static final Pattern TRAILING_SEPARATOR = Pattern.compile("\\s*[|｜\\-–—]\\s*$");
+    private static final Pattern TOPIC_SUFFIX = Pattern.compile("(?i)\\s*-\\s*topic$");
+    private static final Pattern VEVO_SUFFIX = Pattern.compile("(?i)(?<=\\S)vevo$");
+    // "TaylorSwift" -> "Taylor Swift"
+    private static final Pattern CAMEL_CASE_BOUNDARY = Pattern.compile("(?<=\\p{Ll})(?=\\p{Lu})");
+    private static final Pattern FEATURED_SPLIT = Pattern.compile("(?i)\\s*(?:,|&|\\band\\b|\\bx\\b)\\s*");
+    private static final Pattern QUOTED = Pattern.compile("^[\"“”'‘’](.+)[\"“”'‘’]$");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    
+    private TrackNormalizer() {}
+    
+    static Track normalize(String artist, String title) {
+        List<String> featured = new ArrayList<>();
+        String cleanArtist = cleanArtist(artist, featured);
+        String cleanTitle = cleanTitle(title, featured);
+        return new Track(cleanArtist, cleanTitle, List.copyOf(featured), artistKey(cleanArtist) + "|" + fold(cleanTitle));
+    }
+    
+    /**
+     * Artiste plié puis sans espaces: un nom de chaîne collé ("PaulMcCartney") et le nom
+     * d'origine ("Paul McCartney") donnent la même clé, même si la casse ne permet pas de les séparer.
+     */
+    static String artistKey(String artist) {
+        return fold(artist).replace(" ", "");
+    }
+    
+    private static String cleanArtist(String artist, List<String> featured) {
+        String s = nfkc(artist);
+        s = TOPIC_SUFFIX.matcher(s).replaceAll("");
+        Matcher vevo = VEVO_SUFFIX.matcher(s);
+        if (vevo.find()) {
+            // Chaîne "TaylorSwiftVEVO": les mots collés sont séparés pour la recherche
+            s = CAMEL_CASE_BOUNDARY.matcher(s.substring(0, vevo.start())).replaceAll(" ");
+        }
+        s = extractTrailingFeat(s, featured);
+        return s.strip();
+    }
+    
+    private static String cleanTitle(String title, List<String> featured) {
+        String s = nfkc(title);
+        
+        // Segments entre parenthèses: invités extraits, décorations supprimées, le reste gardé
+        Matcher m = BRACKETED.matcher(s);
+        StringBuilder out = new StringBuilder();
+        while (m.find()) {
+            String inner = m.group(1);
+            Matcher feat = FEAT_INSIDE.matcher(inner);
+            if (feat.matches()) {
+                addFeatured(feat.group(1), featured);
+                m.appendReplacement(out, "");
+            } else if (DECORATION_WORDS.matcher(inner).find()) {
+                m.appendReplacement(out, "");
+            } else {
+                m.appendReplacement(out, Matcher.quoteReplacement(m.group()));
+            }
+        }
+        m.appendTail(out);
+        s = out.toString();
+        
+        // Suffixes ("| Official Video", " HD"), en boucle: "Titre - Lyrics | 4K"
+        while (true) {
+            String before = s;
+            s = BARE_SUFFIX.matcher(s.strip()).replaceAll("");
+            s = TRAILING_SEPARATOR.matcher(s).replaceAll("");
+            Matcher suffix = SEPARATED_SUFFIX.matcher(s);
+            if (suffix.find() && DECORATION_WORDS.matcher(suffix.group(1)).find()) {
+                s = s.substring(0, suffix.start());
+            }
+            if (s.equals(before)) break;
+        }
+        
+        s = extractTrailingFeat(s, featured);
+        s = WHITESPACE.matcher(s).replaceAll(" ").strip();
+        
+        Matcher quoted = QUOTED.matcher(s);
+        if (quoted.matches()) {
+            s = quoted.group(1).strip();
+        }
+        return s;
+    }
+    
+    private static String extractTrailingFeat(String s, List<String> featured) {
+        Matcher feat = FEAT_TRAILING.matcher(s);
+        if (!feat.find()) return s;
+        addFeatured(feat.group(1), featured);
+        return s.substring(0, feat.start());
+    }
+    
+    private static void addFeatured(String names, List<String> featured) {
+        for (String name : FEATURED_SPLIT.split(names)) {
+            if (!name.isBlank()) featured.add(name.strip());
+        }
+    }
+    
+    private static String nfkc(String s) {
+        if (s == null) return "";
+        return WHITESPACE.matcher(Normalizer.normalize(s, Normalizer.Form.NFKC)).replaceAll(" ").strip();
+    }
+    
+    /**
+     * Pliage de casse (ß -> ss...) et ponctuation réduite à des espaces.
+     */
+    static String fold(String s) {
+        String folded = s.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+        // Apostrophes et tirets typographiques disparaissent avec le reste de la ponctuation
+        return NON_WORD.matcher(folded).replaceAll(" ").strip();
+    }
+    
+    // ===== Score des résultats de recherche =====
+    
+    // En dessous, le résultat ne correspond pas au morceau cherché
+    static final double MIN_SCORE = 0.5;
+    
+    /**
+     * Ressemblance entre le morceau cherché et un résultat, de 0 à 1.
+     * Le titre compte plus que l'artiste; un artiste inconnu ne pénalise pas.
+     * Les invités comptent des deux côtés: "A feat. B" et "A & B" désignent le même morceau.
+     */
+    static double score(Track query, ArtCandidate candidate) {
+        Track found = normalize(candidate.artist(), candidate.title());
+        double titleScore = similarity(fold(query.title()), fold(found.title()));
+        if (query.artist().isEmpty()) return titleScore;
+        double artistScore = artistKey(query.artist()).equals(artistKey(found.artist()))
+            ? 1
+            : Math.max(similarity(fold(query.artist()), fold(found.artist())),
+                similarity(fold(credits(query)), fold(credits(found))));
+        return 0.6 * titleScore + 0.4 * artistScore;
+    }
+    
+    /**
+     * Artiste principal et invités.
+     */
+    private static String credits(Track track) {
+        if (track.featured().isEmpty()) return track.artist();
+        return track.artist() + " " + String.join(" ", track.featured());
+    }
+    
+    /**
+     * Coefficient de Dice sur les mots.
+     */
+    private static double similarity(String a, String b) {
+        if (a.equals(b)) return 1;
+        if (a.isEmpty() || b.isEmpty()) return 0;
+        Set<String> left = new HashSet<>(Arrays.asList(a.split(" ")));
+        Set<String> right = new HashSet<>(Arrays.asList(b.split(" ")));
+        int common = 0;
+        for (String word : left) {
+            if (right.contains(word)) common++;
+        }
+        return 2.0 * common / (left.size() + right.size());
+    }
+    
+    /**
+     * @return le meilleur résultat au-dessus du seuil, ou null
+     */
+    static ArtCandidate best(Track query, List<ArtCandidate> candidates) {
+        ArtCandidate best = null;
+        double bestScore = MIN_SCORE;
+        for (ArtCandidate candidate : candidates) {
+            double score = score(query, candidate);
+            if (score > bestScore || (best == null && score == bestScore)) {
+                best = candidate;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,41 @@
+package com.nowplayingirl.client.media;
+
+import java.util.List;
+
+/**
+ * Applique des groupes de matchers par ordre de priorité sur un snapshot de fenêtres.
+ * Dans un groupe, les fenêtres sont parcourues dans l'ordre de l'énumération et chacune
+ * est testée contre tous les matchers du groupe: la première fenêtre reconnue gagne.
+ */
+public class WindowMatchEngine {
+    
+    private final List<WindowMatcher[]> groups;
+    
+    public WindowMatchEngine(List<List<WindowMatcher>> groups) {
+        this.groups = groups.stream()
+            .map(group -> group.toArray(WindowMatcher[]::new))
+            .toList();
+    }
+    
+    public boolean needsProcessImage(String className) {
+        for (WindowMatcher[] group : groups) {
+            for (WindowMatcher matcher : group) {
+                if (matcher.needsProcessImage(className)) return true;
+            }
+        }
+        return false;
+    }
+    
+    public MediaInfo match(List<WindowSnapshot> windows) {
+        for (WindowMatcher[] group : groups) {
+            for (int i = 0, n = windows.size(); i < n; i++) {
+                WindowSnapshot window = windows.get(i);
+                for (WindowMatcher matcher : group) {
+                    MediaInfo media = matcher.match(window);
+                    if (media != null) return media;
+                }
+            }
+        }
+        return null;
+    }
+}
\ No newline at end of file
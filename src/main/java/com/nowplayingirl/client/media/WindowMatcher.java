@@ -0,0 +1,20 @@
+package com.nowplayingirl.client.media;
+
+/**
+ * Reconnaît un lecteur à partir d'une fenêtre.
+ */
+public interface WindowMatcher {
+    
+    /**
+     * @return le média détecté, ou null si la fenêtre ne correspond pas à ce lecteur
+     */
+    MediaInfo match(WindowSnapshot window);
+    
+    /**
+     * Indique si ce matcher a besoin du chemin de l'exécutable pour cette classe de fenêtre
+     * (coûteux à obtenir, donc résolu uniquement à la demande).
+     */
+    default boolean needsProcessImage(String className) {
+        return false;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.nowplayingirl.client.media;
+
+/**
+ * Copie "à plat" d'une fenêtre Windows, prise une seule fois par poll.
+ * Aucune dépendance à JNA: les matchers peuvent être testés avec des listes synthétiques.
+ *
+ * @param imageName chemin de l'exécutable, résolu uniquement pour les classes de fenêtre
+ *                  qui en ont besoin (null sinon)
+ */
+public record WindowSnapshot(long hwnd, String className, String title, int pid, boolean visible, String imageName) {
+}
\ No newline at end of file
@@ -1,46 +1,41 @@
 package com.nowplayingirl.client.media;
 
 import com.nowplayingirl.NowPlayingIRLMod;
-import com.sun.jna.Native;
+import com.sun.jna.Pointer;
 import com.sun.jna.platform.win32.*;
 import com.sun.jna.ptr.IntByReference;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.ArrayList;
+import java.util.List;
 
 public class WindowsMediaDetector extends MediaDetector {
     
-    // Patterns pour parser les titres de fenêtres
-    private static final Map<String, Pattern> WINDOW_PATTERNS = new HashMap<>();
+    private static final int TITLE_LENGTH = 512;
+    private static final int CLASS_LENGTH = 256;
     
-    static {
-        // Spotify: "Artist - Title"
-        WINDOW_PATTERNS.put("Spotify", Pattern.compile("^(.+?)\\s*[-–—]\\s*(.+)$"));
-        // VLC: "Title - VLC media player"
-        WINDOW_PATTERNS.put("VLC", Pattern.compile("^(.+?)\\s*[-–—]\\s*VLC media player$"));
-        // Chrome/Edge avec YouTube: "Title - YouTube"
-        WINDOW_PATTERNS.put("YouTube", Pattern.compile("^(.+?)\\s*[-–—]\\s*YouTube.*$"));
-        // foobar2000
-        WINDOW_PATTERNS.put("foobar2000", Pattern.compile("^\\[(.+?)\\]\\s*(.+?)\\s*[-–—]\\s*(.+)$"));
-    }
+    private final WindowMatchEngine engine;
+    private final ProcessImageCache processImages = new ProcessImageCache();
+    
+    // Buffers réutilisés d'un poll à l'autre (detect() est toujours appelé par le même thread)
+    private final List<WindowSnapshot> windows = new ArrayList<>();
+    private final char[] titleBuffer = new char[TITLE_LENGTH];
+    private final char[] classBuffer = new char[CLASS_LENGTH];
+    private final IntByReference pidRef = new IntByReference();
+    private final WinUser.WNDENUMPROC snapshotCallback = this::snapshotWindow;
     
-    private String lastDetectedTitle = "";
-    private MediaInfo cachedMedia = null;
+    public WindowsMediaDetector(List<PlayerRule> customRules) {
+        // Règles compilées une seule fois (regex, préfiltres)
+        this.engine = PlayerRules.compile(customRules);
+    }
     
     @Override
     public MediaInfo detect() {
         try {
-            // 1. Essayer Spotify d'abord (le plus courant)
-            MediaInfo spotify = detectSpotify();
-            if (spotify != null) return spotify;
-            
-            // 2. Essayer les autres lecteurs
-            MediaInfo other = detectOtherPlayers();
-            if (other != null) return other;
+            // Une seule énumération par poll, puis tous les matchers sur le snapshot
+            windows.clear();
+            processImages.beginPass();
+            User32.INSTANCE.EnumWindows(snapshotCallback, null);
             
-            // 3. Essayer de détecter via les fenêtres
-            return detectFromWindows();
+            return engine.match(windows);
             
         } catch (Exception e) {
             NowPlayingIRLMod.LOGGER.debug("Detection error: {}", e.getMessage());
@@ -48,143 +43,30 @@ public class WindowsMediaDetector extends MediaDetector {
         }
     }
     
-    private MediaInfo detectSpotify() {
-        // Chercher la fenêtre Spotify
-        final String[] title = {null};
+    private boolean snapshotWindow(WinDef.HWND hwnd, Pointer data) {
+        int titleLength = User32.INSTANCE.GetWindowText(hwnd, titleBuffer, TITLE_LENGTH);
+        if (titleLength <= 0) return true;
         
-        User32.INSTANCE.EnumWindows((hwnd, data) -> {
-            char[] windowText = new char[512];
-            User32.INSTANCE.GetWindowText(hwnd, windowText, 512);
-            String text = Native.toString(windowText).trim();
-            
-            if (text.isEmpty()) return true;
-            
-            char[] className = new char[256];
-            User32.INSTANCE.GetClassName(hwnd, className, 256);
-            String classStr = Native.toString(className);
-            
-            // Spotify a une classe spécifique
-            if (classStr.contains("Chrome_WidgetWin") || classStr.equals("SpotifyMainWindow")) {
-                // Vérifier le processus
-                IntByReference pid = new IntByReference();
-                User32.INSTANCE.GetWindowThreadProcessId(hwnd, pid);
-                
-                if (isSpotifyProcess(pid.getValue()) && text.contains(" - ") && 
-                    !text.equals("Spotify") && !text.equals("Spotify Free") && 
-                    !text.equals("Spotify Premium")) {
-                    title[0] = text;
-                    return false;
-                }
-            }
-            return true;
-        }, null);
-        
-        if (title[0] != null) {
-            return parseSpotifyTitle(title[0]);
-        }
-        return null;
-    }
-    
-    private boolean isSpotifyProcess(int pid) {
-        try {
-            WinNT.HANDLE process = Kernel32.INSTANCE.OpenProcess(
-                WinNT.PROCESS_QUERY_LIMITED_INFORMATION, false, pid);
-            if (process != null) {
-                char[] path = new char[1024];
-                IntByReference size = new IntByReference(1024);
-                if (Kernel32.INSTANCE.QueryFullProcessImageName(process, 0, path, size)) {
-                    String processPath = Native.toString(path).toLowerCase();
-                    Kernel32.INSTANCE.CloseHandle(process);
-                    return processPath.contains("spotify");
-                }
-                Kernel32.INSTANCE.CloseHandle(process);
-            }
-        } catch (Exception ignored) {}
-        return false;
-    }
-    
-    private MediaInfo parseSpotifyTitle(String title) {
-        Pattern pattern = WINDOW_PATTERNS.get("Spotify");
-        Matcher matcher = pattern.matcher(title);
-        if (matcher.matches()) {
-            String artist = matcher.group(1).trim();
-            String track = matcher.group(2).trim();
-            return new MediaInfo(track, artist, "Spotify");
-        }
-        return null;
-    }
-    
-    private MediaInfo detectOtherPlayers() {
-        final MediaInfo[] result = {null};
+        String title = new String(titleBuffer, 0, titleLength).trim();
+        if (title.isEmpty()) return true;
         
-        User32.INSTANCE.EnumWindows((hwnd, data) -> {
-            if (!User32.INSTANCE.IsWindowVisible(hwnd)) return true;
-            
-            char[] windowText = new char[512];
-            User32.INSTANCE.GetWindowText(hwnd, windowText, 512);
-            String text = Native.toString(windowText).trim();
-            
-            if (text.isEmpty()) return true;
-            
-            // VLC
-            if (text.contains("VLC media player") && !text.equals("VLC media player")) {
-                Matcher m = WINDOW_PATTERNS.get("VLC").matcher(text);
-                if (m.matches()) {
-                    result[0] = new MediaInfo(m.group(1).trim(), "Unknown Artist", "VLC");
-                    return false;
-                }
-            }
-            
-            // YouTube (Chrome/Edge/Firefox)
-            if (text.contains("YouTube") && !text.equals("YouTube")) {
-                Matcher m = WINDOW_PATTERNS.get("YouTube").matcher(text);
-                if (m.matches()) {
-                    String videoTitle = m.group(1).trim();
-                    // Essayer de parser "Artist - Title" du titre YouTube
-                    if (videoTitle.contains(" - ")) {
-                        String[] parts = videoTitle.split(" - ", 2);
-                        result[0] = new MediaInfo(parts[1].trim(), parts[0].trim(), "YouTube");
-                    } else {
-                        result[0] = new MediaInfo(videoTitle, "YouTube", "YouTube");
-                    }
-                    return false;
-                }
-            }
-            
-            return true;
-        }, null);
+        int classLength = User32.INSTANCE.GetClassName(hwnd, classBuffer, CLASS_LENGTH);
+        String className = classLength > 0 ? new String(classBuffer, 0, classLength) : "";
         
-        return result[0];
-    }
-    
-    private MediaInfo detectFromWindows() {
-        // Fallback: chercher n'importe quelle fenêtre avec un pattern "Artist - Title"
-        final MediaInfo[] result = {null};
-        final String[] players = {"AIMP", "Winamp", "foobar2000", "MusicBee", "iTunes"};
+        User32.INSTANCE.GetWindowThreadProcessId(hwnd, pidRef);
+        int pid = pidRef.getValue();
         
-        User32.INSTANCE.EnumWindows((hwnd, data) -> {
-            if (!User32.INSTANCE.IsWindowVisible(hwnd)) return true;
-            
-            char[] windowText = new char[512];
-            User32.INSTANCE.GetWindowText(hwnd, windowText, 512);
-            String text = Native.toString(windowText).trim();
-            
-            for (String player : players) {
-                if (text.toLowerCase().contains(player.toLowerCase()) && text.contains(" - ")) {
-                    // Parser le titre
-                    String clean = text.replaceAll("(?i)" + player, "").trim();
-                    clean = clean.replaceAll("^[\\s\\-–—]+|[\\s\\-–—]+$", "");
-                    
-                    if (clean.contains(" - ")) {
-                        String[] parts = clean.split(" - ", 2);
-                        result[0] = new MediaInfo(parts[1].trim(), parts[0].trim(), player);
-                        return false;
-                    }
-                }
-            }
-            return true;
-        }, null);
+        // Le nom de l'exécutable n'est demandé que pour les fenêtres qui en ont besoin
+        String imageName = engine.needsProcessImage(className) ? processImages.imageName(pid) : null;
         
-        return result[0];
+        windows.add(new WindowSnapshot(
+            Pointer.nativeValue(hwnd.getPointer()),
+            className,
+            title,
+            pid,
+            User32.INSTANCE.IsWindowVisible(hwnd),
+            imageName
+        ));
+        return true;
     }
 }
\ No newline at end of file
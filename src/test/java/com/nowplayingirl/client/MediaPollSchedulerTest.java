@@ -0,0 +1,81 @@
+package com.nowplayingirl.client;
+
+import com.nowplayingirl.client.media.MediaInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MediaPollSchedulerTest {
+
+    private final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(2);
+    private final AtomicReference<NowPlayingState> state = new AtomicReference<>(NowPlayingState.EMPTY);
+
+    MediaPollSchedulerTest() {
+        // Les passages annulés quittent la file: sa taille compte les chaînes encore vivantes
+        executor.setRemoveOnCancelPolicy(true);
+    }
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static MediaInfo paused(String title) {
+        MediaInfo media = new MediaInfo(title, "Artist", "Spotify");
+        media.setPlaying(false);
+        return media;
+    }
+
+    @Test
+    void rescheduleDuringPollKeepsOneChain() throws InterruptedException {
+        AtomicReference<MediaPollScheduler> scheduler = new AtomicReference<>();
+        AtomicInteger polls = new AtomicInteger();
+        // Config modifiée pendant un passage: le passage en cours ne doit pas créer une seconde chaîne
+        scheduler.set(new MediaPollScheduler(executor, () -> {
+            if (polls.incrementAndGet() == 1) scheduler.get().reschedule();
+        }, state::get, () -> 60_000, () -> false));
+
+        scheduler.get().start();
+        awaitCompleted(1);
+
+        assertEquals(1, polls.get());
+        assertEquals(1, executor.getQueue().size());
+
+        // Hors passage: le prochain est remplacé, pas doublé
+        scheduler.get().reschedule();
+        assertEquals(1, executor.getQueue().size());
+        scheduler.get().stop();
+    }
+
+    @Test
+    void mergedSameTrackKeepsBackingOff() throws InterruptedException {
+        state.set(NowPlayingState.EMPTY.withMedia(paused("One")));
+        AtomicInteger polls = new AtomicInteger();
+        // Chaque passage publie une copie égale du même morceau (métadonnées fusionnées)
+        MediaPollScheduler scheduler = new MediaPollScheduler(executor, () -> {
+            polls.incrementAndGet();
+            NowPlayingState current = state.get();
+            state.set(new NowPlayingState(current.version() + 1, paused("One"), null, null, null, false, -1, 0));
+        }, state::get, () -> 250, () -> false);
+
+        scheduler.start();
+        // En pause: passages à 0, 250 et 750 ms, le suivant à 1750 ms
+        Thread.sleep(1_300);
+        scheduler.stop();
+
+        assertTrue(polls.get() >= 2 && polls.get() <= 3, "polls " + polls.get());
+    }
+
+    private void awaitCompleted(long tasks) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (executor.getCompletedTaskCount() < tasks) {
+            if (System.nanoTime() > deadline) fail("Poll did not run");
+            Thread.sleep(5);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,159 @@
+package com.nowplayingirl.client;
+
+import com.nowplayingirl.api.ListenerThread;
+import com.nowplayingirl.api.NowPlayingEvents;
+import com.nowplayingirl.api.NowPlayingListener;
+import com.nowplayingirl.api.NowPlayingTrack;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NowPlayingEventBusTest {
+
+    private static final NowPlayingTrack TRACK = new NowPlayingTrack("Song", "Artist", null, "Spotify", 200_000);
+
+    private final NowPlayingEventBus bus = new NowPlayingEventBus();
+    private final List<NowPlayingEvents.Registration> registrations = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        registrations.forEach(NowPlayingEvents.Registration::close);
+    }
+
+    /**
+     * Note les positions reçues; attend optionnellement un signal avant chaque livraison.
+     */
+    private static final class Recorder implements NowPlayingListener {
+        final List<Long> positions = new CopyOnWriteArrayList<>();
+        final CountDownLatch received;
+        volatile CountDownLatch gate;
+
+        Recorder(int expected) {
+            received = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void onPositionChanged(NowPlayingTrack track, long positionMs) {
+            CountDownLatch wait = gate;
+            if (wait != null) {
+                try {
+                    wait.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            positions.add(positionMs);
+            received.countDown();
+        }
+    }
+
+    private <T extends NowPlayingListener> T register(T listener, ListenerThread thread) {
+        registrations.add(bus.register(listener, thread));
+        return listener;
+    }
+
+    private void publish(int from, int to) {
+        for (int i = from; i < to; i++) {
+            bus.positionChanged(TRACK, i);
+        }
+    }
+
+    private static List<Long> range(long from, long to) {
+        List<Long> values = new ArrayList<>();
+        for (long i = from; i < to; i++) {
+            values.add(i);
+        }
+        return values;
+    }
+
+    @Test
+    void eachListenerReceivesEventsInPublicationOrder() throws Exception {
+        Recorder first = register(new Recorder(50), ListenerThread.WORKER);
+        Recorder second = register(new Recorder(50), ListenerThread.WORKER);
+
+        publish(0, 50);
+
+        assertTrue(first.received.await(5, TimeUnit.SECONDS));
+        assertTrue(second.received.await(5, TimeUnit.SECONDS));
+        assertEquals(range(0, 50), first.positions);
+        assertEquals(range(0, 50), second.positions);
+    }
+
+    @Test
+    void concurrentDrainsKeepOrderUnderLoad() throws Exception {
+        Recorder recorder = register(new Recorder(1), ListenerThread.WORKER);
+
+        // Bien plus que la boîte aux lettres: des événements peuvent être abandonnés, jamais réordonnés
+        int events = 20_000;
+        publish(0, events);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!recorder.positions.contains((long) events - 1) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        List<Long> positions = recorder.positions;
+        assertEquals(events - 1L, (long) positions.get(positions.size() - 1));
+        for (int i = 1; i < positions.size(); i++) {
+            assertTrue(positions.get(i) > positions.get(i - 1), "out of order at " + i + ": " + positions);
+        }
+    }
+
+    @Test
+    void overflowingMailboxDropsOldestEvents() {
+        // Livré seulement quand le thread client vide sa boîte: rien n'est consommé pendant la publication
+        Recorder recorder = register(new Recorder(0), ListenerThread.CLIENT);
+
+        publish(0, 100);
+        bus.drainClientThread();
+
+        // 64 places: les 36 premières positions (et le morceau courant envoyé à l'inscription) sont perdues
+        assertEquals(range(36, 100), recorder.positions);
+    }
+
+    @Test
+    void slowOrFailingListenerDoesNotHoldBackOthers() throws Exception {
+        Recorder slow = new Recorder(50);
+        slow.gate = new CountDownLatch(1);
+        register(slow, ListenerThread.WORKER);
+        register(new NowPlayingListener() {
+            @Override
+            public void onPositionChanged(NowPlayingTrack track, long positionMs) {
+                throw new IllegalStateException("listener bug");
+            }
+        }, ListenerThread.WORKER);
+        Recorder healthy = register(new Recorder(50), ListenerThread.WORKER);
+
+        long start = System.nanoTime();
+        publish(0, 50);
+        long publishNanos = System.nanoTime() - start;
+
+        // L'écouteur lent est toujours bloqué sur son premier événement
+        assertTrue(healthy.received.await(5, TimeUnit.SECONDS));
+        assertEquals(range(0, 50), healthy.positions);
+        assertTrue(slow.positions.isEmpty());
+        assertTrue(publishNanos < TimeUnit.MILLISECONDS.toNanos(100), "publisher blocked for " + publishNanos + " ns");
+
+        // Débloqué, il rattrape ses événements dans l'ordre
+        slow.gate.countDown();
+        assertTrue(slow.received.await(5, TimeUnit.SECONDS));
+        assertEquals(range(0, 50), slow.positions);
+    }
+
+    @Test
+    void closedRegistrationReceivesNothing() {
+        Recorder recorder = new Recorder(0);
+        NowPlayingEvents.Registration registration = bus.register(recorder, ListenerThread.CLIENT);
+        publish(0, 3);
+        registration.close();
+        publish(3, 6);
+        bus.drainClientThread();
+        assertTrue(recorder.positions.isEmpty());
+    }
+}
\ No newline at end of file
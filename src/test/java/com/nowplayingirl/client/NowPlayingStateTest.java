@@ -0,0 +1,222 @@
+package com.nowplayingirl.client;
+
+import com.nowplayingirl.client.media.AlbumPalette;
+import com.nowplayingirl.client.media.MediaInfo;
+import net.minecraft.util.Identifier;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NowPlayingStateTest {
+
+    private static final Identifier ART = Identifier.of("nowplayingirl", "dynamic/album_1");
+    private static final AlbumPalette PALETTE = new AlbumPalette(1, 2, 3, 4, 5);
+
+    private static MediaInfo media(String title) {
+        MediaInfo media = new MediaInfo(title, "Artist", "Spotify");
+        media.setDurationMs(200_000);
+        return media;
+    }
+
+    @Test
+    void newTrackStartsWithoutArt() {
+        MediaInfo first = media("One");
+        NowPlayingState state = NowPlayingState.EMPTY.withMedia(first).withAlbumArt(first, ART, PALETTE);
+        assertEquals(ART, state.albumArt());
+
+        MediaInfo second = media("Two");
+        NowPlayingState next = state.withMedia(second);
+        assertSame(second, next.media());
+        assertNull(next.albumArt());
+        assertEquals(state.version() + 1, next.version());
+        // Couleurs gardées jusqu'à la nouvelle pochette: pas de passage par le thème
+        assertEquals(PALETTE, next.palette());
+    }
+
+    @Test
+    void missingArtDropsPreviousPalette() {
+        MediaInfo first = media("One");
+        MediaInfo second = media("Two");
+        NowPlayingState state = NowPlayingState.EMPTY.withMedia(first).withAlbumArt(first, ART, PALETTE).withMedia(second);
+
+        // Réponse pour l'ancien morceau: ignorée
+        assertSame(state, state.withoutAlbumArt(first));
+        NowPlayingState next = state.withoutAlbumArt(second);
+        assertNull(next.palette());
+        assertSame(next, next.withoutAlbumArt(second));
+
+        // Une pochette déjà affichée n'est pas retirée
+        NowPlayingState withArt = state.withAlbumArt(second, ART, PALETTE);
+        assertSame(withArt, withArt.withoutAlbumArt(second));
+    }
+
+    @Test
+    void identicalReadingKeepsState() {
+        MediaInfo first = media("One");
+        NowPlayingState state = NowPlayingState.EMPTY.withMedia(first);
+        assertSame(state, state.withMedia(media("One")));
+    }
+
+    @Test
+    void lateMetadataIsMerged() {
+        MediaInfo first = media("One");
+        first.setDurationMs(0);
+        NowPlayingState state = NowPlayingState.EMPTY.withMedia(first).withAlbumArt(first, ART, PALETTE);
+
+        // Le lecteur publie la pochette, l'emplacement et la durée après le titre
+        MediaInfo later = media("One");
+        later.setArtUrl("https://example.com/cover.jpg");
+        later.setTrackUrl("file:///music/one.flac");
+        later.setDurationMs(180_000);
+        NowPlayingState next = state.withMedia(later);
+
+        assertNotSame(state, next);
+        assertEquals("https://example.com/cover.jpg", next.media().getArtUrl());
+        assertEquals("file:///music/one.flac", next.media().getTrackUrl());
+        assertEquals(180_000, next.media().getDurationMs());
+        assertEquals(ART, next.albumArt());
+        assertEquals(PALETTE, next.palette());
+        // L'instance publiée n'est pas modifiée
+        assertNull(first.getArtUrl());
+        assertEquals(0, first.getDurationMs());
+    }
+
+    @Test
+    void missingFieldsDoNotEraseKnownOnes() {
+        MediaInfo first = media("One");
+        first.setAlbum("Album");
+        first.setArtUrl("file:///cover.png");
+        NowPlayingState state = NowPlayingState.EMPTY.withMedia(first);
+
+        MediaInfo later = media("One");
+        later.setDurationMs(0);
+        assertSame(state, state.withMedia(later));
+        assertSame(first, first.mergedWith(later));
+    }
+
+    @Test
+    void artForLessCompleteVersionIsAccepted() {
+        MediaInfo first = media("One");
+        NowPlayingState state = NowPlayingState.EMPTY.withMedia(first);
+        MediaInfo later = media("One");
+        later.setArtUrl("https://example.com/cover.jpg");
+        state = state.withMedia(later);
+
+        // Requête partie avant la mise à jour: même morceau, résultat gardé
+        assertEquals(ART, state.withAlbumArt(first, ART, PALETTE).albumArt());
+        // Autre morceau: arrivée trop tard
+        assertSame(state, state.withAlbumArt(media("Two"), ART, PALETTE));
+    }
+
+    @Test
+    void pauseFreezesExtrapolatedPosition() {
+        MediaInfo playing = media("One");
+        playing.setPositionMs(10_000);
+        NowPlayingState state = NowPlayingState.EMPTY.withMedia(playing);
+        long sampledAt = state.positionSampledAt();
+        assertEquals(12_000, state.positionAt(sampledAt + 2_000_000_000L));
+
+        MediaInfo paused = media("One");
+        paused.setPlaying(false);
+        NowPlayingState next = state.withMedia(paused);
+        assertFalse(next.playing());
+        long frozen = next.positionAt(next.positionSampledAt());
+        assertTrue(frozen >= 10_000);
+        assertEquals(frozen, next.positionAt(next.positionSampledAt() + 60_000_000_000L));
+    }
+
+    @Test
+    void positionIsClampedToDuration() {
+        MediaInfo playing = media("One");
+        playing.setPositionMs(199_000);
+        NowPlayingState state = NowPlayingState.EMPTY.withMedia(playing);
+        assertEquals(200_000, state.positionAt(state.positionSampledAt() + 5_000_000_000L));
+        assertEquals(-1, NowPlayingState.EMPTY.positionAt(0));
+    }
+
+    @Test
+    void stoppingClearsEverything() {
+        MediaInfo first = media("One");
+        NowPlayingState state = NowPlayingState.EMPTY.withMedia(first).withAlbumArt(first, ART, PALETTE);
+        NowPlayingState stopped = state.withMedia(null);
+        assertFalse(stopped.hasMedia());
+        assertNull(stopped.albumArt());
+        assertNull(stopped.palette());
+        assertSame(stopped, stopped.withMedia(null));
+    }
+
+    /**
+     * Plusieurs écrivains (changements de morceau, pochettes arrivées en retard) publient par
+     * la même AtomicReference que NowPlayingClient; le lecteur ne doit jamais voir une version
+     * reculer, ni la pochette ou les couleurs d'un morceau attachées à un autre.
+     */
+    @Test
+    void concurrentWritersNeverPublishTornOrOlderSnapshots() throws Exception {
+        int tracks = 4;
+        AtomicReference<NowPlayingState> state = new AtomicReference<>(NowPlayingState.EMPTY);
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicReference<String> failure = new AtomicReference<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(1500);
+
+        List<Thread> writers = new ArrayList<>();
+        for (int w = 0; w < 3; w++) {
+            // Changements de morceau
+            writers.add(Thread.ofPlatform().start(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    MediaInfo media = media("Track " + random.nextInt(tracks));
+                    state.updateAndGet(s -> s.withMedia(media));
+                }
+            }));
+            // Pochettes, chacune demandée pour un morceau qui n'est peut-être plus le courant
+            writers.add(Thread.ofPlatform().start(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    int track = random.nextInt(tracks);
+                    MediaInfo forMedia = media("Track " + track);
+                    Identifier art = Identifier.of("nowplayingirl", "dynamic/album_" + track);
+                    AlbumPalette palette = new AlbumPalette(track, track, track, track, track);
+                    state.updateAndGet(s -> random.nextInt(4) == 0
+                        ? s.withoutAlbumArt(forMedia)
+                        : s.withAlbumArt(forMedia, art, palette));
+                }
+            }));
+        }
+
+        Thread reader = Thread.ofPlatform().start(() -> {
+            NowPlayingState last = state.get();
+            while (!stop.get() && failure.get() == null) {
+                NowPlayingState snapshot = state.get();
+                if (snapshot.version() < last.version()) {
+                    failure.set("version went back from " + last.version() + " to " + snapshot.version());
+                } else if (snapshot != last && snapshot.version() == last.version()) {
+                    failure.set("two snapshots share version " + snapshot.version());
+                } else if (snapshot.albumArt() != null) {
+                    String track = snapshot.media().getTitle().substring("Track ".length());
+                    if (!snapshot.albumArt().getPath().equals("dynamic/album_" + track)) {
+                        failure.set(snapshot.albumArt() + " shown for " + snapshot.media().getTitle());
+                    } else if (snapshot.palette() == null || snapshot.palette().primary() != Integer.parseInt(track)) {
+                        failure.set("palette " + snapshot.palette() + " shown for " + snapshot.media().getTitle());
+                    }
+                }
+                last = snapshot;
+            }
+        });
+
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        stop.set(true);
+        reader.join();
+
+        assertNull(failure.get(), failure.get());
+        assertTrue(state.get().version() > 1000, "only " + state.get().version() + " transitions");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,126 @@
+package com.nowplayingirl.client.hud;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HudAnimatorTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private long now;
+    private final HudAnimator animator = new HudAnimator(() -> now);
+
+    /**
+     * Avance l'horloge de frames images de frameNanos, avec une mise à jour à chaque image.
+     */
+    private void run(HudAnimator target, long frameNanos, int frames, boolean hasMedia, int updatesPerSecond) {
+        for (int i = 0; i < frames; i++) {
+            now += frameNanos;
+            target.update(hasMedia, 1f, updatesPerSecond);
+        }
+    }
+
+    @Test
+    void firstUpdateDoesNotMove() {
+        now = 5 * SECOND;
+        animator.update(true, 1f, 0);
+        assertEquals(0f, animator.getAlbumRotation());
+    }
+
+    @Test
+    void rotationDoesNotDependOnFrameRate() {
+        HudAnimator slow = new HudAnimator(() -> now);
+        animator.update(true, 1f, 0);
+        slow.update(true, 1f, 0);
+
+        long start = now;
+        run(animator, SECOND / 250, 250, true, 0);
+        now = start;
+        run(slow, SECOND / 20, 20, true, 0);
+
+        assertEquals(30f, animator.getAlbumRotation(), 0.01f);
+        assertEquals(30f, slow.getAlbumRotation(), 0.01f);
+    }
+
+    @Test
+    void framesLongerThanOneStepAreNotSlowedDown() {
+        animator.update(true, 1f, 0);
+        // 4 images par seconde: chaque image est découpée en plusieurs pas
+        run(animator, SECOND / 4, 8, true, 0);
+        assertEquals(60f, animator.getAlbumRotation(), 0.01f);
+    }
+
+    @Test
+    void longPauseIsNotCaughtUp() {
+        animator.update(true, 1f, 0);
+        now += 10 * SECOND;
+        animator.update(true, 1f, 0);
+        assertEquals(30f, animator.getAlbumRotation(), 0.01f);
+    }
+
+    @Test
+    void updateRateHoldsValuesBetweenUpdates() {
+        animator.update(true, 1f, 10);
+        run(animator, SECOND / 50, 4, true, 10);
+        assertEquals(0f, animator.getAlbumRotation());
+
+        run(animator, SECOND / 50, 1, true, 10);
+        assertEquals(3f, animator.getAlbumRotation(), 0.01f);
+
+        // Sur une seconde, la même rotation qu'à chaque image
+        run(animator, SECOND / 50, 45, true, 10);
+        assertEquals(30f, animator.getAlbumRotation(), 0.01f);
+    }
+
+    @Test
+    void approachIsIndependentOfStepSize() {
+        float once = HudAnimator.approach(0f, 1f, 0.1f, 0.1f);
+        float twice = HudAnimator.approach(HudAnimator.approach(0f, 1f, 0.1f, 0.05f), 1f, 0.1f, 0.05f);
+        assertEquals(1f - (float) Math.exp(-1), once, 1e-6f);
+        assertEquals(once, twice, 1e-6f);
+        assertEquals(0.5f, HudAnimator.approach(0.5f, 1f, 0.1f, 0f));
+    }
+
+    @Test
+    void appearFadesInAndSettles() {
+        animator.update(true, 1f, 0);
+        animator.triggerAppear();
+        assertTrue(animator.isFullyHidden());
+
+        run(animator, SECOND / 60, 6, true, 0);
+        assertTrue(animator.getVisibility() > 0.5f && animator.getVisibility() < 1f);
+        assertTrue(animator.getSlideOffset() > 0f);
+
+        run(animator, SECOND / 60, 60, true, 0);
+        assertEquals(1f, animator.getVisibility());
+        assertEquals(0f, animator.getSlideOffset());
+    }
+
+    @Test
+    void withoutMediaStaysDimlyVisible() {
+        animator.update(false, 1f, 0);
+        run(animator, SECOND / 30, 30, false, 0);
+        assertEquals(0.7f, animator.getVisibility(), 1e-6f);
+        assertEquals(0f, animator.getAlbumRotation());
+        assertTrue(animator.getSleepingNotePhase() > 0f);
+    }
+
+    @Test
+    void bounceEndsAtTheSameTimeAtAnyFrameRate() {
+        // Demi-période du rebond: pi / 9 s, environ 0,35 s
+        for (long frame : new long[] { SECOND / 250, SECOND / 25, SECOND / 5 }) {
+            now = 0;
+            HudAnimator bouncing = new HudAnimator(() -> now);
+            bouncing.update(true, 1f, 0);
+            bouncing.triggerAppear();
+
+            now = SECOND / 5;
+            bouncing.update(true, 1f, 0);
+            assertTrue(bouncing.getBounceOffset() > 0f, "frame " + frame);
+
+            run(bouncing, frame, (int) (SECOND / 5 / frame), true, 0);
+            assertEquals(0f, bouncing.getBounceOffset(), "frame " + frame);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,80 @@
+package com.nowplayingirl.client.hud;
+
+import com.nowplayingirl.client.media.AlbumPalette;
+import org.joml.Matrix3x2f;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Le travail d'une image stable du HUD (animations, couleurs, texte du temps, rotation de la pochette)
+ * ne doit rien allouer: mesuré avec le compteur d'allocations du thread.
+ */
+class HudFrameAllocationTest {
+
+    private static final long FRAME_NANOS = 16_666_667L;
+    private static final int WARMUP_FRAMES = 50_000;
+    private static final int MEASURED_FRAMES = 20_000;
+
+    private final com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private long now;
+    private final HudAnimator animator = new HudAnimator(() -> now);
+    private final HudPalette palette = new HudPalette();
+    private final HudTimeLabel timeLabel = new HudTimeLabel();
+    private final Matrix3x2f artRotation = new Matrix3x2f();
+    private final AlbumPalette album = new AlbumPalette(0xFF804020, 0xFF406080, 0xFFFFFFFF, 0xFFFFC040, 0xC0101010);
+    private long sink;
+
+    /**
+     * Ce que NowPlayingHud.render calcule à chaque image, sans les appels de dessin.
+     */
+    private void frame(long positionMs) {
+        now += FRAME_NANOS;
+        animator.update(true, 1f, 0);
+        palette.update(Theme.ALBUM, album, 0.9f * animator.getVisibility(), now);
+        if (timeLabel.update(positionMs, 215_000)) {
+            sink += timeLabel.text().length();
+        }
+        artRotation.rotation((float) Math.toRadians(animator.getAlbumRotation()));
+        sink += palette.background + palette.text + (long) animator.getPulseScale();
+    }
+
+    private long allocatedBytes() {
+        return threads.getThreadAllocatedBytes(Thread.currentThread().threadId());
+    }
+
+    @Test
+    void steadyFramesDoNotAllocate() {
+        assertTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        // Chauffe: le JIT compile et supprime les allocations qu'il peut
+        for (int i = 0; i < WARMUP_FRAMES; i++) {
+            frame(i * 16L % 200_000);
+        }
+
+        // Même seconde affichée: aucune image ne doit allouer
+        long position = 100_000;
+        long before = allocatedBytes();
+        for (int i = 0; i < MEASURED_FRAMES; i++) {
+            frame(position);
+        }
+        long steady = allocatedBytes() - before;
+
+        // Lecture normale: seul le libellé est reconstruit, une fois par seconde affichée
+        before = allocatedBytes();
+        for (int i = 0; i < MEASURED_FRAMES; i++) {
+            frame(i * 16L % 200_000);
+        }
+        long playing = allocatedBytes() - before;
+
+        assertTrue(sink != 0);
+        // Marge pour les quelques octets du compteur lui-même
+        assertTrue(steady < 256, steady + " bytes over " + MEASURED_FRAMES + " steady frames");
+        assertTrue(playing / (double) MEASURED_FRAMES < 8, playing + " bytes over " + MEASURED_FRAMES + " frames");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,251 @@
+package com.nowplayingirl.client.media;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlbumArtDiskCacheTest {
+
+    private static final long LARGE = 64L * 1024 * 1024;
+
+    @TempDir
+    Path directory;
+
+    private final List<AlbumArtDiskCache> opened = new ArrayList<>();
+
+    @AfterEach
+    void closeAll() {
+        for (AlbumArtDiskCache cache : opened) {
+            cache.close();
+        }
+    }
+
+    private AlbumArtDiskCache open(long maxBytes) {
+        AlbumArtDiskCache cache = AlbumArtDiskCache.open(directory, maxBytes);
+        if (cache != null) opened.add(cache);
+        return cache;
+    }
+
+    private static int[] pixels(int seed) {
+        return new int[] { 0xFF000000 | seed, 0x80FFFFFF, 0x00000000, 0xFF123456 + seed };
+    }
+
+    private long artFileCount() throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".art")).count();
+        }
+    }
+
+    @Test
+    void roundTrip() {
+        AlbumArtDiskCache cache = open(LARGE);
+        cache.put("artist|title", "https://example.com/a.jpg", 2, 2, pixels(1));
+
+        AlbumArtDiskCache.Entry entry = cache.get("artist|title");
+        assertNotNull(entry);
+        assertEquals("https://example.com/a.jpg", entry.artUrl());
+        assertEquals(2, entry.width());
+        assertEquals(2, entry.height());
+        assertArrayEquals(pixels(1), entry.argb());
+        assertNull(cache.get("other|title"));
+        assertEquals(1, cache.getEntryCount());
+    }
+
+    @Test
+    void survivesReopen() {
+        AlbumArtDiskCache cache = open(LARGE);
+        cache.put("key", null, 2, 2, pixels(2));
+        cache.close();
+
+        AlbumArtDiskCache reopened = open(LARGE);
+        assertFalse(reopened.isReadOnly());
+        AlbumArtDiskCache.Entry entry = reopened.get("key");
+        assertNotNull(entry);
+        assertNull(entry.artUrl());
+        assertArrayEquals(pixels(2), entry.argb());
+    }
+
+    @Test
+    void corruptEntryIsDropped() throws IOException {
+        AlbumArtDiskCache cache = open(LARGE);
+        cache.put("key", null, 2, 2, pixels(3));
+        try (var files = Files.list(directory)) {
+            Path file = files.filter(f -> f.toString().endsWith(".art")).findFirst().orElseThrow();
+            byte[] data = Files.readAllBytes(file);
+            data[data.length / 2] ^= 0x55;
+            Files.write(file, data);
+        }
+
+        assertNull(cache.get("key"));
+        assertEquals(0, cache.getEntryCount());
+        assertEquals(0, cache.getUsedBytes());
+        assertEquals(0, artFileCount());
+    }
+
+    @Test
+    void invalidIndexResetsCache() throws IOException {
+        AlbumArtDiskCache cache = open(LARGE);
+        cache.put("key", null, 2, 2, pixels(4));
+        cache.close();
+        Files.write(directory.resolve("index.bin"), new byte[] { 1, 2, 3 });
+
+        AlbumArtDiskCache reopened = open(LARGE);
+        assertNotNull(reopened);
+        assertNull(reopened.get("key"));
+        assertEquals(0, reopened.getEntryCount());
+        assertEquals(0, artFileCount());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedOverBudget() throws Exception {
+        AlbumArtDiskCache probe = open(LARGE);
+        probe.put("a", null, 2, 2, pixels(5));
+        long entryBytes = probe.getUsedBytes();
+        probe.clear();
+        probe.close();
+
+        AlbumArtDiskCache cache = open(entryBytes * 2 + entryBytes / 2);
+        cache.put("a", null, 2, 2, pixels(5));
+        Thread.sleep(5);
+        cache.put("b", null, 2, 2, pixels(6));
+        Thread.sleep(5);
+        // "a" redevient le plus récent
+        assertNotNull(cache.get("a"));
+        Thread.sleep(5);
+        cache.put("c", null, 2, 2, pixels(7));
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(2, cache.getEntryCount());
+        assertEquals(2, artFileCount());
+    }
+
+    @Test
+    void secondInstanceIsReadOnly() {
+        AlbumArtDiskCache owner = open(LARGE);
+        owner.put("shared", null, 2, 2, pixels(8));
+
+        AlbumArtDiskCache other = open(LARGE);
+        assertNotNull(other);
+        assertTrue(other.isReadOnly());
+        assertArrayEquals(pixels(8), other.get("shared").argb());
+
+        other.put("mine", null, 2, 2, pixels(9));
+        assertNull(other.get("mine"));
+        assertNull(owner.get("mine"));
+        assertEquals(1, owner.getEntryCount());
+
+        // Une fois le premier fermé, le verrou est libre
+        owner.close();
+        other.close();
+        assertFalse(open(LARGE).isReadOnly());
+    }
+
+    @Test
+    void lockedWithoutIndexIsDisabled() throws IOException {
+        // Un autre client tient le verrou mais n'a pas encore créé l'index
+        try (FileChannel channel = FileChannel.open(directory.resolve("cache.lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock ignored = channel.lock()) {
+            assertNull(open(LARGE));
+        }
+        assertNotNull(open(LARGE));
+    }
+
+    @Test
+    void slotCountFollowsMaxSize() {
+        assertEquals(256, AlbumArtDiskCache.slotCountFor(1024 * 1024));
+        // 64 Mo: ~7300 pochettes 48x48, table remplie aux 3/4 au plus
+        int slots = AlbumArtDiskCache.slotCountFor(LARGE);
+        assertEquals(16384, slots);
+        assertTrue(slots * 3 / 4 >= LARGE / (48 * 48 * 4));
+        assertEquals(1 << 17, AlbumArtDiskCache.slotCountFor(4096L * 1024 * 1024));
+    }
+
+    @Test
+    void entriesSurviveMaxSizeChange() {
+        AlbumArtDiskCache cache = open(LARGE);
+        for (int i = 0; i < 50; i++) {
+            cache.put("key" + i, null, 2, 2, pixels(i));
+        }
+        cache.close();
+
+        // Plus petite table: les entrées sont replacées, pas perdues
+        AlbumArtDiskCache smaller = open(1024 * 1024);
+        assertEquals(256, smaller.getSlotCount());
+        assertEquals(50, smaller.getEntryCount());
+        for (int i = 0; i < 50; i++) {
+            assertArrayEquals(pixels(i), smaller.get("key" + i).argb());
+        }
+        smaller.close();
+
+        AlbumArtDiskCache larger = open(LARGE);
+        assertEquals(16384, larger.getSlotCount());
+        assertEquals(50, larger.getEntryCount());
+        assertNotNull(larger.get("key42"));
+    }
+
+    @Test
+    void shrinkingKeepsMostRecentEntries() throws Exception {
+        AlbumArtDiskCache cache = open(LARGE);
+        for (int i = 0; i < 250; i++) {
+            // Clés de même longueur: toutes les entrées ont la même taille
+            cache.put(String.format("key%03d", i), null, 2, 2, pixels(i));
+            if (i % 50 == 0) Thread.sleep(2);
+        }
+        long entryBytes = cache.getUsedBytes() / 250;
+        cache.close();
+
+        // Limite en octets réduite à 100 entrées: les plus anciennes partent
+        AlbumArtDiskCache smaller = open(entryBytes * 100);
+        assertEquals(100, smaller.getEntryCount());
+        assertNotNull(smaller.get("key249"));
+        assertNull(smaller.get("key000"));
+        assertEquals(100, artFileCount());
+    }
+
+    @Test
+    void tombstonesAreCompacted() throws IOException {
+        // Table de 1024 cases: la compaction se déclenche au-delà de 128 marqueurs
+        long maxBytes = 600L * 48 * 48 * 4;
+        AlbumArtDiskCache cache = open(maxBytes);
+        assertEquals(1024, cache.getSlotCount());
+        for (int i = 0; i < 300; i++) {
+            cache.put("key" + i, null, 2, 2, pixels(i));
+        }
+        // Entrées disparues du disque: chaque lecture laisse un marqueur de suppression
+        try (var files = Files.list(directory)) {
+            files.filter(f -> f.toString().endsWith(".art")).limit(200).forEach(f -> f.toFile().delete());
+        }
+        int maxTombstones = cache.getSlotCount() / 8;
+        int missing = 0;
+        for (int i = 0; i < 300; i++) {
+            if (cache.get("key" + i) == null) missing++;
+            assertTrue(cache.getTombstoneCount() <= maxTombstones, "tombstones not compacted");
+        }
+        assertEquals(200, missing);
+        assertEquals(100, cache.getEntryCount());
+        assertTrue(cache.getTombstoneCount() < 200 - maxTombstones);
+
+        // Les chaînes de sondage restent valides après reconstruction, y compris après réouverture
+        cache.close();
+        AlbumArtDiskCache reopened = open(maxBytes);
+        int found = 0;
+        for (int i = 0; i < 300; i++) {
+            if (reopened.get("key" + i) != null) found++;
+        }
+        assertEquals(100, found);
+    }
+}
\ No newline at end of file
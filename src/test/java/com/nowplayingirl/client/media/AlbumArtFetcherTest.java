@@ -0,0 +1,213 @@
+package com.nowplayingirl.client.media;
+
+import com.sun.net.httpserver.HttpServer;
+import net.minecraft.util.Identifier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlbumArtFetcherTest {
+
+    private HttpServer server;
+    private AlbumArtFetcher fetcher;
+    private final AtomicInteger itunesHits = new AtomicInteger();
+    private final AtomicInteger deezerHits = new AtomicInteger();
+    // Les réponses attendent ce signal: les requêtes du test sont toutes en vol en même temps
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        // Aucun résultat chez les deux fournisseurs: absence définitive
+        serve("/itunes", itunesHits, "{\"resultCount\":0,\"results\":[]}");
+        serve("/deezer", deezerHits, "{\"data\":[],\"total\":0}");
+        server.start();
+        String base = "http://127.0.0.1:" + server.getAddress().getPort();
+        fetcher = new AlbumArtFetcher(new AlbumArtTextureCache(1024 * 1024), null, null,
+            HttpClient.newHttpClient(), base + "/itunes", base + "/deezer");
+    }
+
+    @AfterEach
+    void stop() {
+        release.countDown();
+        fetcher.shutdown();
+        server.stop(0);
+    }
+
+    private void serve(String path, AtomicInteger hits, String json) {
+        server.createContext(path, exchange -> {
+            hits.incrementAndGet();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = json.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            } catch (IOException ignored) {
+                // Requête abandonnée par le client
+            }
+            exchange.close();
+        });
+    }
+
+    private static MediaInfo media(String title) {
+        return new MediaInfo(title, "Artist", "Spotify");
+    }
+
+    @Test
+    void concurrentRequestsShareOneSearch() throws Exception {
+        int requests = 16;
+        List<CompletableFuture<Identifier>> futures = new ArrayList<>();
+        CountDownLatch ready = new CountDownLatch(requests);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            // Même morceau sous des titres différents: une seule clé après normalisation
+            String title = i % 2 == 0 ? "Song" : "Song (Official Video)";
+            threads.add(Thread.ofVirtual().start(() -> {
+                CompletableFuture<Identifier> future = fetcher.fetch(media(title));
+                synchronized (futures) {
+                    futures.add(future);
+                }
+                ready.countDown();
+            }));
+        }
+        assertTrue(ready.await(5, TimeUnit.SECONDS));
+        release.countDown();
+        for (CompletableFuture<Identifier> future : futures) {
+            assertNull(future.get(5, TimeUnit.SECONDS));
+        }
+
+        assertEquals(1, itunesHits.get());
+        assertEquals(1, deezerHits.get());
+        assertEquals(requests - 1, fetcher.getStats().coalesced());
+    }
+
+    @Test
+    void missIsCachedWithoutNewSearch() throws Exception {
+        release.countDown();
+        assertNull(fetcher.fetch(media("Song")).get(5, TimeUnit.SECONDS));
+        int hits = itunesHits.get() + deezerHits.get();
+        long cacheHits = fetcher.getStats().cacheHits();
+
+        CompletableFuture<Identifier> again = fetcher.fetch(media("Song"));
+        assertTrue(again.isDone());
+        assertNull(again.get());
+        assertEquals(hits, itunesHits.get() + deezerHits.get());
+        assertEquals(cacheHits + 1, fetcher.getStats().cacheHits());
+
+        // Une relance avec plus d'informations ignore l'absence connue
+        CompletableFuture<Identifier> refreshed = new CompletableFuture<>();
+        fetcher.refreshAsync(media("Song"), refreshed::complete);
+        assertNull(refreshed.get(5, TimeUnit.SECONDS));
+        assertTrue(itunesHits.get() + deezerHits.get() > hits);
+    }
+
+    @Test
+    void textureSizeFollowsScreenPixels() {
+        assertEquals(48, fetcher.getTextureSize());
+        // Échelle d'interface 2, HUD à 1.25: 48 x 2 x 1.25 = 120, arrondi à 128
+        assertTrue(fetcher.setTextureSize(120));
+        assertEquals(128, fetcher.getTextureSize());
+        assertFalse(fetcher.setTextureSize(128));
+        assertFalse(fetcher.setTextureSize(96));
+        assertEquals(96, fetcher.getTextureSize());
+        // Bornée à la taille de la plus grande échelle, jamais sous la taille dessinée
+        assertTrue(fetcher.setTextureSize(2000));
+        assertEquals(384, fetcher.getTextureSize());
+        fetcher.setTextureSize(10);
+        assertEquals(48, fetcher.getTextureSize());
+    }
+
+    @Test
+    void trackChangeCancelsStaleRequestsButNotPrefetches() throws Exception {
+        CompletableFuture<Identifier> first = fetcher.fetch(media("First"));
+        fetcher.prefetch(List.of(media("Next")));
+        AtomicInteger callbacks = new AtomicInteger();
+        fetcher.fetchAsync(media("Second"), texture -> callbacks.incrementAndGet());
+        assertTrue(first.isCancelled());
+
+        CompletableFuture<Identifier> third = fetcher.fetch(media("Third"));
+        assertFalse(third.isDone());
+        // Le préchargement est toujours en vol: une nouvelle demande le rejoint
+        long coalesced = fetcher.getStats().coalesced();
+        fetcher.prefetch(List.of(media("Next")));
+        assertEquals(coalesced + 1, fetcher.getStats().coalesced());
+
+        release.countDown();
+        assertNull(third.get(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        // Pas de rappel pour une requête annulée: ce n'est pas une absence de pochette
+        assertEquals(0, callbacks.get());
+    }
+
+    /**
+     * Fournisseur lent qui note le nombre maximal de requêtes servies en même temps.
+     */
+    private void serveSlow(String path, AtomicInteger current, AtomicInteger max, String json) {
+        server.createContext(path, exchange -> {
+            max.accumulateAndGet(current.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(150);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            current.decrementAndGet();
+            byte[] body = json.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+            exchange.close();
+        });
+    }
+
+    @Test
+    void slowProvidersStayWithinTheirLimitWithoutBlockingTheCaller() throws Exception {
+        AtomicInteger itunesCurrent = new AtomicInteger();
+        AtomicInteger itunesMax = new AtomicInteger();
+        AtomicInteger deezerCurrent = new AtomicInteger();
+        AtomicInteger deezerMax = new AtomicInteger();
+        serveSlow("/slow/itunes", itunesCurrent, itunesMax, "{\"resultCount\":0,\"results\":[]}");
+        serveSlow("/slow/deezer", deezerCurrent, deezerMax, "{\"data\":[],\"total\":0}");
+        String base = "http://127.0.0.1:" + server.getAddress().getPort();
+        AlbumArtFetcher loaded = new AlbumArtFetcher(new AlbumArtTextureCache(1024 * 1024), null, null,
+            HttpClient.newHttpClient(), base + "/slow/itunes", base + "/slow/deezer");
+        try {
+            int tracks = 32;
+            CountDownLatch done = new CountDownLatch(tracks);
+            long slowestCall = 0;
+            // Ce thread joue le thread de rendu: aucun appel ne doit attendre le réseau
+            for (int i = 0; i < tracks; i++) {
+                long start = System.nanoTime();
+                loaded.refreshAsync(media("Track " + i), texture -> done.countDown());
+                slowestCall = Math.max(slowestCall, System.nanoTime() - start);
+            }
+            assertTrue(slowestCall < TimeUnit.MILLISECONDS.toNanos(50), "caller blocked for " + slowestCall + " ns");
+
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            assertEquals(4, itunesMax.get());
+            assertTrue(deezerMax.get() <= 4, "deezer peak " + deezerMax.get());
+        } finally {
+            loaded.shutdown();
+        }
+    }
+}
\ No newline at end of file
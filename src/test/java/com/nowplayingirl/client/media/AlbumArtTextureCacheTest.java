@@ -0,0 +1,91 @@
+package com.nowplayingirl.client.media;
+
+import net.minecraft.util.Identifier;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlbumArtTextureCacheTest {
+
+    // Une pochette 16x16 RGBA
+    private static final long ENTRY_BYTES = 16 * 16 * 4;
+
+    private final List<Identifier> released = new ArrayList<>();
+    private final AlbumArtTextureCache cache = new AlbumArtTextureCache(2 * ENTRY_BYTES, released::addAll);
+
+    private static Identifier texture(int id) {
+        return Identifier.of("nowplayingirl", "dynamic/album_" + id);
+    }
+
+    private void put(String key, int id) {
+        cache.put(key, texture(id), 16, 16, null);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        put("a", 1);
+        put("b", 2);
+        cache.get("a");
+        put("c", 3);
+
+        assertEquals(List.of(texture(2)), released);
+        assertEquals(texture(1), cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(2 * ENTRY_BYTES, cache.getUsedBytes());
+    }
+
+    @Test
+    void pinnedTextureIsReleasedOnceUnpinned() {
+        put("a", 1);
+        assertTrue(cache.setDisplayed(texture(1)));
+        put("b", 2);
+        put("c", 3);
+        // Épinglée: dépasse le budget plutôt que d'être détruite sous le HUD
+        assertEquals(List.of(texture(2)), released);
+        cache.setBudget(ENTRY_BYTES);
+        assertEquals(texture(1), cache.get("a"));
+        assertEquals(ENTRY_BYTES, cache.getUsedBytes());
+
+        // Le HUD n'affiche plus de pochette: elle redevient évinçable comme les autres
+        assertTrue(cache.setDisplayed(null));
+        put("d", 4);
+        assertNull(cache.get("a"));
+        assertEquals(List.of(texture(2), texture(3), texture(1)), released);
+        assertEquals(ENTRY_BYTES, cache.getUsedBytes());
+    }
+
+    @Test
+    void smallerTextureIsDecodedAgain() {
+        put("a", 1);
+        assertEquals(texture(1), cache.get("a", 16));
+        // Échelle de l'interface augmentée: la texture 16x16 ne suffit plus pour 20x20
+        assertNull(cache.get("a", 20));
+        cache.put("a", texture(2), 20, 20, null);
+        assertEquals(texture(2), cache.get("a", 16));
+    }
+
+    @Test
+    void evictedTextureCannotBePinned() {
+        put("a", 1);
+        put("b", 2);
+        put("c", 3);
+        assertFalse(cache.setDisplayed(texture(1)));
+        assertTrue(cache.setDisplayed(texture(3)));
+    }
+
+    @Test
+    void replacedDisplayedTextureIsReleasedWhenHudMovesOn() {
+        put("a", 1);
+        cache.setDisplayed(texture(1));
+        // Pochette rafraîchie pour le même morceau: l'ancienne reste dessinée jusqu'au changement
+        put("a", 2);
+        assertTrue(released.isEmpty());
+        assertTrue(cache.setDisplayed(texture(1)));
+
+        cache.setDisplayed(texture(2));
+        assertEquals(List.of(texture(1)), released);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,82 @@
+package com.nowplayingirl.client.media;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlbumPaletteTest {
+
+    private static int[] image(int... colorAndCount) {
+        int size = 0;
+        for (int i = 1; i < colorAndCount.length; i += 2) size += colorAndCount[i];
+        int[] argb = new int[size];
+        int offset = 0;
+        for (int i = 0; i < colorAndCount.length; i += 2) {
+            Arrays.fill(argb, offset, offset + colorAndCount[i + 1], colorAndCount[i]);
+            offset += colorAndCount[i + 1];
+        }
+        return argb;
+    }
+
+    @Test
+    void swatchesAreSortedByPopulation() {
+        PaletteQuantizer.Swatch[] swatches = PaletteQuantizer.quantize(image(0xFF0000FF, 300, 0xFFFF0000, 600, 0xFF00FF00, 100));
+
+        assertEquals(3, swatches.length);
+        assertEquals(600, swatches[0].population());
+        assertEquals(300, swatches[1].population());
+        assertEquals(100, swatches[2].population());
+        // Couleur pure restituée au centre de sa case 5 bits
+        assertEquals(0xFC0404, swatches[0].rgb());
+    }
+
+    @Test
+    void transparentPixelsAreIgnored() {
+        assertEquals(0, PaletteQuantizer.quantize(image(0x00FF0000, 100, 0x7FFFFFFF, 100)).length);
+        assertEquals(0, PaletteQuantizer.quantize(new int[0]).length);
+        assertNull(AlbumPalette.extract(image(0x00FF0000, 100)));
+    }
+
+    @Test
+    void swatchCountIsBounded() {
+        int[] gradient = new int[256 * 64];
+        for (int i = 0; i < gradient.length; i++) {
+            gradient[i] = 0xFF000000 | (i & 0xFF) << 16 | (i >> 8) << 10 | (i * 7 & 0xFF);
+        }
+        PaletteQuantizer.Swatch[] swatches = PaletteQuantizer.quantize(gradient);
+
+        assertEquals(8, swatches.length);
+        // Échantillonnage au-delà de 4096 pixels: la population totale reste bornée
+        int total = Arrays.stream(swatches).mapToInt(PaletteQuantizer.Swatch::population).sum();
+        assertTrue(total <= 4096, "total " + total);
+    }
+
+    @Test
+    void vividColorWinsOverDullBackground() {
+        // Grand aplat gris foncé, petite tache orange
+        AlbumPalette palette = AlbumPalette.extract(image(0xFF202020, 900, 0xFFFF8000, 100));
+
+        assertNotNull(palette);
+        int primary = palette.primary();
+        assertEquals(0xFF, primary >>> 24);
+        assertTrue((primary >> 16 & 0xFF) > (primary & 0xFF) + 100, Integer.toHexString(primary));
+        assertEquals(0xFFFFFFFF, palette.text());
+        // Fond: même transparence que les thèmes fixes, très sombre
+        assertEquals(0xCC, palette.background() >>> 24);
+        assertTrue((palette.background() & 0xFF) < 0x30);
+    }
+
+    @Test
+    void darkCoverStillGivesReadablePrimary() {
+        AlbumPalette palette = AlbumPalette.extract(image(0xFF100030, 1000));
+
+        assertNotNull(palette);
+        int primary = palette.primary();
+        double luminance = (0.2126 * (primary >> 16 & 0xFF) + 0.7152 * (primary >> 8 & 0xFF) + 0.0722 * (primary & 0xFF)) / 255.0;
+        assertTrue(luminance >= 0.35, "luminance " + luminance);
+        // Une seule teinte: la secondaire est une version claire de la principale
+        assertNotEquals(palette.primary(), palette.secondary());
+    }
+}
\ No newline at end of file
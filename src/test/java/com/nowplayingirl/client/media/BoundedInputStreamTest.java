@@ -0,0 +1,52 @@
+package com.nowplayingirl.client.media;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedInputStreamTest {
+
+    private static InputStream bounded(int size, long limit) {
+        return new BoundedInputStream(new ByteArrayInputStream(new byte[size]), limit);
+    }
+
+    @Test
+    void readsUpToTheLimit() throws IOException {
+        try (InputStream in = bounded(100, 100)) {
+            assertEquals(100, in.readAllBytes().length);
+        }
+    }
+
+    @Test
+    void failsPastTheLimit() {
+        assertThrows(IOException.class, () -> bounded(101, 100).readAllBytes());
+    }
+
+    @Test
+    void countsSingleByteReads() throws IOException {
+        InputStream in = bounded(3, 2);
+        in.read();
+        in.read();
+        assertThrows(IOException.class, in::read);
+    }
+
+    @Test
+    void countsSkippedBytes() throws IOException {
+        InputStream in = bounded(10, 5);
+        assertEquals(5, in.skip(5));
+        assertThrows(IOException.class, in::read);
+    }
+
+    @Test
+    void endOfStreamIsNotCounted() throws IOException {
+        InputStream in = bounded(2, 2);
+        assertEquals(2, in.read(new byte[8], 0, 8));
+        assertEquals(-1, in.read(new byte[8], 0, 8));
+        assertEquals(-1, in.read());
+        assertFalse(in.markSupported());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,257 @@
+package com.nowplayingirl.client.media;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmbeddedTagReaderTest {
+
+    private static final byte[] PICTURE = "front-cover-bytes".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] OTHER_PICTURE = "back".getBytes(StandardCharsets.US_ASCII);
+    // Faux audio après les tags: ne doit jamais être interprété
+    private static final byte[] AUDIO = new byte[4096];
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsId3v23() throws IOException {
+        ByteArrayOutputStream frames = new ByteArrayOutputStream();
+        frames.writeBytes(id3Frame("TIT2", text(0, "Title"), false, 0));
+        frames.writeBytes(id3Frame("TPE1", text(1, "Artiste é"), false, 0));
+        frames.writeBytes(id3Frame("TALB", text(0, "Album\0"), false, 0));
+        frames.writeBytes(id3Frame("APIC", apic(3, ""), false, 0));
+        Path file = write("song.mp3", id3(3, frames.toByteArray(), 64));
+
+        EmbeddedTagReader.Tags tags = new EmbeddedTagReader().read(file);
+        assertEquals("Title", tags.title());
+        assertEquals("Artiste é", tags.artist());
+        assertEquals("Album", tags.album());
+        assertPicture(file, tags, PICTURE);
+    }
+
+    @Test
+    void readsId3v24AndPrefersFrontCover() throws IOException {
+        ByteArrayOutputStream frames = new ByteArrayOutputStream();
+        frames.writeBytes(id3Frame("APIC", apic(0, "back", OTHER_PICTURE), true, 0));
+        // Plusieurs valeurs séparées par un 0: la première est gardée
+        frames.writeBytes(id3Frame("TPE1", text(3, "First\0Second"), true, 0));
+        frames.writeBytes(id3Frame("APIC", apic(3, "front"), true, 0));
+        frames.writeBytes(id3Frame("TIT2", text(3, "Titre"), true, 0));
+        Path file = write("song.mp3", id3(4, frames.toByteArray(), 0));
+
+        EmbeddedTagReader.Tags tags = new EmbeddedTagReader().read(file);
+        assertEquals("First", tags.artist());
+        assertEquals("Titre", tags.title());
+        assertNull(tags.album());
+        assertPicture(file, tags, PICTURE);
+    }
+
+    @Test
+    void skipsCompressedId3Frames() throws IOException {
+        ByteArrayOutputStream frames = new ByteArrayOutputStream();
+        frames.writeBytes(id3Frame("TIT2", text(0, "Compressed"), false, 0x0080));
+        frames.writeBytes(id3Frame("TPE1", text(0, "Artist"), false, 0));
+        Path file = write("song.mp3", id3(3, frames.toByteArray(), 16));
+
+        EmbeddedTagReader.Tags tags = new EmbeddedTagReader().read(file);
+        assertNull(tags.title());
+        assertEquals("Artist", tags.artist());
+        assertFalse(tags.hasPicture());
+    }
+
+    @Test
+    void readsFlac() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes("fLaC".getBytes(StandardCharsets.US_ASCII));
+        out.writeBytes(flacBlock(0, false, new byte[34])); // STREAMINFO
+        out.writeBytes(flacBlock(4, false, vorbisComment("artist=Artist", "TITLE=Title", "Album=Album", "ARTIST=Ignored")));
+        out.writeBytes(flacBlock(6, false, flacPicture(4, OTHER_PICTURE)));
+        out.writeBytes(flacBlock(6, true, flacPicture(3, PICTURE)));
+        out.writeBytes(AUDIO);
+        Path file = write("song.flac", out.toByteArray());
+
+        EmbeddedTagReader.Tags tags = new EmbeddedTagReader().read(file);
+        assertEquals("Artist", tags.artist());
+        assertEquals("Title", tags.title());
+        assertEquals("Album", tags.album());
+        assertPicture(file, tags, PICTURE);
+    }
+
+    @Test
+    void readsMp4AfterMediaData() throws IOException {
+        ByteArrayOutputStream ilst = new ByteArrayOutputStream();
+        ilst.writeBytes(mp4Item("©nam", "Title".getBytes(StandardCharsets.UTF_8)));
+        ilst.writeBytes(mp4Item("©ART", "Artiste".getBytes(StandardCharsets.UTF_8)));
+        ilst.writeBytes(mp4Item("©alb", "Album".getBytes(StandardCharsets.UTF_8)));
+        ilst.writeBytes(mp4Item("covr", PICTURE));
+
+        ByteArrayOutputStream meta = new ByteArrayOutputStream();
+        meta.writeBytes(new byte[4]); // version et drapeaux
+        meta.writeBytes(atom("ilst", ilst.toByteArray()));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(atom("ftyp", "M4A \0\0\0\0".getBytes(StandardCharsets.ISO_8859_1)));
+        out.writeBytes(atom("mdat", AUDIO));
+        out.writeBytes(atom("moov", concat(atom("mvhd", new byte[100]), atom("udta", atom("meta", meta.toByteArray())))));
+        Path file = write("song.m4a", out.toByteArray());
+
+        EmbeddedTagReader.Tags tags = new EmbeddedTagReader().read(file);
+        assertEquals("Title", tags.title());
+        assertEquals("Artiste", tags.artist());
+        assertEquals("Album", tags.album());
+        assertPicture(file, tags, PICTURE);
+    }
+
+    @Test
+    void mp4WithoutTagsIsEmpty() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(atom("ftyp", "M4A \0\0\0\0".getBytes(StandardCharsets.ISO_8859_1)));
+        out.writeBytes(atom("moov", atom("mvhd", new byte[100])));
+        Path file = write("song.m4a", out.toByteArray());
+
+        EmbeddedTagReader.Tags tags = new EmbeddedTagReader().read(file);
+        assertNotNull(tags);
+        assertNull(tags.title());
+        assertFalse(tags.hasPicture());
+    }
+
+    @Test
+    void unknownFormatIsNull() throws IOException {
+        EmbeddedTagReader reader = new EmbeddedTagReader();
+        assertNull(reader.read(write("song.wav", concat("RIFF".getBytes(StandardCharsets.US_ASCII), AUDIO))));
+        assertNull(reader.read(write("tiny.mp3", "ID3".getBytes(StandardCharsets.US_ASCII))));
+    }
+
+    @Test
+    void cachesUntilFileChanges() throws IOException {
+        EmbeddedTagReader reader = new EmbeddedTagReader();
+        Path file = write("song.mp3", id3(3, id3Frame("TIT2", text(0, "One"), false, 0), 0));
+        EmbeddedTagReader.Tags first = reader.read(file);
+        assertSame(first, reader.read(file));
+
+        // Taille différente: relu même si la date de modification ne bouge pas
+        Files.write(file, id3(3, id3Frame("TIT2", text(0, "Second"), false, 0), 0));
+        assertEquals("Second", reader.read(file).title());
+    }
+
+    @Test
+    void mapPictureRejectsTruncatedFile() throws IOException {
+        Path file = write("song.mp3", new byte[16]);
+        EmbeddedTagReader.Tags tags = new EmbeddedTagReader.Tags(null, null, null, 8, 64);
+        assertThrows(IOException.class, () -> EmbeddedTagReader.mapPicture(file, tags));
+    }
+
+    // ===== Construction des fichiers =====
+
+    private Path write(String name, byte[] content) throws IOException {
+        Path file = directory.resolve(name);
+        Files.write(file, content);
+        return file;
+    }
+
+    private static void assertPicture(Path file, EmbeddedTagReader.Tags tags, byte[] expected) throws IOException {
+        assertTrue(tags.hasPicture());
+        ByteBuffer mapped = EmbeddedTagReader.mapPicture(file, tags);
+        byte[] actual = new byte[mapped.remaining()];
+        mapped.get(actual);
+        assertArrayEquals(expected, actual);
+    }
+
+    private static byte[] id3(int version, byte[] frames, int padding) {
+        int size = frames.length + padding;
+        ByteBuffer header = ByteBuffer.allocate(10);
+        header.put("ID3".getBytes(StandardCharsets.US_ASCII)).put((byte) version).put((byte) 0).put((byte) 0);
+        header.putInt(syncsafe(size));
+        return concat(header.array(), frames, new byte[padding], AUDIO);
+    }
+
+    private static byte[] id3Frame(String id, byte[] body, boolean syncsafe, int flags) {
+        ByteBuffer header = ByteBuffer.allocate(10);
+        header.put(id.getBytes(StandardCharsets.US_ASCII));
+        header.putInt(syncsafe ? syncsafe(body.length) : body.length);
+        header.putShort((short) flags);
+        return concat(header.array(), body);
+    }
+
+    private static byte[] text(int encoding, String value) {
+        byte[] encoded = value.getBytes(switch (encoding) {
+            case 1 -> StandardCharsets.UTF_16;
+            case 3 -> StandardCharsets.UTF_8;
+            default -> StandardCharsets.ISO_8859_1;
+        });
+        return concat(new byte[] { (byte) encoding }, encoded);
+    }
+
+    private static byte[] apic(int type, String description) {
+        return apic(type, description, PICTURE);
+    }
+
+    private static byte[] apic(int type, String description, byte[] picture) {
+        return concat(new byte[] { 0 }, "image/png\0".getBytes(StandardCharsets.ISO_8859_1),
+            new byte[] { (byte) type }, (description + "\0").getBytes(StandardCharsets.ISO_8859_1), picture);
+    }
+
+    private static int syncsafe(int value) {
+        return (value & 0x7F) | ((value >> 7) & 0x7F) << 8 | ((value >> 14) & 0x7F) << 16 | ((value >> 21) & 0x7F) << 24;
+    }
+
+    private static byte[] flacBlock(int type, boolean last, byte[] body) {
+        ByteBuffer header = ByteBuffer.allocate(4);
+        header.putInt((last ? 0x80000000 : 0) | type << 24 | body.length);
+        return concat(header.array(), body);
+    }
+
+    private static byte[] vorbisComment(String... comments) {
+        byte[] vendor = "test".getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(littleEndian(vendor.length));
+        out.writeBytes(vendor);
+        out.writeBytes(littleEndian(comments.length));
+        for (String comment : comments) {
+            byte[] bytes = comment.getBytes(StandardCharsets.UTF_8);
+            out.writeBytes(littleEndian(bytes.length));
+            out.writeBytes(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] flacPicture(int type, byte[] picture) {
+        byte[] mime = "image/png".getBytes(StandardCharsets.US_ASCII);
+        byte[] description = "desc".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer block = ByteBuffer.allocate(32 + mime.length + description.length + picture.length);
+        block.putInt(type).putInt(mime.length).put(mime).putInt(description.length).put(description);
+        block.putInt(48).putInt(48).putInt(24).putInt(0); // largeur, hauteur, profondeur, couleurs
+        block.putInt(picture.length).put(picture);
+        return block.array();
+    }
+
+    private static byte[] littleEndian(int value) {
+        return ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(value).array();
+    }
+
+    private static byte[] mp4Item(String name, byte[] value) {
+        return atom(name, atom("data", concat(new byte[8], value)));
+    }
+
+    private static byte[] atom(String type, byte[] body) {
+        ByteBuffer header = ByteBuffer.allocate(8);
+        header.putInt(8 + body.length).put(type.getBytes(StandardCharsets.ISO_8859_1));
+        return concat(header.array(), body);
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) out.writeBytes(part);
+        return out.toByteArray();
+    }
+}
\ No newline at end of file
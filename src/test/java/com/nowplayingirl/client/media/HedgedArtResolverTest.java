@@ -0,0 +1,235 @@
+package com.nowplayingirl.client.media;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HedgedArtResolverTest {
+
+    private static final long DEADLINE_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicLong upstreamCalls = new AtomicLong();
+    private HttpServer server;
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+        if (server != null) server.stop(0);
+    }
+
+    /**
+     * Fournisseur factice: délai, réponse ou erreur réglables entre deux appels.
+     */
+    private static final class StubProvider implements ArtProvider {
+        final String name;
+        volatile long delayMs;
+        volatile String artUrl;
+        volatile IOException error;
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicInteger interrupted = new AtomicInteger();
+
+        StubProvider(String name, String artUrl) {
+            this.name = name;
+            this.artUrl = artUrl;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public String findArtUrl(String artist, String title, Duration timeout) throws IOException, InterruptedException {
+            calls.incrementAndGet();
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                interrupted.incrementAndGet();
+                throw e;
+            }
+            if (error != null) throw error;
+            return artUrl;
+        }
+    }
+
+    private HedgedArtResolver resolver(StubProvider... providers) {
+        HedgedArtResolver resolver = new HedgedArtResolver(executor, Duration.ofSeconds(5), upstreamCalls);
+        for (StubProvider provider : providers) {
+            resolver.add(provider, 4);
+        }
+        return resolver;
+    }
+
+    private static HedgedArtResolver.Resolution resolve(HedgedArtResolver resolver) throws InterruptedException {
+        return resolver.resolve("Artist", "Title", System.nanoTime() + DEADLINE_NANOS);
+    }
+
+    @Test
+    void fastProviderAnswersAlone() throws Exception {
+        StubProvider first = new StubProvider("first", "https://first/art.jpg");
+        StubProvider second = new StubProvider("second", "https://second/art.jpg");
+
+        HedgedArtResolver.Resolution resolution = resolve(resolver(first, second));
+
+        assertEquals("https://first/art.jpg", resolution.artUrl());
+        assertTrue(resolution.definitive());
+        assertEquals(1, first.calls.get());
+        assertEquals(0, second.calls.get());
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void slowProviderIsHedged() throws Exception {
+        StubProvider first = new StubProvider("first", "https://first/art.jpg");
+        StubProvider second = new StubProvider("second", "https://second/art.jpg");
+        HedgedArtResolver resolver = resolver(first, second);
+        // Quelques réponses rapides: le 90e centile de "first" tombe sous le délai de secours minimal
+        for (int i = 0; i < 5; i++) resolve(resolver);
+
+        first.delayMs = 3000;
+        long start = System.nanoTime();
+        HedgedArtResolver.Resolution resolution = resolve(resolver);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals("https://second/art.jpg", resolution.artUrl());
+        assertEquals(1, second.calls.get());
+        assertTrue(elapsedMs >= 200 && elapsedMs < 1500, "hedged after " + elapsedMs + " ms");
+        // La requête perdante est interrompue
+        Thread.sleep(100);
+        assertEquals(1, first.interrupted.get());
+    }
+
+    @Test
+    void errorFallsThroughImmediately() throws Exception {
+        StubProvider first = new StubProvider("first", null);
+        first.error = new IOException("HTTP 500");
+        StubProvider second = new StubProvider("second", "https://second/art.jpg");
+
+        long start = System.nanoTime();
+        HedgedArtResolver.Resolution resolution = resolve(resolver(first, second));
+
+        assertEquals("https://second/art.jpg", resolution.artUrl());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 200);
+    }
+
+    @Test
+    void allEmptyIsDefinitive() throws Exception {
+        HedgedArtResolver.Resolution resolution = resolve(resolver(new StubProvider("a", null), new StubProvider("b", null)));
+
+        assertNull(resolution.artUrl());
+        assertTrue(resolution.definitive());
+    }
+
+    @Test
+    void errorIsNotDefinitive() throws Exception {
+        StubProvider failing = new StubProvider("a", null);
+        failing.error = new IOException("timeout");
+
+        HedgedArtResolver.Resolution resolution = resolve(resolver(failing, new StubProvider("b", null)));
+
+        assertNull(resolution.artUrl());
+        assertFalse(resolution.definitive());
+    }
+
+    @Test
+    void circuitBreakerSkipsFailingProvider() throws Exception {
+        StubProvider failing = new StubProvider("failing", null);
+        failing.error = new IOException("HTTP 503");
+        // Réponse vide: le fournisseur en panne est tout de même interrogé ensuite
+        StubProvider empty = new StubProvider("empty", null);
+        HedgedArtResolver resolver = resolver(failing, empty);
+
+        for (int i = 0; i < 3; i++) {
+            assertFalse(resolve(resolver).definitive());
+        }
+        assertEquals(3, failing.calls.get());
+
+        HedgedArtResolver.Resolution resolution = resolve(resolver);
+
+        assertEquals(3, failing.calls.get());
+        assertEquals(4, empty.calls.get());
+        // Fournisseur sauté: on ne sait pas s'il avait la pochette
+        assertNull(resolution.artUrl());
+        assertFalse(resolution.definitive());
+    }
+
+    @Test
+    void healthierProviderIsAskedFirst() throws Exception {
+        StubProvider flaky = new StubProvider("flaky", null);
+        StubProvider steady = new StubProvider("steady", "https://steady/art.jpg");
+        HedgedArtResolver resolver = resolver(flaky, steady);
+        flaky.error = new IOException("HTTP 500");
+        resolve(resolver);
+        flaky.error = null;
+        flaky.artUrl = "https://flaky/art.jpg";
+
+        assertEquals("https://steady/art.jpg", resolve(resolver).artUrl());
+    }
+
+    @Test
+    void deadlineBoundsTheWait() throws Exception {
+        StubProvider slow = new StubProvider("slow", "https://slow/art.jpg");
+        slow.delayMs = 5000;
+        StubProvider slower = new StubProvider("slower", "https://slower/art.jpg");
+        slower.delayMs = 5000;
+
+        long start = System.nanoTime();
+        HedgedArtResolver.Resolution resolution = resolver(slow, slower)
+            .resolve("Artist", "Title", start + TimeUnit.MILLISECONDS.toNanos(500));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertNull(resolution.artUrl());
+        assertFalse(resolution.definitive());
+        assertTrue(elapsedMs < 1000, "returned after " + elapsedMs + " ms");
+    }
+
+    @Test
+    void rateLimitedStubServerIsSkippedUntilRetryAfter() throws Exception {
+        AtomicInteger itunesCalls = new AtomicInteger();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/itunes", exchange -> {
+            itunesCalls.incrementAndGet();
+            exchange.getResponseHeaders().add("Retry-After", "120");
+            exchange.sendResponseHeaders(429, -1);
+            exchange.close();
+        });
+        server.createContext("/deezer", exchange -> {
+            byte[] body = ("{\"data\":[{\"title\":\"Title\",\"artist\":{\"name\":\"Artist\"},"
+                + "\"album\":{\"cover_medium\":\"https://deezer/cover.jpg\"}}],\"total\":1}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        String base = "http://127.0.0.1:" + server.getAddress().getPort();
+        HttpClient client = HttpClient.newHttpClient();
+
+        HedgedArtResolver resolver = new HedgedArtResolver(executor, Duration.ofSeconds(5), upstreamCalls)
+            .add(new ItunesArtProvider(client, base + "/itunes"), 4)
+            .add(new DeezerArtProvider(client, base + "/deezer"), 4);
+
+        assertEquals("https://deezer/cover.jpg", resolve(resolver).artUrl());
+        assertEquals(1, itunesCalls.get());
+
+        // Retry-After: 120 s, iTunes n'est plus appelé
+        assertEquals("https://deezer/cover.jpg", resolve(resolver).artUrl());
+        assertEquals(1, itunesCalls.get());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,84 @@
+package com.nowplayingirl.client.media;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpArtProviderTest {
+
+    private final ItunesArtProvider itunes = new ItunesArtProvider(null, ItunesArtProvider.API);
+    private final DeezerArtProvider deezer = new DeezerArtProvider(null, DeezerArtProvider.API);
+
+    private static InputStream json(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String itunesResult(int i) {
+        return "{\"wrapperType\":\"track\",\"artistName\":\"Artist " + i + "\",\"trackName\":\"Song " + i + "\","
+            + "\"artworkUrl100\":\"https://example.com/" + i + "/100x100bb.jpg\",\"trackTimeMillis\":200000}";
+    }
+
+    @Test
+    void itunesReadsFirstCandidatesWithLargerArt() throws IOException {
+        StringBuilder body = new StringBuilder("{\"resultCount\":8,\"results\":[");
+        body.append("{\"artistName\":\"No Art\",\"trackName\":\"Song\"},");
+        for (int i = 0; i < 7; i++) {
+            body.append(itunesResult(i)).append(i < 6 ? "," : "");
+        }
+        body.append("]}");
+
+        List<ArtCandidate> candidates = itunes.parse(json(body.toString()));
+
+        // Sans pochette: ignoré; au-delà de la limite: pas lu
+        assertEquals(HttpArtProvider.CANDIDATE_LIMIT, candidates.size());
+        assertEquals(new ArtCandidate("Artist 0", "Song 0", "https://example.com/0/300x300bb.jpg"), candidates.get(0));
+        assertEquals("Song 4", candidates.get(4).title());
+    }
+
+    @Test
+    void stopsReadingOnceEnoughResultsAreRead() throws IOException {
+        StringBuilder body = new StringBuilder("{\"results\":[");
+        for (int i = 0; i < HttpArtProvider.CANDIDATE_LIMIT; i++) {
+            body.append(itunesResult(i)).append(',');
+        }
+        // La suite n'est jamais lue: une fin de réponse invalide ne gêne pas
+        body.append("not json at all");
+
+        assertEquals(HttpArtProvider.CANDIDATE_LIMIT, itunes.parse(json(body.toString())).size());
+    }
+
+    @Test
+    void fieldsBeforeTheResultsAreSkipped() throws IOException {
+        String body = "{\"meta\":{\"nested\":[1,2,{\"results\":[]}]},\"resultCount\":1,\"results\":[" + itunesResult(1) + "]}";
+        assertEquals(List.of(new ArtCandidate("Artist 1", "Song 1", "https://example.com/1/300x300bb.jpg")),
+            itunes.parse(json(body)));
+    }
+
+    @Test
+    void deezerReadsNestedArtistAndCover() throws IOException {
+        String body = "{\"data\":[{\"id\":1,\"title\":\"Song\",\"artist\":{\"id\":2,\"name\":\"Artist\"},"
+            + "\"album\":{\"title\":\"Album\",\"cover_medium\":\"https://example.com/cover.jpg\"}},"
+            + "{\"title\":\"No Cover\",\"artist\":{\"name\":\"Artist\"},\"album\":null}],\"total\":2}";
+
+        assertEquals(List.of(new ArtCandidate("Artist", "Song", "https://example.com/cover.jpg")), deezer.parse(json(body)));
+    }
+
+    @Test
+    void missingResultsGiveNoCandidates() throws IOException {
+        assertEquals(List.of(), itunes.parse(json("{\"resultCount\":0}")));
+        assertEquals(List.of(), deezer.parse(json("{\"error\":{\"type\":\"Exception\",\"code\":800}}")));
+    }
+
+    @Test
+    void unexpectedStructureIsAnIOException() {
+        // Ce que JsonReader signale par IllegalStateException doit compter comme une erreur du fournisseur
+        assertThrows(IOException.class, () -> itunes.parse(json("[1,2,3]")));
+        assertThrows(IOException.class, () -> deezer.parse(json("{\"data\":[{\"title\":\"Song\",")));
+    }
+}
\ No newline at end of file
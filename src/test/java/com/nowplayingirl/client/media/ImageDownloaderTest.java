@@ -0,0 +1,186 @@
+package com.nowplayingirl.client.media;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageDownloaderTest {
+
+    private static final int TARGET_SIZE = 48;
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private HttpServer server;
+    private String base;
+    private ImageDownloader downloader;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort();
+        downloader = new ImageDownloader(HttpClient.newHttpClient(), 2);
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    private static byte[] png(int size) throws IOException {
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                image.setRGB(x, y, 0xFF000000 | (x * 255 / size) << 16 | (y * 255 / size) << 8);
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private void serve(String path, String contentType, long declaredLength, byte[] body) {
+        server.createContext(path, exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", contentType);
+            exchange.sendResponseHeaders(200, declaredLength);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            } catch (IOException ignored) {
+                // Le client a abandonné la réponse
+            }
+            exchange.close();
+        });
+    }
+
+    private AlbumArtDecoder.DecodedArt download(String path, long deadlineMs) throws Exception {
+        return downloader.download(base + path, TARGET_SIZE, TIMEOUT,
+            System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMs));
+    }
+
+    @Test
+    void decodesStraightToTargetSize() throws Exception {
+        byte[] image = png(600);
+        serve("/cover.png", "image/png", image.length, image);
+
+        AlbumArtDecoder.DecodedArt art = download("/cover.png", 5000);
+
+        assertEquals(TARGET_SIZE, art.width());
+        assertEquals(TARGET_SIZE, art.height());
+        assertEquals(TARGET_SIZE * TARGET_SIZE, art.argb().length);
+        // Dégradé conservé: rouge à droite, vert en bas
+        int bottomRight = art.argb()[art.argb().length - 1];
+        assertTrue(((bottomRight >> 16) & 0xFF) > 200 && ((bottomRight >> 8) & 0xFF) > 200);
+    }
+
+    @Test
+    void pooledBufferIsReused() throws Exception {
+        byte[] image = png(64);
+        serve("/cover.png", "image/png", image.length, image);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(TARGET_SIZE, download("/cover.png", 5000).width());
+        }
+    }
+
+    @Test
+    void rejectsDeclaredOversizedBody() {
+        byte[] body = new byte[ImageDownloader.MAX_IMAGE_BYTES + 1];
+        serve("/huge.jpg", "image/jpeg", body.length, body);
+
+        IOException error = assertThrows(IOException.class, () -> download("/huge.jpg", 5000));
+        assertTrue(error.getMessage().contains("too large"), error.getMessage());
+    }
+
+    @Test
+    void cutsUndeclaredOversizedBody() {
+        // Chunked: aucune taille annoncée, la lecture s'arrête au plafond
+        byte[] body = new byte[ImageDownloader.MAX_IMAGE_BYTES * 2];
+        serve("/huge.jpg", "image/jpeg", 0, body);
+
+        IOException error = assertThrows(IOException.class, () -> download("/huge.jpg", 5000));
+        assertTrue(error.getMessage().contains("larger than"), error.getMessage());
+    }
+
+    @Test
+    void rejectsNonImageContentType() {
+        serve("/page", "text/html; charset=utf-8", 5, "<html".getBytes());
+
+        IOException error = assertThrows(IOException.class, () -> download("/page", 5000));
+        assertTrue(error.getMessage().contains("Not an image"), error.getMessage());
+    }
+
+    @Test
+    void rejectsHttpErrors() {
+        server.createContext("/missing", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+
+        IOException error = assertThrows(IOException.class, () -> download("/missing", 5000));
+        assertTrue(error.getMessage().contains("404"), error.getMessage());
+    }
+
+    @Test
+    void failsOnTruncatedImage() throws Exception {
+        byte[] image = png(300);
+        byte[] half = Arrays.copyOf(image, image.length / 2);
+        serve("/half.png", "image/png", half.length, half);
+
+        assertThrows(IOException.class, () -> download("/half.png", 5000));
+    }
+
+    @Test
+    void failsWhenConnectionDropsEarly() throws Exception {
+        byte[] image = png(300);
+        // Taille annoncée complète, mais la connexion est coupée à mi-chemin
+        serve("/dropped.png", "image/png", image.length, Arrays.copyOf(image, image.length / 2));
+
+        assertThrows(IOException.class, () -> download("/dropped.png", 5000));
+    }
+
+    @Test
+    void slowDripStopsAtDeadline() throws Exception {
+        byte[] image = png(64);
+        server.createContext("/drip.png", exchange -> dripSlowly(exchange, image));
+
+        long start = System.nanoTime();
+        IOException error = assertThrows(IOException.class, () -> download("/drip.png", 500));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(error.getMessage().contains("timed out"), error.getMessage());
+        assertTrue(elapsedMs < 1500, "gave up after " + elapsedMs + " ms");
+        // Le chien de garde ne laisse pas le drapeau d'interruption au thread appelant
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+
+    private static void dripSlowly(HttpExchange exchange, byte[] body) {
+        try (OutputStream out = exchange.getResponseBody()) {
+            exchange.getResponseHeaders().add("Content-Type", "image/png");
+            exchange.sendResponseHeaders(200, body.length);
+            for (int i = 0; i < body.length && i < 50; i++) {
+                out.write(body[i]);
+                out.flush();
+                Thread.sleep(100);
+            }
+        } catch (IOException | InterruptedException ignored) {
+            // Client parti
+        }
+        exchange.close();
+    }
+}
\ No newline at end of file
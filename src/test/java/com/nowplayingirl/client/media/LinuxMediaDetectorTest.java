@@ -0,0 +1,112 @@
+package com.nowplayingirl.client.media;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LinuxMediaDetectorTest {
+
+    private static String line(String... fields) {
+        return String.join("\t", fields);
+    }
+
+    @Test
+    void parsesAllFields() {
+        MediaInfo info = LinuxMediaDetector.parseLine(line("Playing", "spotify", "12345000", "215000000",
+            "https://i.scdn.co/image/abc", "file:///music/a.flac", "Album", "Artist", "Title"));
+
+        assertNotNull(info);
+        assertEquals("Title", info.getTitle());
+        assertEquals("Artist", info.getArtist());
+        assertEquals("Album", info.getAlbum());
+        assertEquals("spotify", info.getSource());
+        assertEquals("https://i.scdn.co/image/abc", info.getArtUrl());
+        assertEquals("file:///music/a.flac", info.getTrackUrl());
+        assertTrue(info.isPlaying());
+        // Microsecondes -> millisecondes
+        assertEquals(215000, info.getDurationMs());
+        assertEquals(12345, info.getPositionMs());
+    }
+
+    @Test
+    void titleMayContainSeparator() {
+        MediaInfo info = LinuxMediaDetector.parseLine(line("Paused", "vlc", "", "", "", "", "", "Artist", "A\tB"));
+
+        assertNotNull(info);
+        assertEquals("A\tB", info.getTitle());
+        assertFalse(info.isPlaying());
+        assertEquals(0, info.getDurationMs());
+        assertEquals(-1, info.getPositionMs());
+        assertNull(info.getArtUrl());
+    }
+
+    @Test
+    void stoppedOrEmptyMeansNoMedia() {
+        assertNull(LinuxMediaDetector.parseLine(""));
+        assertNull(LinuxMediaDetector.parseLine(null));
+        assertNull(LinuxMediaDetector.parseLine(line("Stopped", "vlc", "", "", "", "", "", "Artist", "Title")));
+        assertNull(LinuxMediaDetector.parseLine(line("Playing", "vlc", "", "", "", "", "", "", "")));
+        assertNull(LinuxMediaDetector.parseLine("Playing\tvlc"));
+    }
+
+    @Test
+    void ignoresMalformedNumbers() {
+        MediaInfo info = LinuxMediaDetector.parseLine(line("Playing", "", "abc", "xyz", "", "", "", "Artist", "Title"));
+
+        assertNotNull(info);
+        assertEquals("Unknown", info.getSource());
+        assertEquals(0, info.getDurationMs());
+        assertEquals(-1, info.getPositionMs());
+    }
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private static String tick(String status, long positionSeconds) {
+        return line(status, "spotify", Long.toString(positionSeconds * 1_000_000), "215000000",
+            "", "", "Album", "Artist", "Title");
+    }
+
+    @Test
+    void positionTicksAreFiltered() {
+        LinuxMediaDetector.PositionFilter filter = new LinuxMediaDetector.PositionFilter();
+        assertTrue(filter.accept(tick("Playing", 10), 0));
+        // Une ligne par seconde de lecture: la position suit l'extrapolation
+        for (int i = 1; i <= 5; i++) {
+            assertFalse(filter.accept(tick("Playing", 10 + i), i * SECOND));
+        }
+    }
+
+    @Test
+    void seekIsPublished() {
+        LinuxMediaDetector.PositionFilter filter = new LinuxMediaDetector.PositionFilter();
+        assertTrue(filter.accept(tick("Playing", 10), 0));
+        assertTrue(filter.accept(tick("Playing", 90), SECOND));
+        // Nouvelle référence: la lecture continue depuis le saut
+        assertFalse(filter.accept(tick("Playing", 91), 2 * SECOND));
+        // Retour en arrière
+        assertTrue(filter.accept(tick("Playing", 0), 3 * SECOND));
+    }
+
+    @Test
+    void otherFieldChangesArePublished() {
+        LinuxMediaDetector.PositionFilter filter = new LinuxMediaDetector.PositionFilter();
+        assertTrue(filter.accept(tick("Playing", 10), 0));
+        assertTrue(filter.accept(tick("Paused", 11), SECOND));
+        // En pause la position n'avance pas: une ligne identique ne change rien
+        assertFalse(filter.accept(tick("Paused", 11), 10 * SECOND));
+        assertTrue(filter.accept(tick("Playing", 11), 11 * SECOND));
+        assertTrue(filter.accept(line("Playing", "spotify", "12000000", "215000000",
+            "https://i.scdn.co/image/abc", "", "Album", "Artist", "Title"), 12 * SECOND));
+    }
+
+    @Test
+    void resetPublishesAgain() {
+        LinuxMediaDetector.PositionFilter filter = new LinuxMediaDetector.PositionFilter();
+        assertTrue(filter.accept(tick("Playing", 10), 0));
+        filter.reset();
+        assertTrue(filter.accept(tick("Playing", 11), SECOND));
+        // Lignes sans position ni champs: comparées telles quelles
+        assertTrue(filter.accept("", 2 * SECOND));
+        assertFalse(filter.accept("", 3 * SECOND));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,107 @@
+package com.nowplayingirl.client.media;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalArtLibraryTest {
+
+    // Assez ancien pour que l'index fasse confiance à la date
+    private static final FileTime PAST = FileTime.from(Instant.now().minus(1, ChronoUnit.HOURS));
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void findsCoverByArtistAndAlbum() throws Exception {
+        Path music = directory.resolve("music");
+        Path album = Files.createDirectories(music.resolve("Artist").resolve("Album (Deluxe Edition)"));
+        Files.write(album.resolve("cover.jpg"), new byte[1]);
+        Files.write(album.resolve("back.jpg"), new byte[1]);
+        Path split = Files.createDirectories(music.resolve("Other - Record").resolve("CD1"));
+        Files.write(split.resolve("folder.png"), new byte[1]);
+
+        LocalArtLibrary library = scan(music);
+        try {
+            assertEquals(album.resolve("cover.jpg"), library.find("Artist", "Album", null));
+            assertEquals(album.resolve("cover.jpg"), library.find("Artist feat. Guest", "Album [Remastered]", null));
+            assertEquals(split.resolve("folder.png"), library.find("Other", "Record", null));
+            assertNull(library.find("Artist", "Missing", null));
+        } finally {
+            library.close();
+        }
+    }
+
+    @Test
+    void unchangedFoldersAreNotListedAgain() throws Exception {
+        Path music = directory.resolve("music");
+        Path artist = Files.createDirectories(music.resolve("Artist"));
+        Path album = Files.createDirectories(artist.resolve("Album"));
+        Path other = Files.createDirectories(artist.resolve("Other"));
+        Files.write(album.resolve("cover.jpg"), new byte[1]);
+        for (Path dir : List.of(music, artist, album, other)) {
+            Files.setLastModifiedTime(dir, PAST);
+        }
+
+        LocalArtLibrary first = scan(music);
+        first.close();
+        assertNull(first.find("Artist", "Other", null));
+
+        // Image glissée sans changer la date du dossier: preuve que le dossier n'est pas relu
+        Files.write(other.resolve("cover.jpg"), new byte[1]);
+        Files.setLastModifiedTime(other, PAST);
+        // Nouvel album: la date de "Artist" change, il est relu
+        Path added = Files.createDirectories(artist.resolve("Added"));
+        Files.write(added.resolve("cover.jpg"), new byte[1]);
+
+        LocalArtLibrary second = scan(music);
+        try {
+            assertEquals(album.resolve("cover.jpg"), second.find("Artist", "Album", null));
+            assertNull(second.find("Artist", "Other", null));
+            assertEquals(added.resolve("cover.jpg"), second.find("Artist", "Added", null));
+        } finally {
+            second.close();
+        }
+    }
+
+    @Test
+    void removedFoldersAreForgotten() throws Exception {
+        Path music = directory.resolve("music");
+        Path album = Files.createDirectories(music.resolve("Artist").resolve("Album"));
+        Files.write(album.resolve("cover.jpg"), new byte[1]);
+        scan(music).close();
+
+        Files.delete(album.resolve("cover.jpg"));
+        Files.delete(album);
+
+        LocalArtLibrary library = scan(music);
+        try {
+            assertNull(library.find("Artist", "Album", null));
+            assertEquals(0, library.getCoverCount());
+        } finally {
+            library.close();
+        }
+    }
+
+    private LocalArtLibrary scan(Path music) throws InterruptedException {
+        LocalArtLibrary library = new LocalArtLibrary(List.of(music), directory.resolve("library.bin"));
+        library.start();
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!library.isScanned()) {
+            if (System.nanoTime() > deadline) {
+                library.close();
+                fail("Scan did not finish");
+            }
+            Thread.sleep(10);
+        }
+        return library;
+    }
+}
\ No newline at end of file
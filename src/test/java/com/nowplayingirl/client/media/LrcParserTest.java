@@ -0,0 +1,95 @@
+package com.nowplayingirl.client.media;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LrcParserTest {
+
+    @Test
+    void parsesAndSortsLines() {
+        Lyrics lyrics = LrcParser.parse("""
+            [ar:Artist]
+            [ti:Title]
+            [00:20.00]Second
+            [00:10.00][00:30.00]Repeated
+            [00:25.00]
+            """);
+
+        assertNotNull(lyrics);
+        assertEquals(4, lyrics.size());
+        assertEquals(10_000, lyrics.timeAt(0));
+        assertEquals("Repeated", lyrics.lineAt(0));
+        assertEquals("Second", lyrics.lineAt(1));
+        // Passage instrumental: ligne vide
+        assertEquals("", lyrics.lineAt(2));
+        assertEquals("Repeated", lyrics.lineAt(3));
+    }
+
+    @Test
+    void keepsBracketsThatAreNotTags() {
+        Lyrics lyrics = LrcParser.parse("[00:12.00][Chorus] text\n[00:14.00][ar:Artist][Verse 2]");
+
+        assertEquals("[Chorus] text", lyrics.lineAt(0));
+        assertEquals("[Verse 2]", lyrics.lineAt(1));
+    }
+
+    @Test
+    void appliesOffset() {
+        Lyrics lyrics = LrcParser.parse("[offset:+500]\n[00:01.00]One\n[00:00.20]Zero");
+
+        // Offset positif: les paroles arrivent plus tôt, sans passer sous zéro
+        assertEquals(0, lyrics.timeAt(0));
+        assertEquals(500, lyrics.timeAt(1));
+        assertEquals("One", lyrics.lineAt(1));
+    }
+
+    @Test
+    void stripsWordTimingsAndBom() {
+        Lyrics lyrics = LrcParser.parse("\uFEFF[00:01.00]<00:01.00>Hello   <00:01.50>world\r\n");
+
+        assertEquals(1, lyrics.size());
+        assertEquals("Hello world", lyrics.lineAt(0));
+    }
+
+    @Test
+    void lastDuplicateTimestampWins() {
+        Lyrics lyrics = LrcParser.parse("[00:05.00]First\n[00:05.00]Second");
+
+        assertEquals(1, lyrics.size());
+        assertEquals("Second", lyrics.lineAt(0));
+    }
+
+    @Test
+    void withoutTimestampsIsNull() {
+        assertNull(LrcParser.parse("[ar:Artist]\nPlain lyrics\n[Chorus] more"));
+        assertNull(LrcParser.parse(""));
+    }
+
+    @Test
+    void parsesTimeFormats() {
+        assertEquals(62_000, LrcParser.parseTime("01:02"));
+        assertEquals(62_500, LrcParser.parseTime("01:02.5"));
+        assertEquals(62_500, LrcParser.parseTime("01:02.50"));
+        assertEquals(62_500, LrcParser.parseTime("01:02.500"));
+        assertEquals(62_500, LrcParser.parseTime("01:02:50"));
+        assertEquals(6_000_000, LrcParser.parseTime("100:00"));
+
+        assertEquals(-1, LrcParser.parseTime("01:60"));
+        assertEquals(-1, LrcParser.parseTime("ab:00"));
+        assertEquals(-1, LrcParser.parseTime("01:02.5000"));
+        assertEquals(-1, LrcParser.parseTime("ar:Artist"));
+        assertEquals(-1, LrcParser.parseTime("Chorus"));
+    }
+
+    @Test
+    void findsCurrentLine() {
+        Lyrics lyrics = LrcParser.parse("[00:10.00]A\n[00:20.00]B");
+
+        assertEquals(-1, lyrics.indexAt(9_999));
+        assertEquals(0, lyrics.indexAt(10_000));
+        assertEquals(0, lyrics.indexAt(19_999));
+        assertEquals(1, lyrics.indexAt(20_000));
+        assertEquals(1, lyrics.indexAt(1_000_000));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,75 @@
+package com.nowplayingirl.client.media;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlayerRuleTest {
+
+    private static WindowSnapshot window(String className, String title, boolean visible, String imageName) {
+        return new WindowSnapshot(0, className, title, 1, visible, imageName);
+    }
+
+    @Test
+    void literalIgnoresCase() {
+        PlayerRule.Literal vlc = PlayerRule.Literal.of("VLC media player");
+        assertTrue(vlc.in("Song - vlc MEDIA Player"));
+        assertTrue(vlc.in("VLC media player"));
+        assertFalse(vlc.in("VLC media"));
+        assertFalse(vlc.in("Song - VLC player"));
+
+        // Premier caractère répété: chaque occurrence est essayée
+        assertTrue(PlayerRule.Literal.of("aAb").in("xaaAAab"));
+        assertFalse(PlayerRule.Literal.of("aab").in("aaAa"));
+        assertTrue(PlayerRule.Literal.of("spotify").in("C:\\Users\\Me\\AppData\\Roaming\\Spotify\\Spotify.exe"));
+
+        assertNull(PlayerRule.Literal.of(""));
+        assertNull(PlayerRule.Literal.of(null));
+    }
+
+    @Test
+    void invalidRulesAreSkipped() {
+        assertNull(new PlayerRule("Broken", null, "^(?<title>.+").compile());
+        // Sans groupe "title", la règle ne saurait rien extraire
+        assertNull(new PlayerRule("NoTitle", null, "^(?<artist>.+) - (.+)$").compile());
+        assertNull(new PlayerRule(null, null, "^(?<title>.+)$").compile());
+        assertNull(new PlayerRule("NoPattern", "x", null).compile());
+    }
+
+    @Test
+    void cheapFiltersRejectBeforeTheRegex() {
+        WindowMatcher rule = new PlayerRule("Player", "Player", "^(?<artist>.+?) - (?<title>.+?) - Player$")
+            .windowClasses("PlayerWindow")
+            .process("player.exe")
+            .compile();
+        assertNotNull(rule);
+
+        MediaInfo media = rule.match(window("PlayerWindow1", "Artist - Song - Player", true, "C:\\Player.EXE"));
+        assertNotNull(media);
+        assertEquals("Artist", media.getArtist());
+        assertEquals("Song", media.getTitle());
+        assertEquals("Player", media.getSource());
+
+        assertNull(rule.match(window("OtherWindow", "Artist - Song - Player", true, "C:\\player.exe")));
+        assertNull(rule.match(window("PlayerWindow1", "Artist - Song - Player", true, "C:\\other.exe")));
+        assertNull(rule.match(window("PlayerWindow1", "Artist - Song - Player", true, null)));
+        assertNull(rule.match(window("PlayerWindow1", "Artist - Song - Player", false, "C:\\player.exe")));
+        assertTrue(rule.needsProcessImage("PlayerWindow1"));
+        assertFalse(rule.needsProcessImage("OtherWindow"));
+    }
+
+    @Test
+    void strippedNameAndDefaultArtist() {
+        WindowMatcher stripped = new PlayerRule("foobar2000", "foobar2000", "^(?<artist>.+?) - (?<title>.+)$").strip().compile();
+        MediaInfo media = stripped.match(window("{97E27FAA}", "Artist - Title - FOOBAR2000", true, null));
+        assertNotNull(media);
+        assertEquals("Artist", media.getArtist());
+        assertEquals("Title", media.getTitle());
+
+        WindowMatcher titleOnly = new PlayerRule("Radio", "Radio", "^(?<title>.+?) - Radio$").defaultArtist("Live").compile();
+        media = titleOnly.match(window("RadioWindow", "Morning Show - Radio", true, null));
+        assertNotNull(media);
+        assertEquals("Live", media.getArtist());
+        assertEquals("Morning Show", media.getTitle());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,139 @@
+package com.nowplayingirl.client.media;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProviderHealthTest {
+
+    private static final long MS = 1_000_000L;
+    private static final long SECOND = 1000 * MS;
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        ProviderHealth health = new ProviderHealth();
+        long now = 0;
+        assertTrue(health.tryAcquire(now));
+
+        health.recordFailure(10 * MS, now);
+        health.recordFailure(10 * MS, now);
+        assertEquals(ProviderHealth.State.CLOSED, health.getState());
+        health.recordFailure(10 * MS, now);
+        assertEquals(ProviderHealth.State.OPEN, health.getState());
+
+        assertFalse(health.tryAcquire(now + 29 * SECOND));
+        // Demi-ouverture: un seul essai à la fois
+        assertTrue(health.tryAcquire(now + 30 * SECOND));
+        assertEquals(ProviderHealth.State.HALF_OPEN, health.getState());
+        assertFalse(health.tryAcquire(now + 30 * SECOND));
+    }
+
+    @Test
+    void successAfterFailuresResetsCount() {
+        ProviderHealth health = new ProviderHealth();
+        health.recordFailure(MS, 0);
+        health.recordFailure(MS, 0);
+        health.recordSuccess(MS);
+        health.recordFailure(MS, 0);
+        health.recordFailure(MS, 0);
+
+        assertEquals(ProviderHealth.State.CLOSED, health.getState());
+    }
+
+    @Test
+    void failedTrialDoublesCooldown() {
+        ProviderHealth health = new ProviderHealth();
+        for (int i = 0; i < 3; i++) health.recordFailure(MS, 0);
+
+        long trial = 30 * SECOND;
+        assertTrue(health.tryAcquire(trial));
+        health.recordFailure(MS, trial);
+
+        assertEquals(ProviderHealth.State.OPEN, health.getState());
+        assertFalse(health.tryAcquire(trial + 59 * SECOND));
+        assertTrue(health.tryAcquire(trial + 60 * SECOND));
+    }
+
+    @Test
+    void successfulTrialCloses() {
+        ProviderHealth health = new ProviderHealth();
+        for (int i = 0; i < 3; i++) health.recordFailure(MS, 0);
+
+        assertTrue(health.tryAcquire(30 * SECOND));
+        health.recordSuccess(5 * MS);
+
+        assertEquals(ProviderHealth.State.CLOSED, health.getState());
+        assertTrue(health.tryAcquire(30 * SECOND));
+        assertTrue(health.tryAcquire(30 * SECOND));
+    }
+
+    @Test
+    void abandonedTrialFreesTheSlot() {
+        ProviderHealth health = new ProviderHealth();
+        for (int i = 0; i < 3; i++) health.recordFailure(MS, 0);
+
+        assertTrue(health.tryAcquire(30 * SECOND));
+        health.recordAbandoned();
+        assertTrue(health.tryAcquire(30 * SECOND));
+    }
+
+    @Test
+    void rateLimitHonoursRetryAfter() {
+        ProviderHealth health = new ProviderHealth();
+        health.recordRateLimited(Duration.ofSeconds(5), 0);
+
+        assertEquals(ProviderHealth.State.OPEN, health.getState());
+        assertFalse(health.tryAcquire(4 * SECOND));
+        assertTrue(health.tryAcquire(5 * SECOND));
+    }
+
+    @Test
+    void rateLimitWithoutRetryAfterWaitsOneMinute() {
+        ProviderHealth health = new ProviderHealth();
+        health.recordRateLimited(null, 0);
+
+        assertFalse(health.tryAcquire(59 * SECOND));
+        assertTrue(health.tryAcquire(60 * SECOND));
+    }
+
+    @Test
+    void rateLimitIsCapped() {
+        ProviderHealth health = new ProviderHealth();
+        health.recordRateLimited(Duration.ofDays(1), 0);
+
+        assertTrue(health.tryAcquire(10 * 60 * SECOND));
+    }
+
+    @Test
+    void p90IgnoresFailures() {
+        ProviderHealth health = new ProviderHealth();
+        for (int i = 1; i <= 10; i++) {
+            health.recordSuccess(i * MS);
+        }
+        health.recordFailure(5000 * MS, 0);
+
+        assertEquals(9 * MS, health.p90Nanos());
+        assertEquals(1 / 11.0, health.errorRate(), 1e-9);
+    }
+
+    @Test
+    void p90DefaultsWithoutSamples() {
+        assertEquals(1000 * MS, new ProviderHealth().p90Nanos());
+    }
+
+    @Test
+    void errorsRaiseScore() {
+        ProviderHealth healthy = new ProviderHealth();
+        ProviderHealth flaky = new ProviderHealth();
+        for (int i = 0; i < 10; i++) {
+            healthy.recordSuccess(100 * MS);
+            flaky.recordSuccess(50 * MS);
+            flaky.recordFailure(50 * MS, 0);
+            flaky.recordSuccess(50 * MS);
+        }
+
+        assertTrue(flaky.score() > healthy.score());
+    }
+}
\ No newline at end of file
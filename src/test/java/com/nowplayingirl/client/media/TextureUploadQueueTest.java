@@ -0,0 +1,88 @@
+package com.nowplayingirl.client.media;
+
+import net.minecraft.client.texture.NativeImage;
+import net.minecraft.util.Identifier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextureUploadQueueTest {
+
+    private final TextureUploadQueue queue = new TextureUploadQueue(2);
+
+    @AfterEach
+    void tearDown() {
+        queue.clear();
+    }
+
+    private CompletableFuture<Identifier> submit(int id, boolean prefetch) {
+        return queue.submit(Identifier.of("nowplayingirl", "dynamic/album_" + id), new NativeImage(1, 1, false), () -> prefetch);
+    }
+
+    private static void assertRejected(CompletableFuture<Identifier> upload) {
+        assertTrue(upload.isCompletedExceptionally());
+        ExecutionException error = assertThrows(ExecutionException.class, upload::get);
+        assertTrue(error.getCause() instanceof RejectedExecutionException);
+    }
+
+    @Test
+    void displayedTrackShedsOldestPrefetch() {
+        CompletableFuture<Identifier> first = submit(1, true);
+        CompletableFuture<Identifier> second = submit(2, true);
+
+        CompletableFuture<Identifier> current = submit(3, false);
+
+        assertRejected(first);
+        assertFalse(second.isDone());
+        assertFalse(current.isDone());
+    }
+
+    @Test
+    void prefetchIsRejectedWhenFull() {
+        CompletableFuture<Identifier> current = submit(1, false);
+        CompletableFuture<Identifier> prefetch = submit(2, true);
+
+        assertRejected(submit(3, true));
+        assertFalse(current.isDone());
+        assertFalse(prefetch.isDone());
+    }
+
+    @Test
+    void displayedUploadsAreNeverShed() {
+        CompletableFuture<Identifier> first = submit(1, false);
+        CompletableFuture<Identifier> second = submit(2, false);
+
+        assertRejected(submit(3, false));
+        assertFalse(first.isDone());
+        assertFalse(second.isDone());
+    }
+
+    @Test
+    void prefetchPromotedToDisplayedIsKept() {
+        // Le morceau préchargé devient le morceau affiché pendant que son upload attend
+        AtomicBoolean stillPrefetch = new AtomicBoolean(true);
+        CompletableFuture<Identifier> promoted = queue.submit(Identifier.of("nowplayingirl", "dynamic/album_1"),
+            new NativeImage(1, 1, false), stillPrefetch::get);
+        CompletableFuture<Identifier> prefetch = submit(2, true);
+        stillPrefetch.set(false);
+
+        CompletableFuture<Identifier> current = submit(3, false);
+
+        assertFalse(promoted.isDone());
+        assertRejected(prefetch);
+        assertFalse(current.isDone());
+    }
+
+    @Test
+    void clearCancelsPendingUploads() {
+        CompletableFuture<Identifier> upload = submit(1, false);
+        queue.clear();
+        assertTrue(upload.isCancelled());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,89 @@
+package com.nowplayingirl.client.media;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrackNormalizerTest {
+
+    @Test
+    void stripsVideoDecorations() {
+        assertEquals("Song", TrackNormalizer.normalize("Artist", "Song (Official Music Video) [HD]").title());
+        assertEquals("Song", TrackNormalizer.normalize("Artist", "Song | Official Video").title());
+        assertEquals("Song", TrackNormalizer.normalize("Artist", "Song - Lyrics | 4K").title());
+        assertEquals("Song", TrackNormalizer.normalize("Artist", "\"Song\" HD").title());
+    }
+
+    @Test
+    void keepsMeaningfulBrackets() {
+        assertEquals("Song (Live at Wembley)", TrackNormalizer.normalize("Artist", "Song (Live at Wembley)").title());
+        // Un tiret sans décoration fait partie du titre
+        assertEquals("Song - Part 2", TrackNormalizer.normalize("Artist", "Song - Part 2").title());
+    }
+
+    @Test
+    void extractsFeaturedArtists() {
+        TrackNormalizer.Track track = TrackNormalizer.normalize("Artist ft. Guest", "Song (feat. A & B)");
+        assertEquals("Artist", track.artist());
+        assertEquals("Song", track.title());
+        assertEquals(List.of("Guest", "A", "B"), track.featured());
+    }
+
+    @Test
+    void stripsChannelSuffixes() {
+        assertEquals("Artist", TrackNormalizer.normalize("Artist - Topic", "Song").artist());
+        assertEquals("Taylor Swift", TrackNormalizer.normalize("TaylorSwiftVEVO", "Song").artist());
+        // "VEVO" seul est un nom d'artiste, pas un suffixe
+        assertEquals("VEVO", TrackNormalizer.normalize("VEVO", "Song").artist());
+    }
+
+    @Test
+    void videoAndTrackShareKey() {
+        String expected = TrackNormalizer.normalize("Taylor Swift", "Shake It Off").key();
+        assertEquals(expected, TrackNormalizer.normalize("TaylorSwiftVEVO", "Shake It Off (Official Video)").key());
+        // Casse non séparable: "McCartney" reste collé, la clé ignore les espaces
+        assertEquals(TrackNormalizer.normalize("Paul McCartney", "Song").key(),
+            TrackNormalizer.normalize("PaulMcCartneyVEVO", "Song").key());
+    }
+
+    @Test
+    void foldsCaseAndPunctuation() {
+        assertEquals("strasse", TrackNormalizer.fold("STRAßE"));
+        assertEquals("ac dc", TrackNormalizer.fold("AC/DC"));
+        assertEquals("don t stop", TrackNormalizer.fold("Don’t Stop!"));
+    }
+
+    @Test
+    void nullInputsAreEmpty() {
+        TrackNormalizer.Track track = TrackNormalizer.normalize(null, null);
+        assertEquals("", track.artist());
+        assertEquals("", track.title());
+        assertEquals("|", track.key());
+    }
+
+    @Test
+    void featuredCreditsMatchCollaboration() {
+        TrackNormalizer.Track query = TrackNormalizer.normalize("Artist feat. Guest", "Song");
+        ArtCandidate collaboration = new ArtCandidate("Artist & Guest", "Song", "a");
+        ArtCandidate other = new ArtCandidate("Other Artist", "Song", "b");
+
+        assertTrue(TrackNormalizer.score(query, collaboration) > TrackNormalizer.score(query, other));
+        assertEquals(1.0, TrackNormalizer.score(query, collaboration), 1e-9);
+        assertSame(collaboration, TrackNormalizer.best(query, List.of(other, collaboration)));
+    }
+
+    @Test
+    void bestRejectsDifferentTrack() {
+        TrackNormalizer.Track query = TrackNormalizer.normalize("Artist", "Song");
+        assertNull(TrackNormalizer.best(query, List.of(new ArtCandidate("Someone", "Another Thing", "a"))));
+        assertNull(TrackNormalizer.best(query, List.of()));
+    }
+
+    @Test
+    void unknownArtistScoresTitleOnly() {
+        TrackNormalizer.Track query = TrackNormalizer.normalize("", "Song");
+        assertEquals(1.0, TrackNormalizer.score(query, new ArtCandidate("Anyone", "Song (Official Video)", "a")), 1e-9);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,82 @@
+package com.nowplayingirl.client.media;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WindowMatchEngineTest {
+
+    private final WindowMatchEngine engine = PlayerRules.compile(List.of());
+
+    private static WindowSnapshot window(String className, String title, String imageName) {
+        return new WindowSnapshot(0, className, title, 1, true, imageName);
+    }
+
+    @Test
+    void spotifyWinsOverEarlierWindows() {
+        MediaInfo media = engine.match(List.of(
+            window("Qt5QWindowIcon", "Song - VLC media player", null),
+            window("Chrome_WidgetWin_0", "Artist - Track", "C:\\Spotify\\Spotify.exe")));
+
+        assertNotNull(media);
+        assertEquals("Spotify", media.getSource());
+        assertEquals("Artist", media.getArtist());
+        assertEquals("Track", media.getTitle());
+    }
+
+    @Test
+    void vlcAndYouTubeFollowWindowOrder() {
+        // Même groupe: la première fenêtre reconnue gagne, quel que soit le lecteur
+        MediaInfo media = engine.match(List.of(
+            window("Chrome_WidgetWin_1", "Artist - Clip - YouTube - Google Chrome", "C:\\chrome.exe"),
+            window("Qt5QWindowIcon", "Song - VLC media player", null)));
+
+        assertNotNull(media);
+        assertEquals("YouTube", media.getSource());
+        assertEquals("Clip", media.getTitle());
+
+        media = engine.match(List.of(
+            window("Qt5QWindowIcon", "Song - VLC media player", null),
+            window("Chrome_WidgetWin_1", "Artist - Clip - YouTube - Google Chrome", "C:\\chrome.exe")));
+
+        assertNotNull(media);
+        assertEquals("VLC", media.getSource());
+        assertEquals("Unknown Artist", media.getArtist());
+    }
+
+    @Test
+    void genericPlayersComeLast() {
+        MediaInfo media = engine.match(List.of(
+            window("Winamp v1.x", "1. Artist - Title - Winamp", null),
+            window("Qt5QWindowIcon", "Song - VLC media player", null)));
+
+        assertNotNull(media);
+        assertEquals("VLC", media.getSource());
+
+        media = engine.match(List.of(window("TAIMPMainForm", "Artist - Title AIMP", null)));
+        assertNotNull(media);
+        assertEquals("AIMP", media.getSource());
+        assertEquals("Artist", media.getArtist());
+        assertEquals("Title", media.getTitle());
+    }
+
+    @Test
+    void spotifyNeedsItsProcess() {
+        assertTrue(engine.needsProcessImage("Chrome_WidgetWin_1"));
+        assertFalse(engine.needsProcessImage("Qt5QWindowIcon"));
+        assertNull(engine.match(List.of(window("Chrome_WidgetWin_1", "Artist - Track", "C:\\chrome.exe"))));
+    }
+
+    @Test
+    void customRulesComeFirst() {
+        PlayerRule rule = new PlayerRule("Custom", "VLC", "^(?<title>.+?) - VLC media player$");
+        WindowMatchEngine custom = PlayerRules.compile(List.of(rule));
+
+        MediaInfo media = custom.match(List.of(window("Qt5QWindowIcon", "Song - VLC media player", null)));
+
+        assertNotNull(media);
+        assertEquals("Custom", media.getSource());
+    }
+}
\ No newline at end of file